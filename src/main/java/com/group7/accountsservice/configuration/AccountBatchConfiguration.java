@@ -0,0 +1,14 @@
+package com.group7.accountsservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties("account-batch")
+@Getter @Setter
+public class AccountBatchConfiguration {
+    private int size = 1000;
+    private int concurrency = 16;
+}
@@ -0,0 +1,14 @@
+package com.group7.accountsservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties("account-lanes")
+@Getter @Setter
+public class AccountLanesConfiguration {
+    private int count = 256;
+    private int capacity = 1024;
+}
@@ -0,0 +1,17 @@
+package com.group7.accountsservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties("account-validation")
+@Getter @Setter
+public class AccountValidationConfiguration {
+    private Duration clientsHedgeDelay = Duration.ofMillis(150);
+    private Duration creditsHedgeDelay = Duration.ofMillis(150);
+    private boolean debugTimings = false;
+}
@@ -0,0 +1,29 @@
+package com.group7.accountsservice.configuration;
+
+import com.group7.accountsservice.model.Account;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+@Component
+@AllArgsConstructor
+@Slf4j
+public class AccountVersionBackfill {
+
+    private ReactiveMongoOperations mongoOperations;
+
+    // Accounts stored before @Version was introduced would otherwise be treated as new and re-inserted on save.
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillVersions() {
+        mongoOperations.updateMulti(Query.query(Criteria.where("version").exists(false)),
+                        Update.update("version", 0L), Account.class)
+                .subscribe(result -> log.info("Initialized version on {} accounts", result.getModifiedCount()),
+                        ex -> log.error("Could not initialize account versions", ex));
+    }
+}
@@ -0,0 +1,14 @@
+package com.group7.accountsservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties("card-topology-cache")
+@Getter @Setter
+public class CardTopologyCacheConfiguration {
+    private int maxSize = 10_000;
+    private String topic = "card-topology-invalidations";
+}
@@ -0,0 +1,65 @@
+package com.group7.accountsservice.configuration;
+
+import com.group7.accountsservice.utils.CardTopologyCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopicReactive;
+import org.redisson.api.RedissonReactiveClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.UUID;
+
+@Slf4j
+@Component
+public class CardTopologyInvalidationBridge {
+
+    private static final String SEPARATOR = "|";
+    private static final int PUBLISH_RETRIES = 3;
+    private static final Duration PUBLISH_BACKOFF = Duration.ofMillis(100);
+
+    private final CardTopologyCache cache;
+    private final RTopicReactive topic;
+    private final Counter failedPublishes;
+    private final String replica = UUID.randomUUID().toString();
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    public CardTopologyInvalidationBridge(CardTopologyCache cache, RedissonReactiveClient client,
+                                          CardTopologyCacheConfiguration configuration, MeterRegistry meterRegistry) {
+        this.cache = cache;
+        this.topic = client.getTopic(configuration.getTopic(), StringCodec.INSTANCE);
+        this.failedPublishes = meterRegistry.counter("cards.topology.invalidations.failures", "stage", "publish");
+    }
+
+    @PostConstruct
+    public void start() {
+        subscriptions.add(cache.invalidations()
+                .concatMap(id -> Mono.defer(() -> topic.publish(replica + SEPARATOR + id))
+                        .retryWhen(Retry.backoff(PUBLISH_RETRIES, PUBLISH_BACKOFF))
+                        .onErrorResume(ex -> {
+                            failedPublishes.increment();
+                            log.error("Could not broadcast invalidation of card {}", id, ex);
+                            return Mono.empty();
+                        }))
+                .subscribe());
+
+        subscriptions.add(topic.getMessages(String.class)
+                .filter(message -> !message.startsWith(replica + SEPARATOR))
+                .map(message -> message.substring(message.indexOf(SEPARATOR) + 1))
+                .subscribe(cache::evict,
+                        ex -> log.error("Card topology invalidation listener stopped", ex)));
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+    }
+}
@@ -0,0 +1,20 @@
+package com.group7.accountsservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties("client-cache")
+@Getter @Setter
+public class ClientCacheConfiguration {
+    private int localSize = 10_000;
+    private double refreshAhead = 0.8;
+    private Duration profileLocalTtl = Duration.ofSeconds(30);
+    private Duration profileRemoteTtl = Duration.ofMinutes(10);
+    private Duration creditLocalTtl = Duration.ofSeconds(5);
+    private Duration creditRemoteTtl = Duration.ofSeconds(30);
+}
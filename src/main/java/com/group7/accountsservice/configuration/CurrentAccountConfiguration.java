@@ -10,4 +10,5 @@ import org.springframework.stereotype.Component;
 @Getter @Setter
 public class CurrentAccountConfiguration {
     private double maintenanceFee;
+    private double transactionFee;
 }
@@ -0,0 +1,17 @@
+package com.group7.accountsservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties("deduplication")
+@Getter @Setter
+public class DeduplicationConfiguration {
+    private String setName = "processed-events";
+    private Duration ttl = Duration.ofDays(1);
+    private int localSize = 100_000;
+}
@@ -0,0 +1,14 @@
+package com.group7.accountsservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties("export")
+@Getter @Setter
+public class ExportConfiguration {
+    private int cursorBatchSize = 1000;
+    private int limitRate = 256;
+}
@@ -0,0 +1,34 @@
+package com.group7.accountsservice.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per client profile overrides of the account type settings. Unset values fall back to the account type.
+ */
+@Component
+@ConfigurationProperties("fee-policy")
+@Getter @Setter
+public class FeePolicyConfiguration {
+    private List<ProfileRule> profiles = new ArrayList<>(Collections.singletonList(
+            new ProfileRule("Current", "PYME", 0.0, null, null)));
+
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProfileRule {
+        private String accountType;
+        private String clientProfile;
+        private Double maintenanceFee;
+        private Integer movementsLimit;
+        private Double transactionFee;
+    }
+}
@@ -0,0 +1,24 @@
+package com.group7.accountsservice.configuration;
+
+import org.springframework.cloud.stream.config.ListenerContainerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+
+@Configuration
+public class KafkaAckConfiguration {
+
+    /**
+     * Consumers acknowledge records as they finish, which is out of offset order across keys; with async
+     * acks the container holds the commit back until every earlier offset of the partition is done.
+     */
+    @Bean
+    public ListenerContainerCustomizer<AbstractMessageListenerContainer<?, ?>> asyncAcks() {
+        return (container, destination, group) -> {
+            ContainerProperties properties = container.getContainerProperties();
+            if (properties.getAckMode() == ContainerProperties.AckMode.MANUAL)
+                properties.setAsyncAcks(true);
+        };
+    }
+}
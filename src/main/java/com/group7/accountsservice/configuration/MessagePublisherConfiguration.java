@@ -0,0 +1,17 @@
+package com.group7.accountsservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties("message-publisher")
+@Getter @Setter
+public class MessagePublisherConfiguration {
+    private int queueCapacity = 8192;
+    private int batchSize = 100;
+    private Duration linger = Duration.ofMillis(5);
+}
@@ -0,0 +1,136 @@
+package com.group7.accountsservice.configuration;
+
+import com.group7.accountsservice.model.Account;
+import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.Transfer;
+import com.group7.accountsservice.utils.Money;
+import com.mongodb.client.model.Filters;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveAfterConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeSaveCallback;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Moves money fields stored as doubles ({@code balance}, {@code amount}, {@code transactionFee}) to long minor
+ * units ({@code balanceMinor}, {@code amountMinor}, {@code transactionFeeMinor}). The rewrite runs once per
+ * document at startup and is idempotent.
+ * <p>
+ * Replicas still running the previous release save whole documents with only the legacy fields, dropping
+ * {@code balanceMinor} and {@code version} again after the rewrite. Reads therefore fall back to the legacy
+ * fields, {@link #balanceIncrement} derives the starting balance from {@code balance} when {@code balanceMinor}
+ * is missing, and the guards from {@link #balanceAtLeast} and {@link #hasBalance} accept either field. A
+ * versioned save of such an account fails until its next increment restores {@code version}, so old replicas
+ * must be drained before accounts are edited through full saves. The legacy fields are kept and written
+ * alongside the minor units, on saves through {@link #onBeforeSave} and on balance increments, so those
+ * replicas read current values. Dropping them is left to a later release once no such replica remains.
+ */
+@Component
+@AllArgsConstructor
+@Slf4j
+public class MoneyMigration implements ReactiveAfterConvertCallback<Object>, ReactiveBeforeSaveCallback<Object> {
+
+    private ReactiveMongoOperations mongoOperations;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        Flux.concat(
+                        migrate(Account.class, "balance", "balanceMinor"),
+                        migrate(Movement.class, "amount", "amountMinor", "transactionFee", "transactionFeeMinor"),
+                        migrate(Transfer.class, "amount", "amountMinor"))
+                .subscribe(null, ex -> log.error("Could not migrate money fields to minor units", ex));
+    }
+
+    @Override
+    public Publisher<Object> onAfterConvert(Object entity, Document document, String collection) {
+        if (entity instanceof Account && !document.containsKey("balanceMinor"))
+            ((Account) entity).setBalanceMinor(legacy(document, "balance"));
+        else if (entity instanceof Movement && !document.containsKey("amountMinor")) {
+            ((Movement) entity).setAmountMinor(legacy(document, "amount"));
+            ((Movement) entity).setTransactionFeeMinor(legacy(document, "transactionFee"));
+        } else if (entity instanceof Transfer && !document.containsKey("amountMinor"))
+            ((Transfer) entity).setAmountMinor(legacy(document, "amount"));
+        return Mono.just(entity);
+    }
+
+    @Override
+    public Publisher<Object> onBeforeSave(Object entity, Document document, String collection) {
+        if (entity instanceof Account)
+            document.put("balance", ((Account) entity).getBalance());
+        else if (entity instanceof Movement) {
+            document.put("amount", ((Movement) entity).getAmount());
+            document.put("transactionFee", ((Movement) entity).getTransactionFee());
+        } else if (entity instanceof Transfer)
+            document.put("amount", ((Transfer) entity).getAmount());
+        return Mono.just(entity);
+    }
+
+    /** Pipeline update adding {@code deltaMinor} to a balance and recomputing the legacy {@code balance}. */
+    public static List<Document> balanceIncrement(long deltaMinor) {
+        Document version = new Document("$add", Arrays.asList(
+                new Document("$ifNull", Arrays.asList("$version", 0L)), 1L));
+        Document balanceMinor = new Document("$ifNull", Arrays.asList("$balanceMinor", toMinor("balance")));
+        return Arrays.asList(
+                new Document("$set", new Document("balanceMinor",
+                        new Document("$add", Arrays.asList(balanceMinor, deltaMinor)))
+                        .append("version", version)),
+                new Document("$set", new Document("balance",
+                        new Document("$divide", Arrays.asList("$balanceMinor", 100)))));
+    }
+
+    /**
+     * Matches a balance of at least {@code minor} cents. On a document without {@code balanceMinor} the legacy
+     * {@code balance} is compared half a cent lower, which is where {@link #balanceIncrement} rounds it up.
+     */
+    public static Criteria balanceAtLeast(long minor) {
+        return new Criteria().orOperator(
+                Criteria.where("balanceMinor").gte(minor),
+                Criteria.where("balanceMinor").exists(false).and("balance").gte((minor - 0.5) / 100));
+    }
+
+    /** Matches an account with a balance in either field, so an increment never starts from nothing. */
+    public static Criteria hasBalance() {
+        return new Criteria().orOperator(
+                Criteria.where("balanceMinor").exists(true),
+                Criteria.where("balance").exists(true));
+    }
+
+    /** Pairs of legacy field and minor-unit field, filled in one pipeline update per collection. */
+    private Mono<Void> migrate(Class<?> type, String... fields) {
+        Document set = new Document();
+        for (int i = 0; i < fields.length; i += 2)
+            set.append(fields[i + 1], toMinor(fields[i]));
+        List<Bson> pipeline = Collections.singletonList(new Document("$set", set));
+        Bson pending = Filters.and(Filters.exists(fields[1], false), Filters.exists(fields[0]));
+
+        return mongoOperations.getCollection(mongoOperations.getCollectionName(type))
+                .flatMap(collection -> Mono.from(collection.updateMany(pending, pipeline)))
+                .doOnNext(result -> log.info("Migrated {} {} documents to minor units", result.getModifiedCount(),
+                        mongoOperations.getCollectionName(type)))
+                .then();
+    }
+
+    private static Document toMinor(String field) {
+        Document cents = new Document("$multiply", Arrays.asList(
+                new Document("$ifNull", Arrays.asList("$" + field, 0)), 100));
+        return new Document("$toLong", new Document("$round", Arrays.asList(cents, 0)));
+    }
+
+    private static long legacy(Document document, String field) {
+        Object value = document.get(field);
+        return value instanceof Number ? Money.toMinor(((Number) value).doubleValue()) : 0L;
+    }
+}
@@ -0,0 +1,36 @@
+package com.group7.accountsservice.configuration;
+
+import com.group7.accountsservice.model.MovementKind;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.util.Arrays;
+
+@Configuration
+public class MongoConversionConfig {
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(Arrays.asList(new MovementKindToCode(), new CodeToMovementKind()));
+    }
+
+    @WritingConverter
+    static class MovementKindToCode implements Converter<MovementKind, Integer> {
+        @Override
+        public Integer convert(MovementKind source) {
+            return source.getCode();
+        }
+    }
+
+    @ReadingConverter
+    static class CodeToMovementKind implements Converter<Integer, MovementKind> {
+        @Override
+        public MovementKind convert(Integer source) {
+            return MovementKind.ofCode(source);
+        }
+    }
+}
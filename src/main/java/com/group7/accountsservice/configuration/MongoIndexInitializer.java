@@ -0,0 +1,54 @@
+package com.group7.accountsservice.configuration;
+
+import com.group7.accountsservice.model.Account;
+import com.group7.accountsservice.model.DebitCard;
+import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.ProcessedEvent;
+import com.group7.accountsservice.model.Transfer;
+import com.group7.accountsservice.repository.QueryPlanInspector;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Component
+@AllArgsConstructor
+@Slf4j
+public class MongoIndexInitializer {
+
+    private static final List<Class<?>> INDEXED_DOCUMENTS = Arrays.asList(Account.class, Movement.class,
+            Transfer.class, DebitCard.class, ProcessedEvent.class);
+
+    private ReactiveMongoOperations mongoOperations;
+
+    private MongoMappingContext mappingContext;
+
+    private QueryPlanInspector queryPlanInspector;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeIndexes() {
+        IndexResolver resolver = IndexResolver.create(mappingContext);
+
+        Flux.fromIterable(INDEXED_DOCUMENTS)
+                .concatMap(document -> Flux.fromIterable(resolver.resolveIndexFor(document))
+                        .concatMap(index -> mongoOperations.indexOps(document).ensureIndex(index)
+                                .doOnNext(name -> log.info("Ensured index {} on {}", name,
+                                        mongoOperations.getCollectionName(document)))
+                                .onErrorResume(ex -> {
+                                    log.error("Could not create index {} on {}", index.getIndexKeys(),
+                                            mongoOperations.getCollectionName(document), ex);
+                                    return Mono.empty();
+                                })))
+                .thenMany(queryPlanInspector.inspect())
+                .subscribe(null, ex -> log.error("Could not initialize indexes", ex));
+    }
+}
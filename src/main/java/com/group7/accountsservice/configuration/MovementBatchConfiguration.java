@@ -0,0 +1,14 @@
+package com.group7.accountsservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties("movement-batch")
+@Getter @Setter
+public class MovementBatchConfiguration {
+    private int size = 500;
+    private int concurrency = 8;
+}
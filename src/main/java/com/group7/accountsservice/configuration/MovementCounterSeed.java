@@ -0,0 +1,59 @@
+package com.group7.accountsservice.configuration;
+
+import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementCounter;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Seeds {@code movement_counters} for the current month from the movements already stored, so accounts that
+ * moved money before the counters existed are not granted a fresh set of free movements. A counter that is
+ * already ahead of the aggregate keeps its value, which makes the seed safe to run while movements are being
+ * counted and idempotent across restarts.
+ */
+@Component
+@AllArgsConstructor
+@Slf4j
+public class MovementCounterSeed {
+
+    private ReactiveMongoOperations mongoOperations;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedCurrentMonth() {
+        YearMonth month = YearMonth.now();
+        seed(month).subscribe(null,
+                ex -> log.error("Could not seed movement counters for {}", month, ex),
+                () -> log.info("Seeded movement counters for {}", month));
+    }
+
+    public Mono<Void> seed(YearMonth month) {
+        Object from = mongoOperations.getConverter().convertToMongoType(month.atDay(1));
+        Object to = mongoOperations.getConverter().convertToMongoType(month.plusMonths(1).atDay(1));
+        List<Document> pipeline = Arrays.asList(
+                new Document("$match", new Document("date", new Document("$gte", from).append("$lt", to))),
+                new Document("$group", new Document("_id", "$account").append("count", new Document("$sum", 1L))),
+                new Document("$project", new Document("_id",
+                        new Document("$concat", Arrays.asList("$_id", ":" + month)))
+                        .append("account", "$_id")
+                        .append("month", new Document("$literal", month.toString()))
+                        .append("count", 1)),
+                new Document("$merge", new Document("into", mongoOperations.getCollectionName(MovementCounter.class))
+                        .append("on", "_id")
+                        .append("whenMatched", Arrays.asList(new Document("$set", new Document("count",
+                                new Document("$max", Arrays.asList("$count", "$$new.count"))))))
+                        .append("whenNotMatched", "insert")));
+
+        return mongoOperations.getCollection(mongoOperations.getCollectionName(Movement.class))
+                .flatMap(collection -> Mono.from(collection.aggregate(pipeline).toCollection()));
+    }
+}
@@ -0,0 +1,72 @@
+package com.group7.accountsservice.configuration;
+
+import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementKind;
+import com.mongodb.client.model.Filters;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveAfterConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeSaveCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Adds the {@link MovementKind} code next to the {@code type} label of stored movements. Labels that do not
+ * match a known kind get the {@code OTHER} code. Until a document is rewritten, reads resolve the kind from its
+ * label. Saves keep writing the label so replicas still running the previous release can read new movements;
+ * dropping {@code type} is left to a later release once no such replica remains.
+ */
+@Component
+@AllArgsConstructor
+@Slf4j
+public class MovementKindMigration implements ReactiveAfterConvertCallback<Movement>,
+        ReactiveBeforeSaveCallback<Movement> {
+
+    private ReactiveMongoOperations mongoOperations;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        List<Document> branches = new ArrayList<>();
+        for (MovementKind kind : MovementKind.values())
+            branches.add(new Document("case", new Document("$eq", Arrays.asList(
+                    new Document("$toLower", "$type"), kind.getLabel().toLowerCase(Locale.ROOT))))
+                    .append("then", kind.getCode()));
+        Document code = new Document("$switch", new Document("branches", branches)
+                .append("default", MovementKind.OTHER.getCode()));
+
+        List<Bson> pipeline = Collections.singletonList(new Document("$set", new Document("kind", code)));
+        Bson pending = Filters.and(Filters.exists("kind", false), Filters.exists("type"));
+
+        mongoOperations.getCollection(mongoOperations.getCollectionName(Movement.class))
+                .flatMap(collection -> Mono.from(collection.updateMany(pending, pipeline)))
+                .subscribe(result -> log.info("Migrated {} movements to kind codes", result.getModifiedCount()),
+                        ex -> log.error("Could not migrate movement types to kind codes", ex));
+    }
+
+    @Override
+    public Publisher<Movement> onAfterConvert(Movement entity, Document document, String collection) {
+        if (Objects.isNull(entity.getKind()))
+            entity.setType(document.getString("type"));
+        return Mono.just(entity);
+    }
+
+    @Override
+    public Publisher<Movement> onBeforeSave(Movement entity, Document document, String collection) {
+        if (!Objects.isNull(entity.getKind()))
+            document.put("type", entity.getType());
+        return Mono.just(entity);
+    }
+}
@@ -0,0 +1,17 @@
+package com.group7.accountsservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties("near-cache")
+@Getter @Setter
+public class NearCacheConfiguration {
+    private int maxSize = 10_000;
+    private Duration accountTtl = Duration.ofSeconds(30);
+    private Duration transactionTtl = Duration.ofSeconds(5);
+}
@@ -0,0 +1,18 @@
+package com.group7.accountsservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties("optimistic-retry")
+@Getter @Setter
+public class OptimisticRetryConfiguration {
+    private long maxAttempts = 5;
+    private Duration minBackoff = Duration.ofMillis(10);
+    private Duration maxBackoff = Duration.ofMillis(500);
+    private double jitter = 0.5;
+}
@@ -0,0 +1,15 @@
+package com.group7.accountsservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties("query-plans")
+@Getter @Setter
+public class QueryPlanConfiguration {
+    private Duration refreshInterval = Duration.ofMinutes(15);
+}
@@ -0,0 +1,45 @@
+package com.group7.accountsservice.configuration;
+
+import com.group7.accountsservice.dto.QueryPlan;
+import com.group7.accountsservice.repository.QueryPlanInspector;
+import org.springframework.boot.actuate.health.AbstractReactiveHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Reports the last query plan inspection without running it. Collection scans are listed as details but keep
+ * the status UP: a missing index makes queries slow, not the service unable to take traffic.
+ */
+@Component("queryPlans")
+public class QueryPlanHealthIndicator extends AbstractReactiveHealthIndicator {
+
+    private final QueryPlanInspector queryPlanInspector;
+
+    public QueryPlanHealthIndicator(QueryPlanInspector queryPlanInspector) {
+        super("Query plan inspection failed");
+        this.queryPlanInspector = queryPlanInspector;
+    }
+
+    @Override
+    protected Mono<Health> doHealthCheck(Health.Builder builder) {
+        QueryPlanInspector.Inspection inspection = queryPlanInspector.getLastInspection();
+        if (Objects.isNull(inspection))
+            return Mono.just(builder.unknown().withDetail("inspectedAt", "pending").build());
+
+        List<String> collectionScans = inspection.getPlans().stream()
+                .filter(QueryPlan::isCollectionScan)
+                .map(QueryPlan::getQuery)
+                .collect(Collectors.toList());
+        builder.up()
+                .withDetail("inspectedAt", inspection.getInspectedAt())
+                .withDetail("collectionScans", collectionScans);
+        for (QueryPlan plan : inspection.getPlans())
+            builder.withDetail(plan.getQuery(), plan.getStages());
+        return Mono.just(builder.build());
+    }
+}
@@ -1,11 +1,18 @@
 package com.group7.accountsservice.configuration;
 
+import com.group7.accountsservice.dto.AccountYanki;
+import com.group7.accountsservice.dto.Transaction;
+import org.redisson.api.LocalCachedMapOptions;
+import org.redisson.api.RLocalCachedMap;
 import org.redisson.api.RedissonClient;
+import org.redisson.codec.TypedJsonJacksonCodec;
 import org.redisson.spring.cache.RedissonSpringCacheManager;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 
 @Configuration
 public class RedissonCacheConfig {
@@ -15,4 +22,34 @@ public class RedissonCacheConfig {
         return new RedissonSpringCacheManager(redissonClient);
     }
 
+    @Bean
+    public RLocalCachedMap<Long, AccountYanki> yankiAccountMap(RedissonClient redissonClient,
+                                                               NearCacheConfiguration configuration) {
+        return redissonClient.getLocalCachedMap("account",
+                new TypedJsonJacksonCodec(Long.class, AccountYanki.class),
+                RedissonCacheConfig.<Long, AccountYanki>nearCache(configuration.getMaxSize(),
+                        configuration.getAccountTtl()));
+    }
+
+    @Bean
+    public RLocalCachedMap<String, Transaction> transactionMap(RedissonClient redissonClient,
+                                                               NearCacheConfiguration configuration) {
+        return redissonClient.getLocalCachedMap("transaction",
+                new TypedJsonJacksonCodec(String.class, Transaction.class),
+                RedissonCacheConfig.<String, Transaction>nearCache(configuration.getMaxSize(),
+                        configuration.getTransactionTtl()));
+    }
+
+    /**
+     * The maps are written by other services through plain RMap puts, which publish no invalidation
+     * messages; the TTL is what bounds staleness for those writes.
+     */
+    private static <K, V> LocalCachedMapOptions<K, V> nearCache(int maxSize, Duration ttl) {
+        return LocalCachedMapOptions.<K, V>defaults()
+                .cacheSize(maxSize)
+                .timeToLive(ttl.toMillis())
+                .evictionPolicy(LocalCachedMapOptions.EvictionPolicy.LRU)
+                .syncStrategy(LocalCachedMapOptions.SyncStrategy.INVALIDATE)
+                .reconnectionStrategy(LocalCachedMapOptions.ReconnectionStrategy.CLEAR);
+    }
 }
@@ -11,5 +11,5 @@ import org.springframework.stereotype.Component;
 public class SavingAccountConfiguration {
     private Integer movementsLimit;
     private Double maintenanceFee;
-    private Double transactionFee;
+    private Double transactionFee = 5.0;
 }
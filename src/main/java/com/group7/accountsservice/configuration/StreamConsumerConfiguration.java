@@ -0,0 +1,19 @@
+package com.group7.accountsservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties("stream-consumers")
+@Getter @Setter
+public class StreamConsumerConfiguration {
+    private int concurrency = 8;
+    private int prefetch = 64;
+    private int maxAttempts = 5;
+    private Duration backoff = Duration.ofMillis(200);
+    private Duration maxBackoff = Duration.ofSeconds(5);
+}
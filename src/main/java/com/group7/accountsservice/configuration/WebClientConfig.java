@@ -0,0 +1,60 @@
+package com.group7.accountsservice.configuration;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+@Configuration
+public class WebClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider downstreamConnectionProvider(WebClientConfiguration configuration) {
+        return ConnectionProvider.builder("downstream")
+                .maxConnections(configuration.getMaxConnections())
+                .pendingAcquireMaxCount(configuration.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(configuration.getPendingAcquireTimeout())
+                .maxIdleTime(configuration.getMaxIdleTime())
+                .maxLifeTime(configuration.getMaxLifeTime())
+                .evictInBackground(configuration.getMaxIdleTime())
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient clientsWebClient(WebClient.Builder builder, ConnectionProvider downstreamConnectionProvider,
+                                      WebClientConfiguration configuration,
+                                      @Value("${services-uri.clients}") String clientsService) {
+        return builder.clone()
+                .baseUrl(clientsService)
+                .clientConnector(connector(downstreamConnectionProvider, configuration))
+                .build();
+    }
+
+    @Bean
+    public WebClient creditsWebClient(WebClient.Builder builder, ConnectionProvider downstreamConnectionProvider,
+                                      WebClientConfiguration configuration,
+                                      @Value("${services-uri.credits}") String creditsService) {
+        return builder.clone()
+                .baseUrl(creditsService)
+                .clientConnector(connector(downstreamConnectionProvider, configuration))
+                .build();
+    }
+
+    private static ReactorClientHttpConnector connector(ConnectionProvider provider,
+                                                        WebClientConfiguration configuration) {
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) configuration.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .responseTimeout(configuration.getResponseTimeout());
+        if (configuration.isHttp2())
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        return new ReactorClientHttpConnector(httpClient);
+    }
+}
@@ -1,20 +1,25 @@
 package com.group7.accountsservice.controller;
 
+import com.group7.accountsservice.dto.AccountBatchResult;
 import com.group7.accountsservice.dto.AccountReportResponse;
 import com.group7.accountsservice.dto.AccountRequest;
 import com.group7.accountsservice.dto.AccountResponse;
 import com.group7.accountsservice.dto.FeeResponse;
 import com.group7.accountsservice.service.AccountService;
 import com.group7.accountsservice.service.MovementService;
+import com.group7.accountsservice.utils.PageCursor;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.util.Map;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/accounts")
@@ -26,8 +31,11 @@ public class AccountController {
     private MovementService movementService;
 
     @GetMapping
-    public Flux<AccountResponse> getAllAccounts() {
-        return service.getAll();
+    public Mono<ResponseEntity<Flux<AccountResponse>>> getAllAccounts(@RequestParam(required = false) final Integer limit,
+                                                                     @RequestParam(required = false) final String after) {
+        if (Objects.isNull(limit))
+            return Mono.just(ResponseEntity.ok(service.getAll()));
+        return service.getPage(after, limit).map(PageCursor::toResponse);
     }
 
     @GetMapping("/client/{client}")
@@ -84,6 +92,12 @@ public class AccountController {
         return service.save(accountRequest);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<AccountBatchResult> saveAccounts(@RequestBody final Flux<AccountRequest> accountRequests) {
+        return service.saveAll(accountRequests);
+    }
+
     @PutMapping("{id}")
     public Mono<AccountResponse> updateAccount(@PathVariable final String id,
                                                @RequestBody final AccountRequest accountRequest) {
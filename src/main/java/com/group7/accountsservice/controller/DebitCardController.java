@@ -4,14 +4,16 @@ import com.group7.accountsservice.dto.*;
 import com.group7.accountsservice.dto.DebitCardRequest;
 import com.group7.accountsservice.dto.DebitCardResponse;
 import com.group7.accountsservice.service.DebitCardService;
+import com.group7.accountsservice.utils.PageCursor;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/accounts/debitCard")
@@ -21,8 +23,11 @@ public class DebitCardController {
     private DebitCardService service;
 
     @GetMapping
-    public Flux<DebitCardResponse> getAllDebitCards(){
-        return service.getAll();
+    public Mono<ResponseEntity<Flux<DebitCardResponse>>> getAllDebitCards(@RequestParam(required = false) Integer limit,
+                                                                          @RequestParam(required = false) String after){
+        if (Objects.isNull(limit))
+            return Mono.just(ResponseEntity.ok(service.getAll()));
+        return service.getPage(after, limit).map(PageCursor::toResponse);
     }
 
     @GetMapping("{id}")
@@ -44,7 +49,7 @@ public class DebitCardController {
 
     @PostMapping("/movement")
     @ResponseStatus(HttpStatus.CREATED)
-    public Mono<List<MovementResponse>> movementDebitCard(@RequestBody MovementRequest movementRequest){
+    public Mono<CardPaymentResponse> movementDebitCard(@RequestBody MovementRequest movementRequest){
         return service.makeMovement(movementRequest);
     }
 
@@ -1,15 +1,24 @@
 package com.group7.accountsservice.controller;
 
+import com.group7.accountsservice.dto.ExportFilter;
+import com.group7.accountsservice.dto.MovementBatchResult;
 import com.group7.accountsservice.dto.MovementRequest;
 import com.group7.accountsservice.dto.MovementResponse;
 import com.group7.accountsservice.service.MovementService;
+import com.group7.accountsservice.utils.PageCursor;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+import java.util.Objects;
+
 @RestController
 @RequestMapping("/accounts/movement")
 @AllArgsConstructor
@@ -22,9 +31,36 @@ public class MovementController {
         return service.getAll();
     }
 
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MovementResponse> exportMovements(@RequestParam(required = false) String account,
+                                                  @RequestParam(required = false) String type,
+                                                  @RequestParam(required = false)
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                  @RequestParam(required = false)
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to){
+        return service.export(ExportFilter.builder().account(account).type(type).from(from).to(to).build());
+    }
+
+    @GetMapping(value = "/export", produces = "text/csv")
+    public Flux<String> exportMovementsCsv(@RequestParam(required = false) String account,
+                                           @RequestParam(required = false) String type,
+                                           @RequestParam(required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                           @RequestParam(required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to){
+        // The header waits for the first signal so a rejected filter still answers with an error status.
+        return service.export(ExportFilter.builder().account(account).type(type).from(from).to(to).build())
+                .map(MovementResponse::toCsv)
+                .switchOnFirst((first, rows) -> first.isOnError() ? rows : rows.startWith(MovementResponse.CSV_HEADER));
+    }
+
     @GetMapping("/product/{account}")
-    public Flux<MovementResponse> getAllMovementsByAccount(@PathVariable String account){
-        return service.getAllMovementsByAccount(account);
+    public Mono<ResponseEntity<Flux<MovementResponse>>> getAllMovementsByAccount(@PathVariable String account,
+                                                                                 @RequestParam(required = false) Integer limit,
+                                                                                 @RequestParam(required = false) String after){
+        if (Objects.isNull(limit))
+            return Mono.just(ResponseEntity.ok(service.getAllMovementsByAccount(account)));
+        return service.getPageByAccount(account, after, limit).map(PageCursor::toResponse);
     }
 
     @GetMapping("{id}")
@@ -38,6 +74,12 @@ public class MovementController {
         return service.save(movementRequest);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MovementBatchResult> saveMovements(@RequestBody Flux<MovementRequest> movementRequests){
+        return service.saveAll(movementRequests);
+    }
+
     @PutMapping("{id}")
     public Mono<MovementResponse> updateMovement(@PathVariable String id,
                                                         @RequestBody MovementRequest movementRequest){
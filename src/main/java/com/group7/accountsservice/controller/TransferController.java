@@ -1,15 +1,23 @@
 package com.group7.accountsservice.controller;
 
+import com.group7.accountsservice.dto.ExportFilter;
 import com.group7.accountsservice.dto.TransferRequest;
 import com.group7.accountsservice.dto.TransferResponse;
 import com.group7.accountsservice.service.TransferService;
+import com.group7.accountsservice.utils.PageCursor;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+import java.util.Objects;
+
 @RestController
 @RequestMapping("/accounts/transfer")
 @AllArgsConstructor
@@ -22,9 +30,34 @@ public class TransferController {
         return service.getAll();
     }
 
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<TransferResponse> exportTransfers(@RequestParam(required = false) String account,
+                                                  @RequestParam(required = false)
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                  @RequestParam(required = false)
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to){
+        return service.export(ExportFilter.builder().account(account).from(from).to(to).build());
+    }
+
+    @GetMapping(value = "/export", produces = "text/csv")
+    public Flux<String> exportTransfersCsv(@RequestParam(required = false) String account,
+                                           @RequestParam(required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                           @RequestParam(required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to){
+        // The header waits for the first signal so a rejected filter still answers with an error status.
+        return service.export(ExportFilter.builder().account(account).from(from).to(to).build())
+                .map(TransferResponse::toCsv)
+                .switchOnFirst((first, rows) -> first.isOnError() ? rows : rows.startWith(TransferResponse.CSV_HEADER));
+    }
+
     @GetMapping("/product/{account}")
-    public Flux<TransferResponse> getAllTransfersByAccount(@PathVariable String account){
-        return service.getAllByAccount(account);
+    public Mono<ResponseEntity<Flux<TransferResponse>>> getAllTransfersByAccount(@PathVariable String account,
+                                                                                 @RequestParam(required = false) Integer limit,
+                                                                                 @RequestParam(required = false) String after){
+        if (Objects.isNull(limit))
+            return Mono.just(ResponseEntity.ok(service.getAllByAccount(account)));
+        return service.getPageByAccount(account, after, limit).map(PageCursor::toResponse);
     }
 
     @GetMapping("{id}")
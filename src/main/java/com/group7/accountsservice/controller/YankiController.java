@@ -21,7 +21,7 @@ public class YankiController {
 
     @GetMapping("/toyanki")
     public Mono<Boolean> getAllAccounts() {
-        return Mono.just(service.sendToYanki(new Yanki("id",9L,10L,5.0, LocalDate.now())));
+        return service.sendToYanki(new Yanki("id",9L,10L,5.0, LocalDate.now()));
     }
 
     @GetMapping("/toyanki2")
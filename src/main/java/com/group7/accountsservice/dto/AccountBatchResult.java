@@ -0,0 +1,37 @@
+package com.group7.accountsservice.dto;
+
+import com.group7.accountsservice.model.Account;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountBatchResult {
+    private Long line;
+    private String client;
+    private String status;
+    private String message;
+    private AccountResponse account;
+
+    public static AccountBatchResult created(long line, Account account) {
+        return AccountBatchResult.builder()
+                .line(line)
+                .client(account.getClient())
+                .status("Created")
+                .account(AccountResponse.fromModel(account))
+                .build();
+    }
+
+    public static AccountBatchResult rejected(long line, String client, String message) {
+        return AccountBatchResult.builder()
+                .line(line)
+                .client(client)
+                .status("Rejected")
+                .message(message)
+                .build();
+    }
+}
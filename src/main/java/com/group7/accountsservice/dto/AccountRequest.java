@@ -40,14 +40,14 @@ public class AccountRequest {
         if (balance < 0)
             throw new AccountCreationException("The balance could not be less than 0 or null");
 
-        if (clientType.equalsIgnoreCase("Business") &&
+        if ("Business".equalsIgnoreCase(clientType) &&
                 (type.equals(SAVING) || type.equals(FIXED_DEPOSIT) || Objects.isNull(holders) || holders.isEmpty()))
             throw new AccountCreationException("A business account can only be of 'Current' type and must have at least one account holder");
 
         if (type.equals(FIXED_DEPOSIT) && Objects.isNull(movementDay))
             throw new AccountCreationException("If account type is 'Fixed Deposit' must have a Movement Day attribute");
 
-        if(clientProfile.equalsIgnoreCase("VIP") && type.equals(SAVING) && Objects.isNull(minimumAmount))
+        if ("VIP".equalsIgnoreCase(clientProfile) && type.equals(SAVING) && Objects.isNull(minimumAmount))
             throw new AccountCreationException("If client type is 'VIP' the Saving account must have a minimum amount");
 
         return Account.builder()
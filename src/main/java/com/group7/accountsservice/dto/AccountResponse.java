@@ -1,5 +1,6 @@
 package com.group7.accountsservice.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.group7.accountsservice.model.Account;
 import lombok.*;
 
@@ -21,6 +22,8 @@ public class AccountResponse {
     private List<String> holders;
     private List<String> signers;
     private Integer movementDay;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<CheckTiming> validationTimings;
 
     public static AccountResponse fromModel(Account account) {
         AccountResponseBuilder response = AccountResponse.builder()
@@ -38,7 +41,7 @@ public class AccountResponse {
         if (account.getType().equals("Fixed Deposit"))
             response.movementDay(account.getMovementDay());
 
-        if (account.getClientType().equalsIgnoreCase("Business"))
+        if ("Business".equalsIgnoreCase(account.getClientType()))
             response.holders(account.getHolders()).signers(account.getSigners());
 
         return response.build();
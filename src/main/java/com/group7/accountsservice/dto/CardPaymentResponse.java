@@ -0,0 +1,50 @@
+package com.group7.accountsservice.dto;
+
+import com.group7.accountsservice.model.CardPaymentPlan;
+import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.utils.Money;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CardPaymentResponse {
+    private String card;
+    private Double amount;
+    private List<Allocation> allocations;
+    private List<MovementResponse> movements;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Allocation {
+        private String account;
+        private Double available;
+        private Double amount;
+
+        public static Allocation fromPlan(CardPaymentPlan.Allocation allocation) {
+            return new Allocation(allocation.getAccount(), Money.toMajor(allocation.getAvailableMinor()),
+                    Money.toMajor(allocation.getAmountMinor()));
+        }
+    }
+
+    public static CardPaymentResponse fromPlan(CardPaymentPlan plan, List<Movement> movements) {
+        return CardPaymentResponse.builder()
+                .card(plan.getCard())
+                .amount(plan.getAmount())
+                .allocations(plan.getAllocations().stream()
+                        .map(Allocation::fromPlan)
+                        .collect(Collectors.toList()))
+                .movements(movements.stream()
+                        .map(MovementResponse::fromModel)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+}
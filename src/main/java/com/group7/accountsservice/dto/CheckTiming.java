@@ -0,0 +1,16 @@
+package com.group7.accountsservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CheckTiming {
+    private String check;
+    private String outcome;
+    private Long millis;
+}
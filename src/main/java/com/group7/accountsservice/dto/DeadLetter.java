@@ -0,0 +1,30 @@
+package com.group7.accountsservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeadLetter {
+    private String consumer;
+    private Object payload;
+    private String error;
+    private String message;
+    private Instant failedAt;
+
+    public static DeadLetter of(String consumer, Object payload, Throwable ex) {
+        return DeadLetter.builder()
+                .consumer(consumer)
+                .payload(payload)
+                .error(ex.getClass().getName())
+                .message(ex.getMessage())
+                .failedAt(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,19 @@
+package com.group7.accountsservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExportFilter {
+    private String account;
+    private String type;
+    private LocalDate from;
+    private LocalDate to;
+}
@@ -0,0 +1,37 @@
+package com.group7.accountsservice.dto;
+
+import com.group7.accountsservice.model.Movement;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MovementBatchResult {
+    private Long line;
+    private String account;
+    private String status;
+    private String message;
+    private MovementResponse movement;
+
+    public static MovementBatchResult created(long line, Movement movement) {
+        return MovementBatchResult.builder()
+                .line(line)
+                .account(movement.getAccount())
+                .status("Created")
+                .movement(MovementResponse.fromModel(movement))
+                .build();
+    }
+
+    public static MovementBatchResult rejected(long line, String account, String message) {
+        return MovementBatchResult.builder()
+                .line(line)
+                .account(account)
+                .status("Rejected")
+                .message(message)
+                .build();
+    }
+}
@@ -1,7 +1,9 @@
 package com.group7.accountsservice.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.group7.accountsservice.exception.movement.MovementCreationException;
 import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementKind;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -26,11 +28,12 @@ public class MovementRequest {
         if (Objects.isNull(type) || Objects.isNull(account) || Objects.isNull(amount))
             throw new MovementCreationException("Type, Account and Amount are mandatory attributes");
 
-        if (!type.equalsIgnoreCase("withdraw") && !type.equalsIgnoreCase("deposit"))
+        MovementKind kind = getKind();
+        if (kind != MovementKind.WITHDRAW && kind != MovementKind.DEPOSIT)
             throw new MovementCreationException("The type of movement must have a value from: 'Withdraw' or 'Deposit'");
 
         return Movement.builder()
-                .type(this.type)
+                .kind(kind)
                 .account(this.account)
                 .amount(this.amount)
                 .transactionFee(0.0)
@@ -40,7 +43,7 @@ public class MovementRequest {
 
     public Movement toModelWithAmount(Double balance) {
         return Movement.builder()
-                .type(this.type)
+                .kind(getKind())
                 .account(this.account)
                 .amount(balance)
                 .transactionFee(0.0)
@@ -48,10 +51,13 @@ public class MovementRequest {
                 .build();
     }
 
+    @JsonIgnore
+    public MovementKind getKind() {
+        return MovementKind.of(type);
+    }
+
     public Double getAmountSigned() {
-        return type.equals("withdraw")||
-                type.equals("withdraw debit")||
-                type.equals("pay")||type.equals("yanki out") ? -1 * amount : amount;
+        return getKind().isDebit() ? -1 * amount : amount;
     }
 
 }
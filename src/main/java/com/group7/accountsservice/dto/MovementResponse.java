@@ -1,6 +1,7 @@
 package com.group7.accountsservice.dto;
 
 import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.utils.CsvUtils;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,6 +14,8 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @NoArgsConstructor
 public class MovementResponse {
+    public static final String CSV_HEADER = CsvUtils.line("id", "type", "amount", "date", "account", "transactionFee");
+
     private String id;
     private String type;
     private Double amount;
@@ -31,4 +34,8 @@ public class MovementResponse {
                 .build();
 
     }
+
+    public String toCsv() {
+        return CsvUtils.line(id, type, amount, date, account, transactionFee);
+    }
 }
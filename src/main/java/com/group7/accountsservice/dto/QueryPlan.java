@@ -0,0 +1,22 @@
+package com.group7.accountsservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class QueryPlan {
+    private String query;
+    private String collection;
+    private List<String> stages;
+
+    public boolean isCollectionScan() {
+        return stages.contains("COLLSCAN");
+    }
+}
@@ -1,6 +1,7 @@
 package com.group7.accountsservice.dto;
 
 import com.group7.accountsservice.model.Transfer;
+import com.group7.accountsservice.utils.CsvUtils;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,6 +17,8 @@ import java.util.Date;
 @NoArgsConstructor
 @Slf4j
 public class TransferResponse {
+    public static final String CSV_HEADER = CsvUtils.line("id", "from", "to", "transaction", "amount", "date");
+
     private String id;
     private String from;
     private String to;
@@ -34,4 +37,8 @@ public class TransferResponse {
                 .build();
 
     }
+
+    public String toCsv() {
+        return CsvUtils.line(id, from, to, transaction, amount, date);
+    }
 }
@@ -1,9 +1,12 @@
 package com.group7.accountsservice.model;
 
 import com.group7.accountsservice.exception.movement.MovementCreationException;
+import com.group7.accountsservice.utils.Money;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -17,6 +20,7 @@ import java.util.Objects;
 @ToString
 @Slf4j
 @Document(collection = "accounts")
+@CompoundIndex(name = "client_type", def = "{'client': 1, 'type': 1}")
 public class Account {
     @Id
     private String id;
@@ -26,29 +30,38 @@ public class Account {
     private String clientProfile;
     @NonNull
     private String type;
-    @NonNull
-    private Double balance;
+    private long balanceMinor;
     private Double maintenanceFee;
     private Integer movementsLimit;
     private List<String> holders;
     private List<String> signers;
     private Integer movementDay;
+    @Version
+    private Long version;
 
     public Account(String id, @NonNull String client, @NonNull String type, @NonNull Double balance) {
         this.id = id;
         this.client = client;
         this.type = type;
-        this.balance = balance;
+        this.balanceMinor = Money.toMinor(balance);
+    }
+
+    public Double getBalance() {
+        return Money.toMajor(balanceMinor);
+    }
+
+    public void setBalance(@NonNull Double balance) {
+        this.balanceMinor = Money.toMinor(balance);
     }
 
     public boolean isMovementValid(final Movement movement) {
 
-        if (Objects.isNull(movement.getType()) || Objects.isNull(movement.getAmount())) {
+        if (Objects.isNull(movement.getKind())) {
             throw new MovementCreationException("Type, Account and Amount are mandatory attributes");
         }
 
-        return !movement.getType().equalsIgnoreCase("withdraw") ||
-                balance >= movement.getAmount() + movement.getTransactionFee();
+        return !movement.getKind().isDebit() ||
+                balanceMinor >= movement.getAmountMinor() + movement.getTransactionFeeMinor();
     }
 
     public boolean canFixedAccountMove() {
@@ -56,21 +69,28 @@ public class Account {
                 || LocalDate.now().getDayOfMonth() == movementDay;
     }
 
-    public boolean isMovementInAccountLimit(final Long count) {
-        return count.intValue() < movementsLimit;
+    public boolean isMovementInAccountLimit(final MovementCounter counter) {
+        return isMovementInLimit(counter, movementsLimit);
+    }
+
+    /** An account without a movements limit never runs out of free movements. */
+    public static boolean isMovementInLimit(final MovementCounter counter, final Integer movementsLimit) {
+        return Objects.isNull(movementsLimit) || Objects.isNull(counter.getCount())
+                || counter.getCount() <= movementsLimit;
     }
 
     public void makeMovement(final Movement movement) {
-        if (movement.getType().equalsIgnoreCase("withdraw") ||
-                movement.getType().equalsIgnoreCase("pay") ||
-                movement.getType().equalsIgnoreCase("withdraw debit")) {
-            balance -= movement.getAmount();
-        } else if (movement.getType().equalsIgnoreCase("deposit")) {
-            balance += movement.getAmount();
-        }
+        balanceMinor += balanceDeltaOf(movement);
+    }
+
+    /** Balance change of the movement in minor units. */
+    public static long balanceDeltaOf(final Movement movement) {
+        return movement.getAmountSignedMinor();
+    }
 
-        if (!Objects.isNull(movement.getTransactionFee())) {
-            balance -= movement.getTransactionFee();
+    public static class AccountBuilder {
+        public AccountBuilder balance(@NonNull Double balance) {
+            return balanceMinor(Money.toMinor(balance));
         }
     }
 
@@ -0,0 +1,84 @@
+package com.group7.accountsservice.model;
+
+import com.group7.accountsservice.dto.MovementRequest;
+import com.group7.accountsservice.utils.Money;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class CardPaymentPlan {
+    private String card;
+    private long amountMinor;
+    private long uncoveredMinor;
+    private List<Allocation> allocations;
+    private List<Movement> movements;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Allocation {
+        private String account;
+        private long availableMinor;
+        private long amountMinor;
+    }
+
+    public Double getAmount() {
+        return Money.toMajor(amountMinor);
+    }
+
+    public boolean isCovered() {
+        return uncoveredMinor <= 0;
+    }
+
+    public static List<String> accountOrder(CardTopology card) {
+        Set<String> order = new LinkedHashSet<>();
+        if (!Objects.isNull(card.getMainAccount()))
+            order.add(card.getMainAccount());
+        order.addAll(card.getOptionalAccounts());
+        return new ArrayList<>(order);
+    }
+
+    public static CardPaymentPlan allocate(CardTopology card, List<Account> accounts, MovementRequest movementRequest) {
+        Map<String, Account> byId = new HashMap<>();
+        for (Account account : accounts)
+            byId.put(account.getId(), account);
+
+        List<Allocation> allocations = new ArrayList<>();
+        List<Movement> movements = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        long amountMinor = Money.toMinor(movementRequest.getAmount());
+        long remaining = amountMinor;
+        for (String id : accountOrder(card)) {
+            if (remaining <= 0)
+                break;
+            Account account = byId.get(id);
+            if (Objects.isNull(account) || account.getBalanceMinor() <= 0)
+                continue;
+
+            long amount = Math.min(remaining, account.getBalanceMinor());
+            allocations.add(new Allocation(id, account.getBalanceMinor(), amount));
+            movements.add(new Movement(null, movementRequest.getKind(), amount, 0L, today, id));
+            remaining -= amount;
+        }
+
+        return CardPaymentPlan.builder()
+                .card(card.getId())
+                .amountMinor(amountMinor)
+                .uncoveredMinor(Math.max(remaining, 0L))
+                .allocations(allocations)
+                .movements(movements)
+                .build();
+    }
+}
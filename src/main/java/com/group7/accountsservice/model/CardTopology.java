@@ -0,0 +1,22 @@
+package com.group7.accountsservice.model;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+@Value
+public class CardTopology {
+    String id;
+    String mainAccount;
+    List<String> optionalAccounts;
+
+    public static CardTopology fromCard(DebitCard card) {
+        return new CardTopology(card.getId(), card.getMainAccount(),
+                Objects.isNull(card.getOptionalAccounts()) ?
+                        Collections.emptyList() :
+                        Collections.unmodifiableList(new ArrayList<>(card.getOptionalAccounts())));
+    }
+}
@@ -2,6 +2,7 @@ package com.group7.accountsservice.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
@@ -15,8 +16,11 @@ import java.util.ArrayList;
 public class DebitCard {
     @Id
     private String id;
+    @Indexed(unique = true, sparse = true)
     private String number;
+    @Indexed
     private String client;
+    @Indexed
     private String mainAccount;
     private ArrayList<String> optionalAccounts;
 }
@@ -1,10 +1,14 @@
 package com.group7.accountsservice.model;
 
+import com.group7.accountsservice.utils.Money;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
+import java.util.Objects;
 
 @Data
 @Builder
@@ -12,24 +16,72 @@ import java.time.LocalDate;
 @ToString
 @AllArgsConstructor
 @Document(collection = "movements")
+@CompoundIndexes({
+        @CompoundIndex(name = "account_date_id", def = "{'account': 1, 'date': 1, '_id': 1}"),
+        @CompoundIndex(name = "account_kind_date_id", def = "{'account': 1, 'kind': 1, 'date': -1, '_id': -1}")
+})
 public class Movement {
     @Id
     private String id;
-    private String type;
-    private Double amount;
-    private Double transactionFee;
+    private MovementKind kind;
+    private long amountMinor;
+    private long transactionFeeMinor;
     private LocalDate date;
     @NonNull
     private String account;
 
+    public Movement(String id, String type, Double amount, Double transactionFee, LocalDate date,
+                    @NonNull String account) {
+        this(id, MovementKind.of(type), Money.toMinor(amount), Money.toMinor(transactionFee), date, account);
+    }
+
+    public String getType() {
+        return Objects.isNull(kind) ? null : kind.getLabel();
+    }
+
+    public void setType(String type) {
+        this.kind = MovementKind.of(type);
+    }
+
+    public Double getAmount() {
+        return Money.toMajor(amountMinor);
+    }
+
+    public void setAmount(Double amount) {
+        this.amountMinor = Money.toMinor(amount);
+    }
+
+    public Double getTransactionFee() {
+        return Money.toMajor(transactionFeeMinor);
+    }
+
+    public void setTransactionFee(Double transactionFee) {
+        this.transactionFeeMinor = Money.toMinor(transactionFee);
+    }
+
     public Double getAmountSigned() {
-        Double amountSigned = type.equalsIgnoreCase("withdraw") ||
-                type.equalsIgnoreCase("Transfer Out") ||
-                type.equalsIgnoreCase("Pay Transaction") ? -1 * amount : amount;
-        return amountSigned - transactionFee;
+        return Money.toMajor(getAmountSignedMinor());
+    }
+
+    public long getAmountSignedMinor() {
+        return kind.signed(amountMinor) - transactionFeeMinor;
     }
 
     public int getDayOfMovement() {
         return date.getDayOfMonth();
     }
+
+    public static class MovementBuilder {
+        public MovementBuilder type(String type) {
+            return kind(MovementKind.of(type));
+        }
+
+        public MovementBuilder amount(Double amount) {
+            return amountMinor(Money.toMinor(amount));
+        }
+
+        public MovementBuilder transactionFee(Double transactionFee) {
+            return transactionFeeMinor(Money.toMinor(transactionFee));
+        }
+    }
 }
@@ -0,0 +1,31 @@
+package com.group7.accountsservice.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.YearMonth;
+
+@Data
+@Builder
+@NoArgsConstructor
+@ToString
+@AllArgsConstructor
+@Document(collection = "movement_counters")
+public class MovementCounter {
+    @Id
+    private String id;
+    @NonNull
+    private String account;
+    @NonNull
+    private String month;
+    private Long count;
+
+    public static String idOf(String account, YearMonth month) {
+        return account + ":" + month;
+    }
+
+    public static MovementCounter empty(String account, YearMonth month) {
+        return new MovementCounter(idOf(account, month), account, month.toString(), 0L);
+    }
+}
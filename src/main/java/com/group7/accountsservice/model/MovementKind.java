@@ -0,0 +1,82 @@
+package com.group7.accountsservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Movement types with their sign and category resolved up front. Movements are stored with the numeric
+ * {@code code}; the {@code label} is the name used by the API and by documents written before the code existed.
+ */
+@Getter
+@AllArgsConstructor
+public enum MovementKind {
+    OTHER(0, "other", 0, Category.OTHER),
+    DEPOSIT(1, "deposit", 1, Category.CASH),
+    WITHDRAW(2, "withdraw", -1, Category.CASH),
+    CARD_PAYMENT(3, "pay", -1, Category.CARD),
+    CARD_WITHDRAW(4, "withdraw debit", -1, Category.CARD),
+    TRANSFER_OUT(5, "Transfer Out", -1, Category.TRANSFER),
+    TRANSFER_IN(6, "Transfer In", 1, Category.TRANSFER),
+    TRANSACTION_PAY(7, "Pay Transaction", -1, Category.TRANSACTION),
+    TRANSACTION_RECEIVE(8, "Receive Transaction", 1, Category.TRANSACTION),
+    YANKI_OUT(9, "yanki out", -1, Category.YANKI),
+    YANKI_IN(10, "yanki in", 1, Category.YANKI);
+
+    public enum Category { OTHER, CASH, CARD, TRANSFER, TRANSACTION, YANKI }
+
+    private static final MovementKind[] BY_CODE = new MovementKind[values().length];
+    private static final Map<String, MovementKind> BY_LABEL = new HashMap<>();
+
+    static {
+        for (MovementKind kind : values()) {
+            BY_CODE[kind.code] = kind;
+            BY_LABEL.put(kind.label.toLowerCase(Locale.ROOT), kind);
+        }
+    }
+
+    private final int code;
+    private final String label;
+    private final int sign;
+    private final Category category;
+
+    public boolean isDebit() {
+        return sign < 0;
+    }
+
+    /** Signed amount in minor units, before fees. */
+    public long signed(long amountMinor) {
+        return sign * amountMinor;
+    }
+
+    /** Case-insensitive lookup by label; unknown labels map to {@link #OTHER}, {@code null} stays {@code null}. */
+    public static MovementKind of(String label) {
+        if (Objects.isNull(label))
+            return null;
+        return BY_LABEL.getOrDefault(label.trim().toLowerCase(Locale.ROOT), OTHER);
+    }
+
+    /** Whether the label names a kind, as opposed to falling back to {@link #OTHER}. */
+    public static boolean isKnown(String label) {
+        return !Objects.isNull(label) && BY_LABEL.containsKey(label.trim().toLowerCase(Locale.ROOT));
+    }
+
+    public static MovementKind ofCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : OTHER;
+    }
+
+    public static Set<MovementKind> of(Category category) {
+        EnumSet<MovementKind> kinds = EnumSet.noneOf(MovementKind.class);
+        for (MovementKind kind : values())
+            if (kind.category == category)
+                kinds.add(kind);
+        return Collections.unmodifiableSet(kinds);
+    }
+}
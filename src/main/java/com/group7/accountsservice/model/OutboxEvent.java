@@ -0,0 +1,60 @@
+package com.group7.accountsservice.model;
+
+import com.group7.accountsservice.dto.DeadLetter;
+import com.group7.accountsservice.dto.LinkRequest;
+import com.group7.accountsservice.dto.Result;
+import com.group7.accountsservice.dto.TransactionEvent;
+import com.group7.accountsservice.dto.Yanki;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Document(collection = "outbox")
+public class OutboxEvent {
+    public static final String RESULT = "result-out-0";
+    public static final String TO_YANKI = "toyanki-out-0";
+    public static final String LINK = "link-out-0";
+    public static final String TRANSACTION = "transaction-out-0";
+    public static final String DEAD_LETTER = "deadletter-out-0";
+
+    @Id
+    private String id;
+    private String binding;
+    private Object payload;
+    private Instant createdAt;
+
+    public static OutboxEvent of(String binding, Object payload) {
+        return OutboxEvent.builder()
+                .binding(binding)
+                .payload(payload)
+                .createdAt(Instant.now())
+                .build();
+    }
+
+    public static OutboxEvent result(Result result) {
+        return of(RESULT, result);
+    }
+
+    public static OutboxEvent toYanki(Yanki yanki) {
+        return of(TO_YANKI, yanki);
+    }
+
+    public static OutboxEvent link(LinkRequest linkRequest) {
+        return of(LINK, linkRequest);
+    }
+
+    public static OutboxEvent transaction(TransactionEvent transactionEvent) {
+        return of(TRANSACTION, transactionEvent);
+    }
+
+    public static OutboxEvent deadLetter(DeadLetter deadLetter) {
+        return of(DEAD_LETTER, deadLetter);
+    }
+}
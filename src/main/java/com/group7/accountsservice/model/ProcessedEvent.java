@@ -0,0 +1,37 @@
+package com.group7.accountsservice.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Marks one balance leg of an event as applied. It is inserted in the same transaction as the balance
+ * change, so the unique id makes a redelivered leg fail instead of applying twice.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Document(collection = "processed_events")
+public class ProcessedEvent {
+    public static final String DEBIT = "debit";
+    public static final String CREDIT = "credit";
+
+    @Id
+    private String id;
+    private boolean applied;
+    @Indexed(expireAfter = "7d")
+    private Instant processedAt;
+
+    public static String idOf(String type, String eventId, String leg) {
+        return type + ":" + eventId + ":" + leg;
+    }
+
+    public static ProcessedEvent of(String id, boolean applied) {
+        return new ProcessedEvent(id, applied, Instant.now());
+    }
+}
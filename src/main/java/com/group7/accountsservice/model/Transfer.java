@@ -1,7 +1,10 @@
 package com.group7.accountsservice.model;
 
+import com.group7.accountsservice.utils.Money;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -12,6 +15,10 @@ import java.time.LocalDate;
 @ToString
 @AllArgsConstructor
 @Document(collection="transfers")
+@CompoundIndexes({
+        @CompoundIndex(name = "from_date_id", def = "{'from': 1, 'date': 1, '_id': 1}"),
+        @CompoundIndex(name = "to_date_id", def = "{'to': 1, 'date': 1, '_id': 1}")
+})
 public class Transfer {
     @Id
     private String id;
@@ -20,7 +27,20 @@ public class Transfer {
     @NonNull
     private String to;
     private String transaction;
-    @NonNull
-    private Double amount;
+    private long amountMinor;
     private LocalDate date;
+
+    public Double getAmount() {
+        return Money.toMajor(amountMinor);
+    }
+
+    public void setAmount(@NonNull Double amount) {
+        this.amountMinor = Money.toMinor(amount);
+    }
+
+    public static class TransferBuilder {
+        public TransferBuilder amount(@NonNull Double amount) {
+            return amountMinor(Money.toMinor(amount));
+        }
+    }
 }
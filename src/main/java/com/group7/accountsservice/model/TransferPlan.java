@@ -0,0 +1,59 @@
+package com.group7.accountsservice.model;
+
+import com.group7.accountsservice.dto.TransferRequest;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class TransferPlan {
+    private Transfer transfer;
+    private List<BalanceLeg> legs;
+    private List<Movement> movements;
+    @Builder.Default
+    private List<OutboxEvent> events = Collections.emptyList();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class BalanceLeg {
+        private String account;
+        private long delta;
+
+        public boolean isDebit() {
+            return delta < 0;
+        }
+    }
+
+    public static TransferPlan betweenAccounts(TransferRequest transferRequest) {
+        Transfer transfer = transferRequest.toModel();
+        LocalDate today = LocalDate.now();
+        return TransferPlan.builder()
+                .transfer(transfer)
+                .legs(Arrays.asList(
+                        new BalanceLeg(transfer.getFrom(), -transfer.getAmountMinor()),
+                        new BalanceLeg(transfer.getTo(), transfer.getAmountMinor())))
+                .movements(Arrays.asList(
+                        new Movement(null, MovementKind.TRANSFER_OUT, transfer.getAmountMinor(), 0L, today, transfer.getFrom()),
+                        new Movement(null, MovementKind.TRANSFER_IN, transfer.getAmountMinor(), 0L, today, transfer.getTo())))
+                .build();
+    }
+
+    public static TransferPlan payTransaction(TransferRequest transferRequest) {
+        Transfer transfer = transferRequest.toModel();
+        return TransferPlan.builder()
+                .transfer(transfer)
+                .legs(Collections.singletonList(new BalanceLeg(transfer.getFrom(), -transfer.getAmountMinor())))
+                .movements(Collections.singletonList(
+                        new Movement(null, MovementKind.TRANSACTION_PAY, transfer.getAmountMinor(), 0L, LocalDate.now(),
+                                transfer.getFrom())))
+                .build();
+    }
+}
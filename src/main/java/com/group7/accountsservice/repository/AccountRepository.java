@@ -1,12 +1,21 @@
 package com.group7.accountsservice.repository;
 
 import com.group7.accountsservice.model.Account;
+import com.group7.accountsservice.model.Movement;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-public interface AccountRepository extends ReactiveMongoRepository<Account,String> {
+public interface AccountRepository extends ReactiveMongoRepository<Account,String>, AccountRepositoryCustom {
 
     Flux<Account> findAccountByClientAndType(String client, String type);
     Flux<Account> findAccountByClient(String client);
 
+    /** Only debits must be covered by the balance, as in {@link Account#isMovementValid}. */
+    default Mono<Account> applyMovement(Movement movement) {
+        return movement.getKind().isDebit() ?
+                incrementBalanceIfCovered(movement.getAccount(), Account.balanceDeltaOf(movement)) :
+                incrementBalance(movement.getAccount(), Account.balanceDeltaOf(movement));
+    }
+
 }
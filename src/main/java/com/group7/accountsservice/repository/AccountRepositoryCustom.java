@@ -0,0 +1,17 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.model.Account;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface AccountRepositoryCustom {
+
+    Mono<Account> incrementBalance(String id, long deltaMinor);
+
+    Mono<Account> incrementBalanceIfCovered(String id, long deltaMinor);
+
+    /** Applies {@code deltaMinor} only while the balance is at least {@code minimumMinor}; empty otherwise. */
+    Mono<Account> incrementBalanceIfAtLeast(String id, long minimumMinor, long deltaMinor);
+
+    Flux<Account> findPage(String afterId, int limit);
+}
@@ -0,0 +1,55 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.configuration.MoneyMigration;
+import com.group7.accountsservice.model.Account;
+import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@AllArgsConstructor
+public class AccountRepositoryCustomImpl implements AccountRepositoryCustom {
+
+    private ReactiveMongoOperations mongoOperations;
+
+    @Override
+    public Mono<Account> incrementBalance(String id, long deltaMinor) {
+        return incrementBalance(Criteria.where("_id").is(id).andOperator(MoneyMigration.hasBalance()), deltaMinor);
+    }
+
+    @Override
+    public Mono<Account> incrementBalanceIfCovered(String id, long deltaMinor) {
+        return incrementBalanceIfAtLeast(id, -deltaMinor, deltaMinor);
+    }
+
+    @Override
+    public Mono<Account> incrementBalanceIfAtLeast(String id, long minimumMinor, long deltaMinor) {
+        Criteria criteria = Criteria.where("_id").is(id);
+        return incrementBalance(criteria.andOperator(minimumMinor > 0 ?
+                MoneyMigration.balanceAtLeast(minimumMinor) :
+                MoneyMigration.hasBalance()), deltaMinor);
+    }
+
+    @Override
+    public Flux<Account> findPage(String afterId, int limit) {
+        return mongoOperations.find(KeysetQueries.afterId(afterId, limit), Account.class);
+    }
+
+    private Mono<Account> incrementBalance(Criteria criteria, long deltaMinor) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        for (Document stage : MoneyMigration.balanceIncrement(deltaMinor))
+            stages.add(context -> stage);
+        return mongoOperations.findAndModify(Query.query(criteria), AggregationUpdate.from(stages),
+                FindAndModifyOptions.options().returnNew(true),
+                Account.class);
+    }
+}
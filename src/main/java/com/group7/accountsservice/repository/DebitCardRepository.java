@@ -4,7 +4,7 @@ import com.group7.accountsservice.model.DebitCard;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
 
-public interface DebitCardRepository extends ReactiveMongoRepository<DebitCard,String> {
+public interface DebitCardRepository extends ReactiveMongoRepository<DebitCard,String>, DebitCardRepositoryCustom {
     Flux<DebitCard> findCardByClient(String client);
     Flux<DebitCard> findCardByNumber(String number);
 
@@ -0,0 +1,9 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.model.DebitCard;
+import reactor.core.publisher.Flux;
+
+public interface DebitCardRepositoryCustom {
+
+    Flux<DebitCard> findPage(String afterId, int limit);
+}
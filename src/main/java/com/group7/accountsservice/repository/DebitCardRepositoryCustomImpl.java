@@ -0,0 +1,17 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.model.DebitCard;
+import lombok.AllArgsConstructor;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Flux;
+
+@AllArgsConstructor
+public class DebitCardRepositoryCustomImpl implements DebitCardRepositoryCustom {
+
+    private ReactiveMongoOperations mongoOperations;
+
+    @Override
+    public Flux<DebitCard> findPage(String afterId, int limit) {
+        return mongoOperations.find(KeysetQueries.afterId(afterId, limit), DebitCard.class);
+    }
+}
@@ -0,0 +1,31 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.utils.MongoIds;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+final class KeysetQueries {
+
+    private KeysetQueries() {
+    }
+
+    static Query afterId(String afterId, int limit) {
+        Query query = Objects.isNull(afterId) ? new Query() : Query.query(Criteria.where("_id").gt(MongoIds.toObjectId(afterId)));
+        return query.with(Sort.by("_id")).limit(limit);
+    }
+
+    static Query afterDateAndId(Criteria base, LocalDate afterDate, String afterId, int limit) {
+        Criteria criteria = base;
+        if (!Objects.isNull(afterDate))
+            criteria = new Criteria().andOperator(base, new Criteria().orOperator(
+                    Criteria.where("date").gt(afterDate),
+                    Criteria.where("date").is(afterDate).and("_id").gt(MongoIds.toObjectId(afterId))));
+        return Query.query(criteria)
+                .with(Sort.by("date", "_id"))
+                .limit(limit);
+    }
+}
@@ -0,0 +1,20 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementCounter;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+import java.time.YearMonth;
+
+public interface MovementCounterRepository extends ReactiveMongoRepository<MovementCounter, String>,
+        MovementCounterRepositoryCustom {
+
+    default Mono<MovementCounter> countMovement(Movement movement) {
+        return increment(movement.getAccount(), YearMonth.from(movement.getDate()), 1);
+    }
+
+    default Mono<MovementCounter> uncountMovement(Movement movement) {
+        return increment(movement.getAccount(), YearMonth.from(movement.getDate()), -1);
+    }
+}
@@ -0,0 +1,15 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementCounter;
+import reactor.core.publisher.Mono;
+
+import java.time.YearMonth;
+import java.util.Collection;
+
+public interface MovementCounterRepositoryCustom {
+
+    Mono<MovementCounter> increment(String account, YearMonth month, long delta);
+
+    Mono<Void> countMovements(Collection<Movement> movements);
+}
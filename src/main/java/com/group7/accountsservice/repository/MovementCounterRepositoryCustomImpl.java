@@ -0,0 +1,72 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementCounter;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@AllArgsConstructor
+public class MovementCounterRepositoryCustomImpl implements MovementCounterRepositoryCustom {
+
+    private ReactiveMongoOperations mongoOperations;
+
+    @Override
+    public Mono<MovementCounter> increment(String account, YearMonth month, long delta) {
+        Query query = counter(account, month);
+        Update update = new Update()
+                .setOnInsert("account", account)
+                .setOnInsert("month", month.toString())
+                .inc("count", delta);
+        return mongoOperations.findAndModify(query, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), MovementCounter.class);
+    }
+
+    static Query counter(String account, YearMonth month) {
+        return Query.query(Criteria.where("_id").is(MovementCounter.idOf(account, month)));
+    }
+
+    @Override
+    public Mono<Void> countMovements(Collection<Movement> movements) {
+        Map<String, MovementCounter> counters = new LinkedHashMap<>();
+        for (Movement movement : movements) {
+            YearMonth month = YearMonth.from(movement.getDate());
+            MovementCounter counter = counters.computeIfAbsent(MovementCounter.idOf(movement.getAccount(), month),
+                    id -> MovementCounter.empty(movement.getAccount(), month));
+            counter.setCount(counter.getCount() + 1);
+        }
+        if (counters.isEmpty())
+            return Mono.empty();
+
+        List<WriteModel<Document>> updates = new ArrayList<>(counters.size());
+        for (MovementCounter counter : counters.values()) {
+            updates.add(new UpdateOneModel<>(Filters.eq("_id", counter.getId()),
+                    Updates.combine(
+                            Updates.setOnInsert("account", counter.getAccount()),
+                            Updates.setOnInsert("month", counter.getMonth()),
+                            Updates.inc("count", counter.getCount())),
+                    new UpdateOptions().upsert(true)));
+        }
+        return mongoOperations.execute(MovementCounter.class,
+                        collection -> collection.bulkWrite(updates, new BulkWriteOptions().ordered(false)))
+                .then();
+    }
+}
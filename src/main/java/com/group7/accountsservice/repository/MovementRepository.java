@@ -6,7 +6,7 @@ import reactor.core.publisher.Flux;
 
 import java.time.LocalDate;
 
-public interface MovementRepository extends ReactiveMongoRepository<Movement,String> {
+public interface MovementRepository extends ReactiveMongoRepository<Movement,String>, MovementRepositoryCustom {
     Flux<Movement> findByAccountAndDateBetween(String account, LocalDate from, LocalDate to);
     Flux<Movement> findByAccount(String account);
 
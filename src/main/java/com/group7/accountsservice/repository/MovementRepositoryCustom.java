@@ -0,0 +1,18 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.dto.ExportFilter;
+import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementKind;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+public interface MovementRepositoryCustom {
+
+    Flux<Movement> stream(ExportFilter filter, int batchSize);
+
+    Flux<Movement> findPageByAccount(String account, LocalDate afterDate, String afterId, int limit);
+
+    Flux<Movement> findNewestByAccountAndTypes(String account, Collection<MovementKind> kinds, int limit);
+}
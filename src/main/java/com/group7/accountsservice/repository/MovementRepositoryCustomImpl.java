@@ -0,0 +1,66 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.dto.ExportFilter;
+import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementKind;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@AllArgsConstructor
+public class MovementRepositoryCustomImpl implements MovementRepositoryCustom {
+
+    private ReactiveMongoOperations mongoOperations;
+
+    @Override
+    public Flux<Movement> stream(ExportFilter filter, int batchSize) {
+        return mongoOperations.find(export(filter, batchSize), Movement.class);
+    }
+
+    @Override
+    public Flux<Movement> findPageByAccount(String account, LocalDate afterDate, String afterId, int limit) {
+        return mongoOperations.find(pageByAccount(account, afterDate, afterId, limit), Movement.class);
+    }
+
+    @Override
+    public Flux<Movement> findNewestByAccountAndTypes(String account, Collection<MovementKind> kinds, int limit) {
+        return mongoOperations.find(newestByAccountAndTypes(account, kinds, limit), Movement.class);
+    }
+
+    static Query export(ExportFilter filter, int batchSize) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (!Objects.isNull(filter.getAccount()))
+            criteria.add(Criteria.where("account").is(filter.getAccount()));
+        if (!Objects.isNull(filter.getType()))
+            criteria.add(Criteria.where("kind").is(MovementKind.of(filter.getType()).getCode()));
+        if (!Objects.isNull(filter.getFrom()))
+            criteria.add(Criteria.where("date").gte(filter.getFrom()));
+        if (!Objects.isNull(filter.getTo()))
+            criteria.add(Criteria.where("date").lte(filter.getTo()));
+
+        Query query = criteria.isEmpty() ? new Query() : Query.query(new Criteria().andOperator(criteria));
+        query.cursorBatchSize(batchSize);
+        return query;
+    }
+
+    static Query pageByAccount(String account, LocalDate afterDate, String afterId, int limit) {
+        return KeysetQueries.afterDateAndId(Criteria.where("account").is(account), afterDate, afterId, limit);
+    }
+
+    static Query newestByAccountAndTypes(String account, Collection<MovementKind> kinds, int limit) {
+        List<Integer> codes = kinds.stream().map(MovementKind::getCode).collect(Collectors.toList());
+        return Query.query(Criteria.where("account").is(account).and("kind").in(codes))
+                .with(Sort.by(Sort.Direction.DESC, "date", "_id"))
+                .limit(limit);
+    }
+}
@@ -0,0 +1,7 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.model.OutboxEvent;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface OutboxRepository extends ReactiveMongoRepository<OutboxEvent, String> {
+}
@@ -0,0 +1,7 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.model.ProcessedEvent;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ProcessedEventRepository extends ReactiveMongoRepository<ProcessedEvent, String> {
+}
@@ -0,0 +1,228 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.configuration.QueryPlanConfiguration;
+import com.group7.accountsservice.dto.ExportFilter;
+import com.group7.accountsservice.dto.QueryPlan;
+import com.group7.accountsservice.model.Account;
+import com.group7.accountsservice.model.DebitCard;
+import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementCounter;
+import com.group7.accountsservice.model.MovementKind;
+import com.group7.accountsservice.model.OutboxEvent;
+import com.group7.accountsservice.model.Transfer;
+import com.group7.accountsservice.serviceimpl.OutboxRelay;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Explains the queries the repositories issue so that a missing index shows up as a COLLSCAN instead of as a
+ * slow endpoint. Derived finders are parsed from the repository interfaces; the other queries come from the
+ * same builders the repositories and the outbox relay use. The inspection runs once the indexes are ensured
+ * at startup and again every {@code query-plans.refresh-interval}; the last result is kept for the health
+ * endpoint, so probes never run explains themselves.
+ */
+@Slf4j
+@Component
+public class QueryPlanInspector {
+
+    private static final String SAMPLE_ID = new ObjectId().toHexString();
+
+    private static final List<DerivedFinders> DERIVED_FINDERS = Arrays.asList(
+            new DerivedFinders(AccountRepository.class, Account.class),
+            new DerivedFinders(DebitCardRepository.class, DebitCard.class),
+            new DerivedFinders(MovementRepository.class, Movement.class));
+
+    private final ReactiveMongoOperations mongoOperations;
+    private final QueryPlanConfiguration configuration;
+    private final QueryMapper queryMapper;
+    private final List<HotQuery> hotQueries;
+    private final AtomicReference<Inspection> lastInspection = new AtomicReference<>();
+    private Disposable refresher;
+
+    public QueryPlanInspector(ReactiveMongoOperations mongoOperations, QueryPlanConfiguration configuration) {
+        this.mongoOperations = mongoOperations;
+        this.configuration = configuration;
+        this.queryMapper = new QueryMapper(mongoOperations.getConverter());
+        this.hotQueries = hotQueries();
+    }
+
+    @PostConstruct
+    public void start() {
+        refresher = Flux.interval(configuration.getRefreshInterval(), configuration.getRefreshInterval())
+                .concatMap(tick -> inspect()
+                        .onErrorResume(ex -> {
+                            log.warn("Could not inspect query plans, keeping the previous inspection", ex);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null)
+            refresher.dispose();
+    }
+
+    public Flux<QueryPlan> inspect() {
+        return Flux.fromIterable(hotQueries)
+                .concatMap(this::explain)
+                .doOnNext(plan -> {
+                    if (plan.isCollectionScan())
+                        log.warn("Query {} on {} runs a collection scan: {}",
+                                plan.getQuery(), plan.getCollection(), plan.getStages());
+                })
+                .collectList()
+                .doOnNext(plans -> lastInspection.set(new Inspection(new Date(), plans)))
+                .flatMapIterable(plans -> plans);
+    }
+
+    /** Result of the last completed {@link #inspect()}, or null before the first one. */
+    public Inspection getLastInspection() {
+        return lastInspection.get();
+    }
+
+    static List<HotQuery> hotQueries() {
+        List<HotQuery> queries = new ArrayList<>();
+        for (DerivedFinders finders : DERIVED_FINDERS)
+            for (Method method : finders.repository.getDeclaredMethods())
+                if (!method.isDefault() && method.getName().startsWith("find"))
+                    queries.add(new HotQuery(finders.repository.getSimpleName() + "." + method.getName(),
+                            finders.document, derived(method.getName(), finders.document)));
+
+        LocalDate today = LocalDate.now();
+        ExportFilter export = ExportFilter.builder()
+                .account("")
+                .type(MovementKind.DEPOSIT.getLabel())
+                .from(today)
+                .to(today)
+                .build();
+        queries.addAll(Arrays.asList(
+                new HotQuery("MovementRepository.findPageByAccount", Movement.class,
+                        MovementRepositoryCustomImpl.pageByAccount("", today, SAMPLE_ID, 1)),
+                new HotQuery("MovementRepository.findNewestByAccountAndTypes", Movement.class,
+                        MovementRepositoryCustomImpl.newestByAccountAndTypes("",
+                                Arrays.asList(MovementKind.CARD_PAYMENT, MovementKind.CARD_WITHDRAW), 1)),
+                new HotQuery("MovementRepository.stream", Movement.class,
+                        MovementRepositoryCustomImpl.export(export, 1)),
+                new HotQuery("TransferRepository.findHistory[from]", Transfer.class,
+                        TransferHistoryRepositoryImpl.branch(TransferHistoryRepositoryImpl.outgoing(""),
+                                TransferHistoryRepositoryImpl.period(today, today), null, null, 0)),
+                new HotQuery("TransferRepository.findHistory[to]", Transfer.class,
+                        TransferHistoryRepositoryImpl.branch(TransferHistoryRepositoryImpl.incoming(""),
+                                TransferHistoryRepositoryImpl.period(today, today), null, null, 0)),
+                new HotQuery("TransferRepository.findHistoryPage[from]", Transfer.class,
+                        TransferHistoryRepositoryImpl.branch(TransferHistoryRepositoryImpl.outgoing(""),
+                                null, today, SAMPLE_ID, 1)),
+                new HotQuery("TransferRepository.findHistoryPage[to]", Transfer.class,
+                        TransferHistoryRepositoryImpl.branch(TransferHistoryRepositoryImpl.incoming(""),
+                                null, today, SAMPLE_ID, 1)),
+                new HotQuery("TransferRepository.stream", Transfer.class,
+                        TransferRepositoryCustomImpl.export(export, 1)),
+                new HotQuery("MovementCounterRepository.increment", MovementCounter.class,
+                        MovementCounterRepositoryCustomImpl.counter("", YearMonth.now())),
+                new HotQuery("OutboxRelay.pendingEvents", OutboxEvent.class, OutboxRelay.pendingEvents(1))));
+        return Collections.unmodifiableList(queries);
+    }
+
+    /** Filter of a derived finder, with placeholder values; only the shape matters to the planner. */
+    static Query derived(String finder, Class<?> document) {
+        Criteria criteria = null;
+        for (Part part : new PartTree(finder, document).getParts()) {
+            String path = part.getProperty().toDotPath();
+            Object sample = sample(part.getProperty().getLeafType());
+            criteria = Objects.isNull(criteria) ? Criteria.where(path) : criteria.and(path);
+            if (part.getType() == Part.Type.BETWEEN)
+                criteria.gte(sample).lte(sample);
+            else
+                criteria.is(sample);
+        }
+        return Objects.isNull(criteria) ? new Query() : Query.query(criteria);
+    }
+
+    private static Object sample(Class<?> type) {
+        if (String.class.equals(type))
+            return "";
+        if (LocalDate.class.equals(type))
+            return LocalDate.now();
+        if (Number.class.isAssignableFrom(type) || type.isPrimitive())
+            return 0;
+        return null;
+    }
+
+    private Mono<QueryPlan> explain(HotQuery query) {
+        MongoPersistentEntity<?> entity = mongoOperations.getConverter().getMappingContext()
+                .getPersistentEntity(query.document);
+        String collection = mongoOperations.getCollectionName(query.document);
+        Document find = new Document("find", collection)
+                .append("filter", queryMapper.getMappedObject(query.query.getQueryObject(), entity));
+        Document sort = queryMapper.getMappedSort(query.query.getSortObject(), entity);
+        if (!sort.isEmpty())
+            find.append("sort", sort);
+        if (query.query.getLimit() > 0)
+            find.append("limit", query.query.getLimit());
+
+        return mongoOperations.executeCommand(new Document("explain", find).append("verbosity", "queryPlanner"))
+                .map(result -> {
+                    List<String> stages = new ArrayList<>();
+                    collectStages(result.get("queryPlanner", Document.class).get("winningPlan"), stages);
+                    return new QueryPlan(query.name, collection, stages);
+                });
+    }
+
+    private static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document) {
+            Document plan = (Document) node;
+            if (plan.containsKey("stage"))
+                stages.add(plan.getString("stage"));
+            plan.values().forEach(value -> collectStages(value, stages));
+        } else if (node instanceof List) {
+            ((List<?>) node).forEach(value -> collectStages(value, stages));
+        }
+    }
+
+    @Value
+    public static class Inspection {
+        Date inspectedAt;
+        List<QueryPlan> plans;
+    }
+
+    @AllArgsConstructor
+    static class HotQuery {
+        final String name;
+        final Class<?> document;
+        final Query query;
+    }
+
+    @AllArgsConstructor
+    private static class DerivedFinders {
+        private final Class<?> repository;
+        private final Class<?> document;
+    }
+}
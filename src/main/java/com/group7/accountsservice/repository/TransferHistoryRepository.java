@@ -0,0 +1,15 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.model.Transfer;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+
+public interface TransferHistoryRepository {
+
+    Flux<Transfer> findHistory(String account);
+
+    Flux<Transfer> findHistory(String account, LocalDate from, LocalDate to);
+
+    Flux<Transfer> findHistoryPage(String account, LocalDate afterDate, String afterId, int limit);
+}
@@ -0,0 +1,69 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.model.Transfer;
+import lombok.AllArgsConstructor;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Transfers of an account, read as two index-backed branches (outgoing on (from, date, _id), incoming on
+ * (to, date, _id)) that are merged by date instead of a single $or query. Self-transfers only come from
+ * the outgoing branch.
+ */
+@AllArgsConstructor
+public class TransferHistoryRepositoryImpl implements TransferHistoryRepository {
+
+    private static final Comparator<Transfer> BY_DATE_AND_ID = Comparator
+            .comparing(Transfer::getDate, Comparator.nullsFirst(Comparator.<LocalDate>naturalOrder()))
+            .thenComparing(Transfer::getId);
+
+    private ReactiveMongoOperations mongoOperations;
+
+    @Override
+    public Flux<Transfer> findHistory(String account) {
+        return history(account, null, null, null, 0);
+    }
+
+    @Override
+    public Flux<Transfer> findHistory(String account, LocalDate from, LocalDate to) {
+        return history(account, period(from, to), null, null, 0);
+    }
+
+    @Override
+    public Flux<Transfer> findHistoryPage(String account, LocalDate afterDate, String afterId, int limit) {
+        return history(account, null, afterDate, afterId, limit);
+    }
+
+    private Flux<Transfer> history(String account, Criteria period, LocalDate afterDate, String afterId, int limit) {
+        Flux<Transfer> outgoing = mongoOperations.find(branch(outgoing(account), period, afterDate, afterId, limit),
+                Transfer.class);
+        Flux<Transfer> incoming = mongoOperations.find(branch(incoming(account), period, afterDate, afterId, limit),
+                Transfer.class);
+
+        Flux<Transfer> merged = Flux.mergeComparing(BY_DATE_AND_ID, outgoing, incoming);
+        return limit > 0 ? merged.take(limit) : merged;
+    }
+
+    static Criteria outgoing(String account) {
+        return Criteria.where("from").is(account);
+    }
+
+    static Criteria incoming(String account) {
+        return Criteria.where("to").is(account).and("from").ne(account);
+    }
+
+    static Criteria period(LocalDate from, LocalDate to) {
+        return Criteria.where("date").gte(from).lte(to);
+    }
+
+    static Query branch(Criteria side, Criteria period, LocalDate afterDate, String afterId, int limit) {
+        Criteria base = Objects.isNull(period) ? side : new Criteria().andOperator(side, period);
+        return KeysetQueries.afterDateAndId(base, afterDate, afterId, limit);
+    }
+}
@@ -0,0 +1,10 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.dto.ExportFilter;
+import com.group7.accountsservice.model.Transfer;
+import reactor.core.publisher.Flux;
+
+public interface TransferRepositoryCustom {
+
+    Flux<Transfer> stream(ExportFilter filter, int batchSize);
+}
@@ -0,0 +1,39 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.dto.ExportFilter;
+import com.group7.accountsservice.model.Transfer;
+import lombok.AllArgsConstructor;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+@AllArgsConstructor
+public class TransferRepositoryCustomImpl implements TransferRepositoryCustom {
+
+    private ReactiveMongoOperations mongoOperations;
+
+    @Override
+    public Flux<Transfer> stream(ExportFilter filter, int batchSize) {
+        return mongoOperations.find(export(filter, batchSize), Transfer.class);
+    }
+
+    static Query export(ExportFilter filter, int batchSize) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (!Objects.isNull(filter.getAccount()))
+            criteria.add(new Criteria().orOperator(Criteria.where("from").is(filter.getAccount()),
+                    Criteria.where("to").is(filter.getAccount())));
+        if (!Objects.isNull(filter.getFrom()))
+            criteria.add(Criteria.where("date").gte(filter.getFrom()));
+        if (!Objects.isNull(filter.getTo()))
+            criteria.add(Criteria.where("date").lte(filter.getTo()));
+
+        Query query = criteria.isEmpty() ? new Query() : Query.query(new Criteria().andOperator(criteria));
+        query.cursorBatchSize(batchSize);
+        return query;
+    }
+}
@@ -1,8 +1,10 @@
 package com.group7.accountsservice.service;
 
+import com.group7.accountsservice.dto.AccountBatchResult;
 import com.group7.accountsservice.dto.AccountReportResponse;
 import com.group7.accountsservice.dto.AccountRequest;
 import com.group7.accountsservice.dto.AccountResponse;
+import com.group7.accountsservice.dto.PageResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -12,6 +14,8 @@ public interface AccountService {
 
     Flux<AccountResponse> getAll();
 
+    Mono<PageResponse<AccountResponse>> getPage(String after, int limit);
+
     Flux<AccountResponse> getAllByClient(String client);
 
     Mono<AccountReportResponse> getReport(String id, LocalDate from, LocalDate to);
@@ -24,5 +28,7 @@ public interface AccountService {
 
     Mono<AccountResponse> save(AccountRequest accountRequest);
 
+    Flux<AccountBatchResult> saveAll(Flux<AccountRequest> accountRequests);
+
     Mono<AccountResponse> update(String id,AccountRequest accountRequest);
 }
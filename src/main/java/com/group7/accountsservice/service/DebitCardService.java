@@ -1,18 +1,20 @@
 package com.group7.accountsservice.service;
 
+import com.group7.accountsservice.dto.CardPaymentResponse;
 import com.group7.accountsservice.dto.DebitCardRequest;
 import com.group7.accountsservice.dto.DebitCardResponse;
 import com.group7.accountsservice.dto.MovementRequest;
 import com.group7.accountsservice.dto.MovementResponse;
+import com.group7.accountsservice.dto.PageResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
-
 public interface DebitCardService {
 
     Flux<DebitCardResponse> getAll();
 
+    Mono<PageResponse<DebitCardResponse>> getPage(String after, int limit);
+
     Flux<DebitCardResponse> getAllByClient(String client);
 
     Mono<DebitCardResponse> getById(String id);
@@ -23,7 +25,7 @@ public interface DebitCardService {
 
     Mono<DebitCardResponse> save(DebitCardRequest debitCardRequest);
 
-    Mono<List<MovementResponse>> makeMovement(MovementRequest movementRequest);
+    Mono<CardPaymentResponse> makeMovement(MovementRequest movementRequest);
 
     Flux<MovementResponse> getLastMovements(String id);
 
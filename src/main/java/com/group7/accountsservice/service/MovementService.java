@@ -1,8 +1,11 @@
 package com.group7.accountsservice.service;
 
+import com.group7.accountsservice.dto.ExportFilter;
 import com.group7.accountsservice.dto.FeeResponse;
+import com.group7.accountsservice.dto.MovementBatchResult;
 import com.group7.accountsservice.dto.MovementRequest;
 import com.group7.accountsservice.dto.MovementResponse;
+import com.group7.accountsservice.dto.PageResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -13,16 +16,22 @@ public interface MovementService {
 
     Flux<MovementResponse> getAll();
 
+    Flux<MovementResponse> export(ExportFilter filter);
+
     Mono<MovementResponse> getById(String id);
 
     Flux<MovementResponse> getAllMovementsByAccount(String account);
 
+    Mono<PageResponse<MovementResponse>> getPageByAccount(String account, String after, int limit);
+
     Mono<Void> delete(String id);
 
     Mono<Void> deleteAll();
 
     Mono<MovementResponse> save(MovementRequest movementRequest);
 
+    Flux<MovementBatchResult> saveAll(Flux<MovementRequest> movementRequests);
+
     Mono<MovementResponse> update(String id,MovementRequest movementRequest);
 
     Mono<Double> getReportOfDailyBalance(String account);
@@ -1,5 +1,7 @@
 package com.group7.accountsservice.service;
 
+import com.group7.accountsservice.dto.ExportFilter;
+import com.group7.accountsservice.dto.PageResponse;
 import com.group7.accountsservice.dto.TransferRequest;
 import com.group7.accountsservice.dto.TransferResponse;
 import reactor.core.publisher.Flux;
@@ -9,8 +11,12 @@ public interface TransferService {
 
     Flux<TransferResponse> getAll();
 
+    Flux<TransferResponse> export(ExportFilter filter);
+
     Flux<TransferResponse> getAllByAccount(String account);
 
+    Mono<PageResponse<TransferResponse>> getPageByAccount(String account, String after, int limit);
+
     Mono<TransferResponse> getById(String id);
 
     Mono<Void> delete(String id);
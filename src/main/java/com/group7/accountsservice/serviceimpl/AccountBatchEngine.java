@@ -0,0 +1,168 @@
+package com.group7.accountsservice.serviceimpl;
+
+import com.group7.accountsservice.configuration.AccountBatchConfiguration;
+import com.group7.accountsservice.dto.AccountBatchResult;
+import com.group7.accountsservice.dto.AccountRequest;
+import com.group7.accountsservice.exception.account.AccountCreationException;
+import com.group7.accountsservice.model.Account;
+import com.group7.accountsservice.model.Client;
+import com.group7.accountsservice.repository.AccountRepository;
+import com.group7.accountsservice.utils.AccountRules;
+import com.group7.accountsservice.utils.AccountUtils;
+import com.group7.accountsservice.utils.ClientProfileCache;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Opens many accounts in one request. Each chunk checks every distinct client once, with bounded
+ * concurrency, applies the same rules as {@link AccountServiceImpl#save} to every line, and writes the
+ * accepted accounts with a single insert. Every line gets a result, in input order.
+ */
+@Service
+@AllArgsConstructor
+@Slf4j
+public class AccountBatchEngine {
+
+    private AccountRepository accountRepository;
+
+    private AccountUtils accountUtils;
+
+    private ClientProfileCache clientProfileCache;
+
+    private AccountBatchConfiguration configuration;
+
+    public Flux<AccountBatchResult> onboard(Flux<AccountRequest> requests) {
+        return requests.index()
+                .buffer(configuration.getSize())
+                .concatMap(this::onboardChunk, 1);
+    }
+
+    private Flux<AccountBatchResult> onboardChunk(List<Tuple2<Long, AccountRequest>> chunk) {
+        Set<String> clients = chunk.stream()
+                .map(line -> line.getT2().getClient())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        return Flux.fromIterable(clients)
+                .flatMap(this::checkClient, configuration.getConcurrency())
+                .collectMap(ClientCheck::getId)
+                .flatMapMany(checks -> insertChunk(chunk, checks))
+                .sort(Comparator.comparing(AccountBatchResult::getLine))
+                .doOnComplete(() -> log.info("Onboarded batch of {} accounts for {} clients",
+                        chunk.size(), clients.size()));
+    }
+
+    private Mono<ClientCheck> checkClient(String id) {
+        return Mono.zip(clientProfileCache.isClientWithCreditDebt(id),
+                        clientProfileCache.getClient(id),
+                        accountRepository.findAccountByClient(id)
+                                .map(Account::getType)
+                                .collect(Collectors.toSet()))
+                .flatMap(checks -> {
+                    if (Boolean.TRUE.equals(checks.getT1()))
+                        return Mono.just(ClientCheck.rejected(id, AccountRules.creditDebt().getMessage()));
+
+                    Client client = checks.getT2();
+                    if (!AccountRules.requiresCreditCard(client))
+                        return Mono.just(ClientCheck.accepted(id, client, checks.getT3()));
+
+                    return clientProfileCache.hasCreditCards(id)
+                            .map(hasCreditCards -> hasCreditCards ?
+                                    ClientCheck.accepted(id, client, checks.getT3()) :
+                                    ClientCheck.rejected(id, AccountRules.missingCreditCard(client).getMessage()));
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> ClientCheck.rejected(id, "Not found Client with ID: " + id)))
+                .onErrorResume(ex -> Mono.just(ClientCheck.rejected(id, ex.getMessage())));
+    }
+
+    private Flux<AccountBatchResult> insertChunk(List<Tuple2<Long, AccountRequest>> chunk,
+                                                 Map<String, ClientCheck> checks) {
+        List<AccountBatchResult> rejected = new ArrayList<>();
+        List<Tuple2<Long, Account>> accepted = new ArrayList<>(chunk.size());
+        for (Tuple2<Long, AccountRequest> line : chunk) {
+            AccountRequest request = line.getT2();
+            try {
+                accepted.add(Tuples.of(line.getT1(), prepare(request, checks.get(request.getClient()))));
+            } catch (AccountCreationException ex) {
+                rejected.add(AccountBatchResult.rejected(line.getT1(), request.getClient(), ex.getMessage()));
+            } catch (RuntimeException ex) {
+                log.error("Could not prepare account line {} for client {}", line.getT1(), request.getClient(), ex);
+                rejected.add(AccountBatchResult.rejected(line.getT1(), request.getClient(),
+                        "Could not open the account: " + ex));
+            }
+        }
+
+        if (accepted.isEmpty())
+            return Flux.fromIterable(rejected);
+
+        List<Account> accounts = accepted.stream().map(Tuple2::getT2).collect(Collectors.toList());
+        return accountRepository.insert(accounts)
+                .index()
+                .map(saved -> AccountBatchResult.created(accepted.get(saved.getT1().intValue()).getT1(), saved.getT2()))
+                .collectList()
+                .onErrorResume(ex -> {
+                    log.error("Could not insert {} accounts", accepted.size(), ex);
+                    return Mono.just(accepted.stream()
+                            .map(line -> AccountBatchResult.rejected(line.getT1(), line.getT2().getClient(),
+                                    ex.getMessage()))
+                            .collect(Collectors.toList()));
+                })
+                .flatMapIterable(created -> created)
+                .concatWith(Flux.fromIterable(rejected));
+    }
+
+    private Account prepare(AccountRequest request, ClientCheck check) {
+        if (Objects.isNull(check))
+            throw new AccountCreationException("Type, Balance and Client are mandatory attributes");
+        if (Objects.nonNull(check.getRejection()))
+            throw new AccountCreationException(check.getRejection());
+
+        Client client = check.getClient();
+        request.setClientType(client.getType());
+        request.setClientProfile(client.getProfile());
+
+        boolean oneAccountPerType = AccountRules.oneAccountPerType(client);
+        if (oneAccountPerType && check.getTypes().contains(request.getType()))
+            throw AccountRules.duplicateType(request.getType());
+
+        Account account = request.toModel();
+        accountUtils.setMaintenanceFee(account);
+        accountUtils.setMovementsLimit(account);
+        if (oneAccountPerType)
+            check.getTypes().add(request.getType());
+        return account;
+    }
+
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class ClientCheck {
+        private final String id;
+        private final Client client;
+        private final Set<String> types;
+        private final String rejection;
+
+        static ClientCheck accepted(String id, Client client, Set<String> types) {
+            return new ClientCheck(id, client, new LinkedHashSet<>(types), null);
+        }
+
+        static ClientCheck rejected(String id, String rejection) {
+            return new ClientCheck(id, null, null, rejection);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.group7.accountsservice.serviceimpl;
 
+import com.group7.accountsservice.configuration.AccountValidationConfiguration;
 import com.group7.accountsservice.dto.*;
 import com.group7.accountsservice.exception.account.AccountCreationException;
 import com.group7.accountsservice.exception.account.AccountNotFoundException;
@@ -12,16 +13,22 @@ import com.group7.accountsservice.repository.DebitCardRepository;
 import com.group7.accountsservice.repository.MovementRepository;
 import com.group7.accountsservice.repository.TransferRepository;
 import com.group7.accountsservice.service.AccountService;
+import com.group7.accountsservice.utils.AccountRules;
 import com.group7.accountsservice.utils.AccountUtils;
-import com.group7.accountsservice.utils.WebClientUtils;
+import com.group7.accountsservice.utils.CheckTimer;
+import com.group7.accountsservice.utils.ClientProfileCache;
+import com.group7.accountsservice.utils.OptimisticRetry;
+import com.group7.accountsservice.utils.PageCursor;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @AllArgsConstructor
@@ -33,7 +40,7 @@ public class AccountServiceImpl implements AccountService {
 
     private AccountRepository accountRepository;
     private AccountUtils accountUtils;
-    private WebClientUtils webClientUtils;
+    private ClientProfileCache clientProfileCache;
 
     private MovementRepository movementRepository;
 
@@ -41,6 +48,12 @@ public class AccountServiceImpl implements AccountService {
 
     private TransferRepository transferRepository;
 
+    private OptimisticRetry optimisticRetry;
+
+    private AccountValidationConfiguration validationConfiguration;
+
+    private AccountBatchEngine accountBatchEngine;
+
     @Override
     public Flux<AccountResponse> getAll() {
         return accountRepository.findAll()
@@ -48,6 +61,15 @@ public class AccountServiceImpl implements AccountService {
                 .doOnComplete(() -> log.info("Retrieving all Accounts"));
     }
 
+    @Override
+    public Mono<PageResponse<AccountResponse>> getPage(String after, int limit) {
+        return Mono.defer(() -> accountRepository.findPage(Objects.isNull(after) ? null : PageCursor.decodeId(after),
+                        PageCursor.checkLimit(limit))
+                .map(AccountResponse::fromModel)
+                .collectList()
+                .map(page -> PageCursor.page(page, limit, account -> PageCursor.encode(account.getId()))));
+    }
+
     @Override
     public Flux<AccountResponse> getAllByClient(String client) {
         return accountRepository.findAccountByClient(client)
@@ -75,11 +97,11 @@ public class AccountServiceImpl implements AccountService {
                             .collectList();
 
                     Mono<List<FeeResponse>> fees = movementRepository.findByAccountAndDateBetween(id, from, to)
-                            .filter(movement -> movement.getTransactionFee() > 0.0)
+                            .filter(movement -> movement.getTransactionFeeMinor() > 0)
                             .map(movement -> new FeeResponse(movement.getDate(), movement.getTransactionFee()))
                             .collectList();
 
-                    Mono<List<TransferResponse>> transfers = transferRepository.findByFromOrToAndDateBetween(id, id, from, to)
+                    Mono<List<TransferResponse>> transfers = transferRepository.findHistory(id, from, to)
                             .map(TransferResponse::fromModel)
                             .collectList();
 
@@ -120,67 +142,99 @@ public class AccountServiceImpl implements AccountService {
                 .doOnSuccess(ex -> log.info("Delete all accounts"));
     }
 
-    public Mono<AccountRequest> validateIfClientHasCreditCart(Client accountClient, AccountRequest account) {
-        return webClientUtils.getCredits(accountClient.getId())
-                .hasElements()
-                .flatMap(hasElements -> !hasElements ? Mono.error(new AccountCreationException(accountClient.getProfile().toUpperCase()
-                        + " Client must have a credit cart")) :
+    public Mono<AccountRequest> validateIfClientHasCreditCart(Client accountClient, AccountRequest account,
+                                                              Mono<Boolean> hasCreditCards) {
+        return hasCreditCards
+                .flatMap(hasElements -> !hasElements ? Mono.error(AccountRules.missingCreditCard(accountClient)) :
                         Mono.just(account));
     }
 
-    public Mono<AccountRequest> validateIfPersonalClientHasAccountType(Client accountClient, AccountRequest account) {
-        return accountRepository.findAccountByClientAndType(accountClient.getId(),
-                        account.getType())
-                .hasElements()
-                .flatMap(hasElements -> hasElements ? Mono.error(new AccountCreationException("Client already have a "
-                        + account.getType() + " account")) :
+    public Mono<AccountRequest> validateIfPersonalClientHasAccountType(AccountRequest account,
+                                                                       Mono<Boolean> hasAccountType) {
+        return hasAccountType
+                .flatMap(hasElements -> hasElements ? Mono.error(AccountRules.duplicateType(account.getType())) :
                         Mono.just(account));
     }
 
+    /**
+     * Runs every remote check at once instead of one after another. The credit card and existing account
+     * checks are started before the client profile says which of them applies; the result of the other one
+     * is discarded. The first failing check cancels those still running.
+     */
+    private Mono<AccountRequest> validate(AccountRequest account, CheckTimer timer) {
+        String clientId = account.getClient();
+
+        Mono<Boolean> withoutDebt = timer.time("credit-debt", clientProfileCache.isClientWithCreditDebt(clientId)
+                .flatMap(withDebt -> withDebt ?
+                        Mono.error(AccountRules.creditDebt()) :
+                        Mono.just(false)));
+        Mono<Client> client = timer.time("client", clientProfileCache.getClient(clientId));
+        Mono<Signal<Boolean>> hasCreditCards = timer.time("credit-cards",
+                        clientProfileCache.hasCreditCards(clientId))
+                .materialize();
+        Mono<Signal<Boolean>> hasAccountType = timer.time("account-type",
+                        accountRepository.findAccountByClientAndType(clientId, account.getType()).hasElements())
+                .materialize();
+
+        return Mono.zip(withoutDebt, client, hasCreditCards, hasAccountType)
+                .flatMap(checks -> {
+                    Client accountClient = checks.getT2();
+                    account.setClientType(accountClient.getType());
+                    account.setClientProfile(accountClient.getProfile());
+
+                    if (AccountRules.requiresCreditCard(accountClient)) {
+                        return validateIfClientHasCreditCart(accountClient, account,
+                                Mono.just(checks.getT3()).dematerialize());
+                    }
+
+                    if (AccountRules.oneAccountPerType(accountClient)) {
+                        return validateIfPersonalClientHasAccountType(account,
+                                Mono.just(checks.getT4()).dematerialize());
+                    }
+
+                    return Mono.just(account);
+                });
+    }
+
     @Override
     public Mono<AccountResponse> save(AccountRequest accountRequest) {
-        return Mono.just(accountRequest)
-                .flatMap(account1 -> webClientUtils.isClientWithCreditDebt(account1.getClient())
-                        .flatMap(withDebt -> withDebt ?
-                                Mono.error(new AccountCreationException("Client have a credit debt")) :
-                                Mono.just(account1))
-                        .flatMap(account -> webClientUtils.getClient(account.getClient())
-                                .flatMap(accountClient -> {
-                                    account.setClientType(accountClient.getType());
-                                    account.setClientProfile(accountClient.getProfile());
-
-                                    if (accountClient.getProfile().matches("VIP|PYME|vip|pyme")) {
-                                        return validateIfClientHasCreditCart(accountClient, account);
-                                    }
-
-                                    if (accountClient.getType().equalsIgnoreCase("Personal")) {
-                                        return validateIfPersonalClientHasAccountType(accountClient, account);
-                                    }
-
-                                    return Mono.just(account);
-                                }))
-                        .map(AccountRequest::toModel)
-                        .flatMap(account -> {
-                            accountUtils.setMaintenanceFee(account);
-                            accountUtils.setMovementsLimit(account);
-                            return accountRepository.save(account);
-                        })
-                        .map(AccountResponse::fromModel)
-                        .onErrorMap(ex -> new AccountCreationException(ex.getMessage()))
-                        .doOnSuccess(res -> log.info("Created new account with ID: {}", res.getId()))
-                        .doOnError(ex -> log.error("Error creating new Account ", ex)));
+        return Mono.defer(() -> {
+                    CheckTimer timer = new CheckTimer();
+                    return validate(accountRequest, timer)
+                            .doFinally(signal -> log.debug("Validation of client {}: {}",
+                                    accountRequest.getClient(), timer.timings()))
+                            .map(AccountRequest::toModel)
+                            .flatMap(account -> {
+                                accountUtils.setMaintenanceFee(account);
+                                accountUtils.setMovementsLimit(account);
+                                return accountRepository.save(account);
+                            })
+                            .map(AccountResponse::fromModel)
+                            .doOnNext(response -> {
+                                if (validationConfiguration.isDebugTimings())
+                                    response.setValidationTimings(timer.timings());
+                            });
+                })
+                .onErrorMap(ex -> new AccountCreationException(ex.getMessage()))
+                .doOnSuccess(res -> log.info("Created new account with ID: {}", res.getId()))
+                .doOnError(ex -> log.error("Error creating new Account ", ex));
+    }
+
+    @Override
+    public Flux<AccountBatchResult> saveAll(Flux<AccountRequest> accountRequests) {
+        return accountBatchEngine.onboard(accountRequests);
     }
 
     @Override
     public Mono<AccountResponse> update(String id, AccountRequest accountRequest) {
-        return accountRepository.findById(id)
-                .switchIfEmpty(Mono.error(new AccountNotFoundException(NOT_FOUND_MESSAGE + id)))
+        return optimisticRetry.retrying("account-update", () -> accountRepository.findById(id)
+                        .switchIfEmpty(Mono.error(new AccountNotFoundException(NOT_FOUND_MESSAGE + id)))
+                        .flatMap(existingAccount -> {
+                            if (existingAccount.getType().equals("Fixed Deposit"))
+                                existingAccount.setMovementDay(accountRequest.getMovementDay());
+                            return accountRepository.save(existingAccount);
+                        }))
                 .doOnError(ex -> log.error(NOT_FOUND_MESSAGE_WITH_ID, id, ex))
-                .flatMap(existingAccount -> {
-                    if (existingAccount.getType().equals("Fixed Deposit"))
-                        existingAccount.setMovementDay(accountRequest.getMovementDay());
-                    return accountRepository.save(existingAccount);
-                })
                 .map(AccountResponse::fromModel)
                 .doOnSuccess(res -> log.info("Updated account with ID: {}", res.getId()));
     }
@@ -0,0 +1,71 @@
+package com.group7.accountsservice.serviceimpl;
+
+import com.group7.accountsservice.configuration.MoneyMigration;
+import com.group7.accountsservice.exception.debitcard.DebitCardCreationException;
+import com.group7.accountsservice.model.Account;
+import com.group7.accountsservice.model.CardPaymentPlan;
+import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.repository.MovementCounterRepository;
+import com.group7.accountsservice.utils.MongoIds;
+import com.group7.accountsservice.utils.OptimisticRetry;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@AllArgsConstructor
+@Slf4j
+public class CardPaymentEngine {
+
+    private ReactiveMongoOperations mongoOperations;
+
+    private MovementCounterRepository movementCounterRepository;
+
+    private TransactionalOperator transactionalOperator;
+
+    private OptimisticRetry optimisticRetry;
+
+    public Mono<List<Movement>> execute(CardPaymentPlan plan) {
+        return optimisticRetry.retryingTransaction("card-payment",
+                        () -> transactionalOperator.transactional(commit(plan)))
+                .doOnSuccess(movements -> log.info("Committed card {} payment over {} accounts",
+                        plan.getCard(), plan.getAllocations().size()));
+    }
+
+    private Mono<List<Movement>> commit(CardPaymentPlan plan) {
+        return applyDebits(plan)
+                .thenMany(mongoOperations.insertAll(plan.getMovements()))
+                .collectList()
+                .delayUntil(movementCounterRepository::countMovements);
+    }
+
+    private Mono<Void> applyDebits(CardPaymentPlan plan) {
+        List<WriteModel<Document>> updates = new ArrayList<>(plan.getAllocations().size());
+        for (CardPaymentPlan.Allocation allocation : plan.getAllocations()) {
+            long amountMinor = allocation.getAmountMinor();
+            updates.add(new UpdateOneModel<>(
+                    Filters.and(Filters.eq("_id", MongoIds.toObjectId(allocation.getAccount())),
+                            MoneyMigration.balanceAtLeast(amountMinor).getCriteriaObject()),
+                    MoneyMigration.balanceIncrement(-amountMinor)));
+        }
+
+        // A balance that dropped since the plan was read fails its guard and aborts the whole payment.
+        return mongoOperations.execute(Account.class,
+                        collection -> collection.bulkWrite(updates, new BulkWriteOptions().ordered(true)))
+                .next()
+                .flatMap(result -> result.getMatchedCount() == updates.size() ?
+                        Mono.<Void>empty() :
+                        Mono.<Void>error(new DebitCardCreationException("Not enough balance in linked accounts")));
+    }
+}
@@ -1,27 +1,35 @@
 package com.group7.accountsservice.serviceimpl;
 
+import com.group7.accountsservice.dto.CardPaymentResponse;
 import com.group7.accountsservice.dto.DebitCardRequest;
 import com.group7.accountsservice.dto.DebitCardResponse;
 import com.group7.accountsservice.dto.MovementRequest;
 import com.group7.accountsservice.dto.MovementResponse;
+import com.group7.accountsservice.dto.PageResponse;
 import com.group7.accountsservice.exception.debitcard.DebitCardCreationException;
 import com.group7.accountsservice.exception.debitcard.DebitCardNotFoundException;
 import com.group7.accountsservice.model.Account;
+import com.group7.accountsservice.model.CardPaymentPlan;
+import com.group7.accountsservice.model.CardTopology;
 import com.group7.accountsservice.model.DebitCard;
 import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementKind;
 import com.group7.accountsservice.repository.AccountRepository;
 import com.group7.accountsservice.repository.DebitCardRepository;
 import com.group7.accountsservice.repository.MovementRepository;
 import com.group7.accountsservice.service.DebitCardService;
+import com.group7.accountsservice.utils.AccountLanes;
+import com.group7.accountsservice.utils.CardTopologyCache;
+import com.group7.accountsservice.utils.PageCursor;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 @AllArgsConstructor
@@ -30,6 +38,11 @@ public class DebitCardServiceImpl implements DebitCardService {
 
     private static final String NOT_FOUND_MESSAGE = "Debit Card not found with id: ";
     private static final String NOT_FOUND_MESSAGE_WITH_ID = "Debit Card not found with id: {}";
+    private static final int LAST_MOVEMENTS = 10;
+    private static final Set<MovementKind> CARD_MOVEMENTS = MovementKind.of(MovementKind.Category.CARD);
+    private static final Comparator<Movement> NEWEST_FIRST = Comparator.comparing(Movement::getDate)
+            .thenComparing(Movement::getId)
+            .reversed();
 
     private DebitCardRepository debitCardRepository;
 
@@ -37,12 +50,27 @@ public class DebitCardServiceImpl implements DebitCardService {
 
     private MovementRepository movementRepository;
 
+    private AccountLanes accountLanes;
+
+    private CardPaymentEngine cardPaymentEngine;
+
+    private CardTopologyCache cardTopologyCache;
+
     @Override
     public Flux<DebitCardResponse> getAll() {
         return debitCardRepository.findAll()
                 .map(DebitCardResponse::fromModel);
     }
 
+    @Override
+    public Mono<PageResponse<DebitCardResponse>> getPage(String after, int limit) {
+        return Mono.defer(() -> debitCardRepository.findPage(Objects.isNull(after) ? null : PageCursor.decodeId(after),
+                        PageCursor.checkLimit(limit))
+                .map(DebitCardResponse::fromModel)
+                .collectList()
+                .map(page -> PageCursor.page(page, limit, card -> PageCursor.encode(card.getId()))));
+    }
+
     @Override
     public Flux<DebitCardResponse> getAllByClient(String client) {
         return debitCardRepository.findCardByClient(client)
@@ -66,12 +94,14 @@ public class DebitCardServiceImpl implements DebitCardService {
                 .flatMap(existingCard ->
                         debitCardRepository.delete(existingCard)
                 )
+                .doOnSuccess(ex -> cardTopologyCache.invalidate(id))
                 .doOnSuccess(ex -> log.info("Delete debit card with id: {}", id));
     }
 
     @Override
     public Mono<Void> deleteAll() {
         return debitCardRepository.deleteAll()
+                .doOnSuccess(ex -> cardTopologyCache.invalidateAll())
                 .doOnSuccess(ex -> log.info("Delete all debit cards"));
     }
 
@@ -95,6 +125,7 @@ public class DebitCardServiceImpl implements DebitCardService {
                     card.getOptionalAccounts().add(debitCardRequest.getAccount());
                     return debitCardRepository.save(card);
                 })
+                .doOnNext(card -> cardTopologyCache.invalidate(card.getId()))
                 .map(DebitCardResponse::fromModel);
     }
 
@@ -111,64 +142,53 @@ public class DebitCardServiceImpl implements DebitCardService {
                 .map(DebitCardResponse::fromModel);
     }
 
-    public Mono<Boolean> hasEnoughMoney(MovementRequest movementRequest) {
-        return debitCardRepository.findById(movementRequest.getAccount())
-                .flatMapMany(debitCard -> Flux.fromIterable(debitCard.getOptionalAccounts()))
-                .flatMap(accountId -> accountRepository.findById(accountId))
-                .map(Account::getBalance)
-                .reduce(0.0, Double::sum)
-                .map(sum -> sum >= movementRequest.getAmount());
+    @Override
+    public Mono<CardPaymentResponse> makeMovement(MovementRequest movementRequest) {
+        if (!CARD_MOVEMENTS.contains(movementRequest.getKind()) || Objects.isNull(movementRequest.getAmount())
+                || movementRequest.getAmount() <= 0)
+            return Mono.error(new DebitCardCreationException(
+                    "Card movements must be a positive 'pay' or 'withdraw debit'"));
+
+        return cardTopology(movementRequest.getAccount())
+                .switchIfEmpty(Mono.error(
+                        new DebitCardNotFoundException(NOT_FOUND_MESSAGE + movementRequest.getAccount())))
+                .flatMap(debitCard -> accountLanes.submit(debitCard.getMainAccount(),
+                        () -> makeMovementInLane(debitCard, movementRequest)));
     }
 
-    @Override
-    public Mono<List<MovementResponse>> makeMovement(MovementRequest movementRequest) {
-        return hasEnoughMoney(movementRequest)
-                .flatMap(hasEnoughMoney -> {
-                    if (Boolean.FALSE.equals(hasEnoughMoney)) {
+    private Mono<CardPaymentResponse> makeMovementInLane(CardTopology debitCard, MovementRequest movementRequest) {
+        return accountRepository.findAllById(CardPaymentPlan.accountOrder(debitCard))
+                .collectList()
+                .map(accounts -> CardPaymentPlan.allocate(debitCard, accounts, movementRequest))
+                .flatMap(plan -> {
+                    if (!plan.isCovered())
                         return Mono.error(new DebitCardCreationException("Not enough balance in linked accounts"));
-                    }
-                    return debitCardRepository.findById(movementRequest.getAccount());
-                })
-                .flatMapMany(debitCard -> Flux.fromIterable(debitCard.getOptionalAccounts()))
-                .flatMap(accountId -> accountRepository.findById(accountId))
-                .takeWhile(x -> movementRequest.getAmount() > 0)
-                .flatMap(account -> {
-                    movementRequest.setAccount(account.getId());
-
-                    double originalAmount = movementRequest.getAmount();
-                    double lastBalance = account.getBalance();
-                    double updatedAmount = originalAmount - lastBalance;
-
-                    movementRequest.setAmount(updatedAmount);
-
-                    Movement newMovement = updatedAmount > 0.0 ? movementRequest.toModelWithAmount(lastBalance) :
-                            movementRequest.toModelWithAmount(originalAmount);
-
-                    account.makeMovement(newMovement);
-
-                    return accountRepository.save(account)
-                            .then(movementRepository.save(newMovement));
-
-                })
-                .map(MovementResponse::fromModel)
-                .collectList();
+                    return cardPaymentEngine.execute(plan)
+                            .map(movements -> CardPaymentResponse.fromPlan(plan, movements));
+                });
     }
 
     @Override
     public Flux<MovementResponse> getLastMovements(String id) {
-        return debitCardRepository.findById(id)
-                .flatMapMany(debitCard -> Flux.fromIterable(debitCard.getOptionalAccounts()))
-                .flatMap(accountId -> movementRepository.findByAccount(accountId))
-                .filter(movement -> movement.getType().equalsIgnoreCase("pay") ||
-                        movement.getType().equalsIgnoreCase("withdraw debit"))
-                .sort(Comparator.comparing(Movement::getDate))
-                .take(10)
+        return cardTopology(id)
+                .flatMapMany(debitCard -> {
+                    Flux<Movement> newest = Flux.empty();
+                    for (String account : debitCard.getOptionalAccounts())
+                        newest = newest.mergeComparingWith(movementRepository.findNewestByAccountAndTypes(account,
+                                CARD_MOVEMENTS, LAST_MOVEMENTS), NEWEST_FIRST);
+                    return newest;
+                })
+                .take(LAST_MOVEMENTS)
                 .map(MovementResponse::fromModel);
     }
 
+    private Mono<CardTopology> cardTopology(String id) {
+        return cardTopologyCache.get(id, () -> debitCardRepository.findById(id));
+    }
+
     @Override
     public Mono<Double> getBalanceOfMainAccount(String id) {
-        return debitCardRepository.findById(id)
+        return cardTopology(id)
                 .flatMap(debitCard -> accountRepository.findById(debitCard.getMainAccount()))
                 .map(Account::getBalance);
     }
@@ -183,6 +203,7 @@ public class DebitCardServiceImpl implements DebitCardService {
                     existingCard.setNumber(debitCardRequest.getNumber());
                     return debitCardRepository.save(existingCard);
                 })
+                .doOnNext(card -> cardTopologyCache.invalidate(card.getId()))
                 .map(DebitCardResponse::fromModel)
                 .doOnSuccess(res -> log.info("Updated Debit Card with ID: {}", res.getId()));
     }
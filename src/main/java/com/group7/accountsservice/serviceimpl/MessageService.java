@@ -1,38 +1,145 @@
 package com.group7.accountsservice.serviceimpl;
 
-import com.group7.accountsservice.dto.LinkRequest;
-import com.group7.accountsservice.dto.Result;
-import com.group7.accountsservice.dto.TransactionEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.group7.accountsservice.configuration.MessagePublisherConfiguration;
 import com.group7.accountsservice.dto.Yanki;
+import com.group7.accountsservice.model.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cloud.stream.function.StreamBridge;
-import org.springframework.context.annotation.Bean;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.cloud.stream.config.BindingServiceProperties;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
 
-import java.util.function.Consumer;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Publishes outgoing events without blocking the caller. Each binding has a bounded queue drained in
+ * batches on a dedicated thread; the returned {@code Mono} completes once the broker has acknowledged
+ * the record and fails if the queue is full or the send fails.
+ */
 @Service
 @Slf4j
 public class MessageService {
 
-    @Autowired
-    private StreamBridge streamBridge;
+    private static final byte[] JSON = "application/json".getBytes(StandardCharsets.UTF_8);
 
-    public boolean sendToYanki(Yanki yanki){
-        return streamBridge.send("toyanki-out-0",yanki);
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final BindingServiceProperties bindingServiceProperties;
+    private final ObjectMapper objectMapper;
+    private final MessagePublisherConfiguration configuration;
+    private final MeterRegistry meterRegistry;
+    private final Scheduler scheduler = Schedulers.newSingle("message-publisher");
+    private final Map<String, BindingPublisher> publishers = new ConcurrentHashMap<>();
+
+    public MessageService(KafkaTemplate<String, String> kafkaTemplate,
+                          BindingServiceProperties bindingServiceProperties, ObjectMapper objectMapper,
+                          MessagePublisherConfiguration configuration, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.bindingServiceProperties = bindingServiceProperties;
+        this.objectMapper = objectMapper;
+        this.configuration = configuration;
+        this.meterRegistry = meterRegistry;
     }
-    public boolean sendResult(Result result){
-        streamBridge.send("result-out-0",result);
-        return result.getStatus().equals("Success");
+
+    public Mono<Boolean> sendToYanki(Yanki yanki){
+        return publish(OutboxEvent.TO_YANKI, yanki);
     }
 
-    public boolean sendToLink(LinkRequest linkRequest){
-        return streamBridge.send("link-out-0",linkRequest);
+    public Mono<Boolean> publish(String binding, Object payload) {
+        return Mono.defer(() -> {
+            BindingPublisher publisher = publishers.computeIfAbsent(binding, BindingPublisher::new);
+            Outgoing outgoing = new Outgoing(payload);
+            if (!publisher.offer(outgoing)) {
+                publisher.failures.increment();
+                return Mono.error(new RejectedExecutionException("Outgoing queue for " + binding + " is full"));
+            }
+            return outgoing.result.asMono();
+        }).publishOn(Schedulers.parallel());
     }
 
-    public void sendTransaction(TransactionEvent transactionEvent){
-        streamBridge.send("transaction-out-0",transactionEvent);
+    @PreDestroy
+    public void shutdown() {
+        for (BindingPublisher publisher : publishers.values())
+            publisher.worker.dispose();
+        scheduler.dispose();
+        kafkaTemplate.flush();
+    }
+
+    private static class Outgoing {
+        private final Object payload;
+        private final long enqueuedAt = System.nanoTime();
+        private final Sinks.One<Boolean> result = Sinks.one();
+
+        Outgoing(Object payload) {
+            this.payload = payload;
+        }
     }
 
+    private class BindingPublisher {
+        private final String topic;
+        private final Sinks.Many<Outgoing> queue;
+        private final Disposable worker;
+        private final Timer latency;
+        private final DistributionSummary batchSize;
+        private final Counter failures;
+
+        BindingPublisher(String binding) {
+            this.topic = bindingServiceProperties.getBindingDestination(binding);
+            this.queue = Sinks.many().unicast()
+                    .onBackpressureBuffer(Queues.<Outgoing>get(configuration.getQueueCapacity()).get());
+            this.latency = meterRegistry.timer("messages.send.latency", "binding", binding);
+            this.batchSize = meterRegistry.summary("messages.send.batch.size", "binding", binding);
+            this.failures = meterRegistry.counter("messages.send.failures", "binding", binding);
+            this.worker = queue.asFlux()
+                    .bufferTimeout(Math.max(1, configuration.getBatchSize()), configuration.getLinger(), scheduler)
+                    .publishOn(scheduler)
+                    .subscribe(this::send);
+        }
+
+        synchronized boolean offer(Outgoing outgoing) {
+            return queue.tryEmitNext(outgoing).isSuccess();
+        }
+
+        private void send(List<Outgoing> batch) {
+            batchSize.record(batch.size());
+            for (Outgoing outgoing : batch) {
+                try {
+                    ProducerRecord<String, String> record =
+                            new ProducerRecord<>(topic, objectMapper.writeValueAsString(outgoing.payload));
+                    record.headers().add("contentType", JSON);
+                    kafkaTemplate.send(record).addCallback(
+                            sent -> {
+                                latency.record(System.nanoTime() - outgoing.enqueuedAt, TimeUnit.NANOSECONDS);
+                                outgoing.result.tryEmitValue(true);
+                            },
+                            ex -> fail(outgoing, ex));
+                } catch (JsonProcessingException | RuntimeException ex) {
+                    fail(outgoing, ex);
+                }
+            }
+        }
+
+        private void fail(Outgoing outgoing, Throwable ex) {
+            failures.increment();
+            log.error("Could not publish {} to {}", outgoing.payload, topic, ex);
+            outgoing.result.tryEmitError(ex);
+        }
+    }
 }
@@ -0,0 +1,154 @@
+package com.group7.accountsservice.serviceimpl;
+
+import com.group7.accountsservice.configuration.MovementBatchConfiguration;
+import com.group7.accountsservice.dto.MovementBatchResult;
+import com.group7.accountsservice.dto.MovementRequest;
+import com.group7.accountsservice.exception.movement.MovementCreationException;
+import com.group7.accountsservice.model.Account;
+import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementCounter;
+import com.group7.accountsservice.repository.AccountRepository;
+import com.group7.accountsservice.repository.MovementCounterRepository;
+import com.group7.accountsservice.repository.MovementRepository;
+import com.group7.accountsservice.utils.AccountLanes;
+import com.group7.accountsservice.utils.MovementUtils;
+import com.group7.accountsservice.utils.OptimisticRetry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@AllArgsConstructor
+@Slf4j
+public class MovementBatchEngine {
+
+    private AccountRepository accountRepository;
+
+    private MovementRepository movementRepository;
+
+    private MovementCounterRepository movementCounterRepository;
+
+    private MovementUtils movementUtils;
+
+    private AccountLanes accountLanes;
+
+    private TransactionalOperator transactionalOperator;
+
+    private MovementBatchConfiguration configuration;
+
+    private OptimisticRetry optimisticRetry;
+
+    public Flux<MovementBatchResult> ingest(Flux<MovementRequest> requests) {
+        return requests.index()
+                .buffer(configuration.getSize())
+                .concatMap(this::ingestChunk, 1);
+    }
+
+    private Flux<MovementBatchResult> ingestChunk(List<Tuple2<Long, MovementRequest>> chunk) {
+        List<MovementBatchResult> rejected = new ArrayList<>();
+        Map<String, List<Tuple2<Long, Movement>>> byAccount = new LinkedHashMap<>();
+        for (Tuple2<Long, MovementRequest> line : chunk) {
+            try {
+                Movement movement = line.getT2().toModel();
+                byAccount.computeIfAbsent(movement.getAccount(), account -> new ArrayList<>())
+                        .add(Tuples.of(line.getT1(), movement));
+            } catch (MovementCreationException ex) {
+                rejected.add(MovementBatchResult.rejected(line.getT1(), line.getT2().getAccount(), ex.getMessage()));
+            }
+        }
+
+        return Flux.fromIterable(byAccount.entrySet())
+                .flatMap(group -> accountLanes.submit(group.getKey(),
+                                        () -> ingestAccount(group.getKey(), group.getValue()))
+                                .onErrorResume(ex -> Mono.just(rejectAll(group.getKey(), group.getValue(), ex))),
+                        configuration.getConcurrency())
+                .concatMapIterable(Function.identity())
+                .concatWith(Flux.fromIterable(rejected))
+                .sort(Comparator.comparing(MovementBatchResult::getLine))
+                .doOnComplete(() -> log.info("Ingested batch of {} movements for {} accounts",
+                        chunk.size(), byAccount.size()));
+    }
+
+    private Mono<List<MovementBatchResult>> ingestAccount(String account, List<Tuple2<Long, Movement>> lines) {
+        Mono<List<MovementBatchResult>> ingestion = accountRepository.findById(account)
+                .switchIfEmpty(Mono.error(new MovementCreationException("Account not found with id: " + account)))
+                .flatMap(existingAccount -> {
+                    if (!existingAccount.canFixedAccountMove())
+                        return Mono.error(
+                                new MovementCreationException("Fixed account can only make movement on: " +
+                                        existingAccount.getMovementDay() + " of each month"));
+
+                    return movementCounterRepository.increment(account, YearMonth.now(), 0)
+                            .flatMap(counter -> applyLines(existingAccount, counter, lines));
+                });
+
+        return optimisticRetry.retryingTransaction("movement-batch",
+                () -> transactionalOperator.transactional(ingestion));
+    }
+
+    private List<MovementBatchResult> rejectAll(String account, List<Tuple2<Long, Movement>> lines, Throwable ex) {
+        log.error("Rejected {} movements of account {}", lines.size(), account, ex);
+        return lines.stream()
+                .map(line -> MovementBatchResult.rejected(line.getT1(), account, ex.getMessage()))
+                .collect(Collectors.toList());
+    }
+
+    private Mono<List<MovementBatchResult>> applyLines(Account account, MovementCounter counter,
+                                                       List<Tuple2<Long, Movement>> lines) {
+        List<MovementBatchResult> results = new ArrayList<>(lines.size());
+        List<Tuple2<Long, Movement>> accepted = new ArrayList<>(lines.size());
+        long count = counter.getCount();
+        long delta = 0L;
+        // Starting balance every accepted debit needs, so the single guarded write below checks the same lines.
+        long required = 0L;
+
+        for (Tuple2<Long, Movement> line : lines) {
+            Movement movement = line.getT2();
+            movementUtils.setTransactionFee(movement, account,
+                    MovementCounter.builder().account(account.getId()).month(counter.getMonth()).count(count + 1).build());
+
+            // Same per-kind rule as Account#isMovementValid: only debits must be covered, with their fee.
+            if (movement.getKind().isDebit()) {
+                long needed = movement.getAmountMinor() + movement.getTransactionFeeMinor() - delta;
+                if (account.getBalanceMinor() < needed) {
+                    results.add(MovementBatchResult.rejected(line.getT1(), account.getId(), "Not enough money"));
+                    continue;
+                }
+                required = Math.max(required, needed);
+            }
+            delta += Account.balanceDeltaOf(movement);
+            count++;
+            accepted.add(line);
+        }
+
+        if (accepted.isEmpty())
+            return Mono.just(results);
+
+        List<Movement> movements = accepted.stream().map(Tuple2::getT2).collect(Collectors.toList());
+        return accountRepository.incrementBalanceIfAtLeast(account.getId(), required, delta)
+                .switchIfEmpty(Mono.error(new MovementCreationException("Not enough money")))
+                .thenMany(movementRepository.insert(movements))
+                .index()
+                .map(saved -> MovementBatchResult.created(accepted.get(saved.getT1().intValue()).getT1(), saved.getT2()))
+                .collectList()
+                .flatMap(created -> movementCounterRepository.countMovements(movements).thenReturn(created))
+                .map(created -> {
+                    results.addAll(created);
+                    return results;
+                });
+    }
+}
@@ -1,20 +1,32 @@
 package com.group7.accountsservice.serviceimpl;
 
+import com.group7.accountsservice.configuration.ExportConfiguration;
+import com.group7.accountsservice.dto.ExportFilter;
 import com.group7.accountsservice.dto.FeeResponse;
+import com.group7.accountsservice.dto.MovementBatchResult;
 import com.group7.accountsservice.dto.MovementRequest;
 import com.group7.accountsservice.dto.MovementResponse;
+import com.group7.accountsservice.dto.PageResponse;
 import com.group7.accountsservice.exception.movement.MovementCreationException;
 import com.group7.accountsservice.model.Account;
 import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementKind;
 import com.group7.accountsservice.repository.AccountRepository;
+import com.group7.accountsservice.repository.MovementCounterRepository;
 import com.group7.accountsservice.repository.MovementRepository;
 import com.group7.accountsservice.service.MovementService;
+import com.group7.accountsservice.utils.AccountLanes;
+import com.group7.accountsservice.utils.Money;
 import com.group7.accountsservice.utils.MovementUtils;
+import com.group7.accountsservice.utils.OptimisticRetry;
+import com.group7.accountsservice.utils.PageCursor;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
 import java.time.LocalDate;
 import java.time.YearMonth;
@@ -31,14 +43,35 @@ public class MovementServiceImpl implements MovementService {
 
     private AccountRepository accountRepository;
 
+    private MovementCounterRepository movementCounterRepository;
+
     private MovementUtils movementUtils;
 
+    private AccountLanes accountLanes;
+
+    private MovementBatchEngine movementBatchEngine;
+
+    private ExportConfiguration exportConfiguration;
+
+    private TransactionalOperator transactionalOperator;
+
+    private OptimisticRetry optimisticRetry;
+
     @Override
     public Flux<MovementResponse> getAll() {
         return movementRepository.findAll()
                 .map(MovementResponse::fromModel);
     }
 
+    @Override
+    public Flux<MovementResponse> export(ExportFilter filter) {
+        if (!Objects.isNull(filter.getType()) && !MovementKind.isKnown(filter.getType()))
+            return Flux.error(new MovementCreationException("Unknown movement type: " + filter.getType()));
+        return movementRepository.stream(filter, exportConfiguration.getCursorBatchSize())
+                .limitRate(exportConfiguration.getLimitRate())
+                .map(MovementResponse::fromModel);
+    }
+
     @Override
     public Mono<MovementResponse> getById(String id) {
         return movementRepository.findById(id)
@@ -52,12 +85,27 @@ public class MovementServiceImpl implements MovementService {
                 .map(MovementResponse::fromModel);
     }
 
+    @Override
+    public Mono<PageResponse<MovementResponse>> getPageByAccount(String account, String after, int limit) {
+        return Mono.defer(() -> {
+            Tuple2<LocalDate, String> key = Objects.isNull(after) ? null : PageCursor.decodeDateAndId(after);
+            return movementRepository.findPageByAccount(account, Objects.isNull(key) ? null : key.getT1(),
+                            Objects.isNull(key) ? null : key.getT2(), PageCursor.checkLimit(limit))
+                    .map(MovementResponse::fromModel)
+                    .collectList()
+                    .map(page -> PageCursor.page(page, limit,
+                            movement -> PageCursor.encode(movement.getDate(), movement.getId())));
+        });
+    }
+
     @Override
     public Mono<Void> delete(String id) {
         return movementRepository.findById(id)
                 .switchIfEmpty(Mono.error(new MovementCreationException(NOT_FOUND_MESSAGE + id)))
-                .flatMap(existingAccount ->
-                        movementRepository.delete(existingAccount)
+                .flatMap(existingMovement ->
+                        movementRepository.delete(existingMovement)
+                                .then(movementCounterRepository.uncountMovement(existingMovement))
+                                .then()
                 );
     }
 
@@ -73,66 +121,59 @@ public class MovementServiceImpl implements MovementService {
         return movementRepository.findByAccountAndDateBetween(account, firstOfMonth, last);
     }
 
-    private Mono<Long> getCountOfMovementsOfCurrentMonthByAccount(String account) {
-        return getMovementsOfCurrentMonthByAccount(account)
-                .count();
-    }
-
     @Override
     public Mono<MovementResponse> save(MovementRequest movementRequest) {
         return Mono.just(movementRequest)
                 .map(MovementRequest::toModel)
-                .flatMap(movement -> accountRepository.findById(movement.getAccount())
+                .flatMap(movement -> accountLanes.submit(movement.getAccount(), () -> accountRepository.findById(movement.getAccount())
                         .switchIfEmpty(Mono.error(new MovementCreationException("Account not found with id: "
                                 + movement.getAccount())))
-                        .zipWith(getCountOfMovementsOfCurrentMonthByAccount(movement.getAccount()))
-                        .flatMap(result -> {
-                            Account existingAccount = result.getT1();
-                            Long movementsCurrentMonth = result.getT2();
-
+                        .flatMap(existingAccount -> {
                             if (!existingAccount.canFixedAccountMove())
                                 return Mono.error(
                                         new MovementCreationException("Fixed account can only make movement on: " +
                                                 existingAccount.getMovementDay() + " of each month"));
 
-                            if (!existingAccount.isMovementInAccountLimit(movementsCurrentMonth))
-                                movementUtils.setTransactionFee(movement, existingAccount.getType());
+                            return optimisticRetry.retryingTransaction("movement", () -> transactionalOperator
+                                    .transactional(movementCounterRepository.countMovement(movement)
+                                            .flatMap(counter -> {
+                                                movementUtils.setTransactionFee(movement, existingAccount, counter);
 
-                            if (!existingAccount.isMovementValid(movement))
-                                return Mono.error(new MovementCreationException("Not enough money"));
+                                                if (!existingAccount.isMovementValid(movement))
+                                                    return Mono.error(new MovementCreationException("Not enough money"));
 
-                            return accountRepository.save(existingAccount)
-                                    .then(movementRepository.save(movement));
-                        }))
+                                                return accountRepository.applyMovement(movement)
+                                                        .switchIfEmpty(Mono.error(
+                                                                new MovementCreationException("Not enough money")))
+                                                        .then(movementRepository.save(movement));
+                                            })));
+                        })))
                 .map(MovementResponse::fromModel)
                 .onErrorMap(ex -> new MovementCreationException(ex.getMessage()));
     }
 
+    @Override
+    public Flux<MovementBatchResult> saveAll(Flux<MovementRequest> movementRequests) {
+        return movementBatchEngine.ingest(movementRequests);
+    }
+
     @Override
     public Mono<MovementResponse> update(String id, MovementRequest movementRequest) {
+        return accountLanes.submit(movementRequest.getAccount(), () -> updateInLane(id, movementRequest));
+    }
 
-        Mono<Movement> movementMono = movementRepository.findById(id)
+    private Mono<MovementResponse> updateInLane(String id, MovementRequest movementRequest) {
+        return movementRepository.findById(id)
                 .switchIfEmpty(Mono.error(new MovementCreationException(NOT_FOUND_MESSAGE + movementRequest.getAccount())))
-                .flatMap(existingMovement -> {
-                    Movement differenceMovement =
-                            movementUtils.createDifferenceMovement(existingMovement, movementRequest);
-                    return Mono.just(differenceMovement);
-                });
-
-        Mono<Account> accountMono = accountRepository.findById(movementRequest.getAccount())
-                .switchIfEmpty(Mono.error(new MovementCreationException("Account not found with id: " + movementRequest.getAccount())));
-
-        return movementMono.zipWith(accountMono)
-                .flatMap(result -> {
-                    Movement differenceMovement = result.getT1();
+                .map(existingMovement -> movementUtils.createDifferenceMovement(existingMovement, movementRequest))
+                .flatMap(differenceMovement -> {
                     log.info("differenceMovement: {}",differenceMovement);
-                    Account accountFound = result.getT2();
-                    if (accountFound.isMovementValid(differenceMovement)) {
-                        accountFound.makeMovement(differenceMovement);
-                        return accountRepository.save(accountFound);
-                    } else {
-                        return Mono.error(new MovementCreationException("Not enough money"));
-                    }
+                    return accountRepository.incrementBalanceIfCovered(movementRequest.getAccount(),
+                                    Account.balanceDeltaOf(differenceMovement))
+                            .switchIfEmpty(Mono.defer(() -> accountRepository.existsById(movementRequest.getAccount())
+                                    .flatMap(exists -> Mono.<Account>error(exists ?
+                                            new MovementCreationException("Not enough money") :
+                                            new MovementCreationException("Account not found with id: " + movementRequest.getAccount())))));
                 })
                 .then(Mono.just(movementRequest))
                 .map(MovementRequest::toModel)
@@ -151,23 +192,22 @@ public class MovementServiceImpl implements MovementService {
 
         int numDays = LocalDate.now().getDayOfMonth();
 
-        Mono<Double> lastBalance = accountRepository.findById(account)
-                .map(Account::getBalance); //145
-
-        Mono<Double> sumOfMonthMovements = getMovementsOfCurrentMonthByAccount(account)
-                .reduce(0.0, (x1, x2) -> x1 + x2.getAmountSigned());
+        Mono<Long> lastBalance = accountRepository.findById(account)
+                .map(Account::getBalanceMinor);
 
-        Mono<Double> sumOfAverageDailyMovements = getMovementsOfCurrentMonthByAccount(account)
-                .map(movement -> movement.getAmountSigned() * (numDays - movement.getDayOfMovement() + 1))
-                .reduce(0.0, Double::sum);
+        // One pass over the month in minor units: [0] is the month's net movement, [1] weights each movement
+        // by the days its effect was held.
+        Mono<long[]> monthTotals = getMovementsOfCurrentMonthByAccount(account)
+                .collect(() -> new long[2], (totals, movement) -> {
+                    long amountSigned = movement.getAmountSignedMinor();
+                    totals[0] += amountSigned;
+                    totals[1] += amountSigned * (numDays - movement.getDayOfMovement() + 1);
+                });
 
-        return Mono.zip(lastBalance, sumOfMonthMovements, sumOfAverageDailyMovements)
+        return Mono.zip(lastBalance, monthTotals)
                 .map(result -> {
-                    Double lastBalanceResult = result.getT1();
-                    Double sumOfMonthMovementsResult = result.getT2();
-                    Double sumOfAverageDailyMovementsResult = result.getT3();
-                    Double initialBalance = (lastBalanceResult - sumOfMonthMovementsResult) * numDays;
-                    return (initialBalance + sumOfAverageDailyMovementsResult) / numDays;
+                    long initialBalance = (result.getT1() - result.getT2()[0]) * numDays;
+                    return Money.toMajor(initialBalance + result.getT2()[1]) / numDays;
                 });
     }
 
@@ -181,7 +221,7 @@ public class MovementServiceImpl implements MovementService {
     @Override
     public Flux<FeeResponse> getAllFeesByAccountAndPeriod(String account, LocalDate from, LocalDate to) {
         return movementRepository.findByAccountAndDateBetween(account, from, to)
-                .filter(movement -> movement.getTransactionFee() > 0.0)
+                .filter(movement -> movement.getTransactionFeeMinor() > 0)
                 .map(movement -> new FeeResponse(movement.getDate(), movement.getTransactionFee()));
     }
 
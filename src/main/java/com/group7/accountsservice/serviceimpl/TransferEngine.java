@@ -0,0 +1,91 @@
+package com.group7.accountsservice.serviceimpl;
+
+import com.group7.accountsservice.configuration.MoneyMigration;
+import com.group7.accountsservice.exception.transfer.TransferCreationException;
+import com.group7.accountsservice.model.Account;
+import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.Transfer;
+import com.group7.accountsservice.model.TransferPlan;
+import com.group7.accountsservice.repository.MovementCounterRepository;
+import com.group7.accountsservice.utils.MongoIds;
+import com.group7.accountsservice.utils.OptimisticRetry;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@AllArgsConstructor
+@Slf4j
+public class TransferEngine {
+
+    private ReactiveMongoOperations mongoOperations;
+
+    private MovementCounterRepository movementCounterRepository;
+
+    private TransactionalOperator transactionalOperator;
+
+    private OptimisticRetry optimisticRetry;
+
+    public Mono<Transfer> execute(TransferPlan plan) {
+        // The lane only serializes the debited account, so a credit or counter update can still conflict.
+        return optimisticRetry.retryingTransaction("transfer", () -> transactionalOperator.transactional(commit(plan)))
+                .doOnSuccess(transfer -> log.info("Committed transfer {} with {} legs",
+                        transfer.getId(), plan.getLegs().size()));
+    }
+
+    private Mono<Transfer> commit(TransferPlan plan) {
+        return applyLegs(plan)
+                .then(mongoOperations.insertAll(plan.getMovements()).then())
+                .then(movementCounterRepository.countMovements(plan.getMovements()))
+                .then(plan.getEvents().isEmpty() ?
+                        Mono.<Void>empty() :
+                        mongoOperations.insertAll(plan.getEvents()).then())
+                .then(mongoOperations.insert(plan.getTransfer()));
+    }
+
+    private Mono<Void> applyLegs(TransferPlan plan) {
+        List<WriteModel<Document>> updates = new ArrayList<>(plan.getLegs().size());
+        for (TransferPlan.BalanceLeg leg : plan.getLegs()) {
+            Bson filter = Filters.eq("_id", MongoIds.toObjectId(leg.getAccount()));
+            if (leg.isDebit())
+                filter = Filters.and(filter, MoneyMigration.balanceAtLeast(-leg.getDelta()).getCriteriaObject());
+            else
+                filter = Filters.and(filter, MoneyMigration.hasBalance().getCriteriaObject());
+            updates.add(new UpdateOneModel<>(filter, MoneyMigration.balanceIncrement(leg.getDelta())));
+        }
+
+        return mongoOperations.execute(Account.class,
+                        collection -> collection.bulkWrite(updates, new BulkWriteOptions().ordered(true)))
+                .next()
+                .flatMap(result -> result.getMatchedCount() == updates.size() ?
+                        Mono.<Void>empty() :
+                        rejectPlan(plan));
+    }
+
+    private Mono<Void> rejectPlan(TransferPlan plan) {
+        Set<String> accounts = new HashSet<>();
+        for (TransferPlan.BalanceLeg leg : plan.getLegs())
+            accounts.add(leg.getAccount());
+
+        return mongoOperations.count(Query.query(Criteria.where("_id").in(accounts)), Account.class)
+                .flatMap(found -> Mono.<Void>error(found < accounts.size() ?
+                        new TransferCreationException("Account does not exist") :
+                        new TransferCreationException("Not enough money to make this transfer")));
+    }
+}
@@ -1,36 +1,50 @@
 package com.group7.accountsservice.serviceimpl;
 
+import com.group7.accountsservice.configuration.ExportConfiguration;
 import com.group7.accountsservice.dto.*;
 import com.group7.accountsservice.exception.transfer.TransferCreationException;
 import com.group7.accountsservice.exception.transfer.TransferNotFoundException;
 import com.group7.accountsservice.model.Account;
 import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementKind;
+import com.group7.accountsservice.model.OutboxEvent;
+import com.group7.accountsservice.model.ProcessedEvent;
 import com.group7.accountsservice.model.Transfer;
+import com.group7.accountsservice.model.TransferPlan;
 import com.group7.accountsservice.repository.AccountRepository;
+import com.group7.accountsservice.repository.MovementCounterRepository;
 import com.group7.accountsservice.repository.MovementRepository;
+import com.group7.accountsservice.repository.OutboxRepository;
 import com.group7.accountsservice.repository.TransferRepository;
 import com.group7.accountsservice.service.TransferService;
+import com.group7.accountsservice.utils.AccountLanes;
+import com.group7.accountsservice.utils.EventDeduplicator;
+import com.group7.accountsservice.utils.KeyedEventProcessor;
+import com.group7.accountsservice.utils.Money;
+import com.group7.accountsservice.utils.PageCursor;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RMapReactive;
-import org.redisson.api.RedissonReactiveClient;
-import org.redisson.codec.TypedJsonJacksonCodec;
+import org.redisson.api.RLocalCachedMap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.Objects;
-import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 @Slf4j
 public class TransferServiceImpl implements TransferService {
 
     private static final String NOT_FOUND_MESSAGE = "Movement not found with id: ";
+    private static final String TRANSACTION_EVENT = "transaction";
 
     @Autowired
     private TransferRepository transferRepository;
@@ -42,13 +56,28 @@ public class TransferServiceImpl implements TransferService {
     private MovementRepository movementRepository;
 
     @Autowired
-    private MessageService messageService;
+    private MovementCounterRepository movementCounterRepository;
 
-    private RMapReactive<String, Transaction> transactionMap;
+    @Autowired
+    private OutboxRepository outboxRepository;
 
-    public TransferServiceImpl(RedissonReactiveClient client) {
-        this.transactionMap = client.getMap("transaction", new TypedJsonJacksonCodec(String.class, Transaction.class));
-    }
+    @Autowired
+    private TransferEngine transferEngine;
+
+    @Autowired
+    private AccountLanes accountLanes;
+
+    @Autowired
+    private KeyedEventProcessor keyedEventProcessor;
+
+    @Autowired
+    private EventDeduplicator eventDeduplicator;
+
+    @Autowired
+    private ExportConfiguration exportConfiguration;
+
+    @Autowired
+    private RLocalCachedMap<String, Transaction> transactionMap;
 
 
     @Override
@@ -57,12 +86,32 @@ public class TransferServiceImpl implements TransferService {
                 .map(TransferResponse::fromModel);
     }
 
+    @Override
+    public Flux<TransferResponse> export(ExportFilter filter) {
+        return transferRepository.stream(filter, exportConfiguration.getCursorBatchSize())
+                .limitRate(exportConfiguration.getLimitRate())
+                .map(TransferResponse::fromModel);
+    }
+
     @Override
     public Flux<TransferResponse> getAllByAccount(String account) {
-        return transferRepository.findByFromOrTo(account, account)
+        return transferRepository.findHistory(account)
                 .map(TransferResponse::fromModel);
     }
 
+    @Override
+    public Mono<PageResponse<TransferResponse>> getPageByAccount(String account, String after, int limit) {
+        return Mono.defer(() -> {
+            Tuple2<LocalDate, String> key = Objects.isNull(after) ? null : PageCursor.decodeDateAndId(after);
+            return transferRepository.findHistoryPage(account, Objects.isNull(key) ? null : key.getT1(),
+                            Objects.isNull(key) ? null : key.getT2(), PageCursor.checkLimit(limit))
+                    .map(TransferResponse::fromModel)
+                    .collectList()
+                    .map(page -> PageCursor.page(page, limit,
+                            transfer -> PageCursor.encode(transfer.getDate(), transfer.getId())));
+        });
+    }
+
     @Override
     public Mono<TransferResponse> getById(String id) {
         return transferRepository.findById(id)
@@ -88,24 +137,8 @@ public class TransferServiceImpl implements TransferService {
 
     @Override
     public Mono<TransferResponse> save(TransferRequest transferRequest) {
-
-        Mono<Account> accountFrom = accountRepository.findById(transferRequest.getFrom());
-        Mono<Account> accountTo = accountRepository.findById(transferRequest.getTo());
-
-        return accountFrom
-                .zipWith(accountTo)
-                .flatMap(accounts -> {
-                    Account from = accounts.getT1();
-                    Account to = accounts.getT2();
-
-                    if (from.getBalance() < transferRequest.getAmount())
-                        return Mono.error(new TransferCreationException("Not enough money to make this transfer"));
-
-                    if (from.getClient().equals(to.getClient()))
-                        return transferSameClient(transferRequest, from, to);
-
-                    return transferSameClient(transferRequest, from, to);
-                }).map(TransferResponse::fromModel);
+        return transferSameClient(transferRequest)
+                .map(TransferResponse::fromModel);
     }
 
     @Override
@@ -113,7 +146,8 @@ public class TransferServiceImpl implements TransferService {
 
         Mono<Account> accountFrom = accountRepository.findById(transferRequest.getFrom())
                 .switchIfEmpty(Mono.error(new TransferCreationException("Account does not exist")));
-        Mono<Transaction> transactionMono = transactionMap.get(transferRequest.getTransaction())
+        Mono<Transaction> transactionMono = Mono.fromCompletionStage(
+                        transactionMap.getAsync(transferRequest.getTransaction()))
                 .switchIfEmpty(Mono.error(new TransferCreationException("There is not transaction with this ID")));
 
         return accountFrom
@@ -137,63 +171,21 @@ public class TransferServiceImpl implements TransferService {
                     if (!Objects.equals(transaction.getNumber(), transferRequest.getFrom()))
                         return Mono.error(new TransferCreationException("Incorrect account for source transaction"));
 
-                    messageService.sendTransaction(TransactionEvent.builder()
+                    transferRequest.setTo("");
+
+                    TransferPlan plan = TransferPlan.payTransaction(transferRequest);
+                    plan.setEvents(Collections.singletonList(OutboxEvent.transaction(TransactionEvent.builder()
                             .transactionId(transferRequest.getTransaction())
                             .state("Paid")
                             .amount(transferRequest.getAmount())
-                            .build());
-
-                    transferRequest.setTo("");
-
-                    return transferTransaction(transferRequest, from);
+                            .build())));
+                    return accountLanes.submit(plan.getTransfer().getFrom(), () -> transferEngine.execute(plan));
                 }).map(TransferResponse::fromModel);
     }
 
-    public Mono<Transfer> transferSameClient(TransferRequest transferRequest, Account from, Account to) {
-
-        Mono<Movement> newMovementOut = movementRepository.save(new Movement(null,
-                "Transfer Out",
-                transferRequest.getAmount(),
-                0.0,
-                LocalDate.now(),
-                from.getId()));
-
-        Mono<Movement> newMovementIn = movementRepository.save(new Movement(null,
-                "Transfer In",
-                transferRequest.getAmount(),
-                0.0,
-                LocalDate.now(),
-                to.getId()));
-
-        from.setBalance(from.getBalance() - transferRequest.getAmount());
-        to.setBalance(to.getBalance() + transferRequest.getAmount());
-
-        Mono<Account> updatedFromAccount = accountRepository.save(from);
-        Mono<Account> updatedToAccount = accountRepository.save(to);
-
-        return Mono.zip(newMovementOut, newMovementIn, updatedFromAccount, updatedToAccount)
-                .then(Mono.just(transferRequest))
-                .map(TransferRequest::toModel)
-                .flatMap(transfer -> transferRepository.save(transfer));
-    }
-
-    public Mono<Transfer> transferTransaction(TransferRequest transferRequest, Account from) {
-
-        Mono<Movement> newMovementOut = movementRepository.save(new Movement(null,
-                "Pay Transaction",
-                transferRequest.getAmount(),
-                0.0,
-                LocalDate.now(),
-                from.getId()));
-
-        from.setBalance(from.getBalance() - transferRequest.getAmount());
-
-        Mono<Account> updatedFromAccount = accountRepository.save(from);
-
-        return Mono.zip(newMovementOut, updatedFromAccount)
-                .then(Mono.just(transferRequest))
-                .map(TransferRequest::toModel)
-                .flatMap(transfer -> transferRepository.save(transfer));
+    public Mono<Transfer> transferSameClient(TransferRequest transferRequest) {
+        return Mono.fromCallable(() -> TransferPlan.betweenAccounts(transferRequest))
+                .flatMap(plan -> accountLanes.submit(plan.getTransfer().getFrom(), () -> transferEngine.execute(plan)));
     }
 
     @Override
@@ -208,28 +200,35 @@ public class TransferServiceImpl implements TransferService {
     }
 
 
+    private Mono<Boolean> receiveTransaction(TransactionEvent transactionEvent) {
+        if (!transactionEvent.getState().equals("Transfer"))
+            return Mono.empty();
+
+        return eventDeduplicator.once(TRANSACTION_EVENT, transactionEvent.getTransactionId(), () -> accountLanes
+                .submit(transactionEvent.getNumber(), () -> eventDeduplicator.leg(TRANSACTION_EVENT,
+                        transactionEvent.getTransactionId(), ProcessedEvent.CREDIT, () -> accountRepository
+                                .incrementBalance(transactionEvent.getNumber(),
+                                        Money.toMinor(transactionEvent.getAmount()))
+                                .flatMap(account -> movementRepository.save(Movement.builder()
+                                                .kind(MovementKind.TRANSACTION_RECEIVE)
+                                                .amount(transactionEvent.getAmount())
+                                                .transactionFee(0.0)
+                                                .date(LocalDate.now())
+                                                .account(account.getId())
+                                                .build())
+                                        .delayUntil(movementCounterRepository::countMovement)
+                                        .thenReturn(account))
+                                .delayUntil(account -> {
+                                    transactionEvent.setState("Completed");
+                                    return outboxRepository.insert(OutboxEvent.transaction(transactionEvent));
+                                })
+                                .hasElement())));
+    }
+
     @Bean
-    Consumer<TransactionEvent> transaction() {
-        return transactionEvent -> {
-            if (transactionEvent.getState().equals("Transfer")) {
-                accountRepository.findById(transactionEvent.getNumber())
-                        .flatMap(account -> movementRepository.save(Movement.builder()
-                                        .type("Receive Transaction")
-                                        .amount(transactionEvent.getAmount())
-                                        .transactionFee(0.0)
-                                        .date(LocalDate.now())
-                                        .account(account.getId())
-                                        .build())
-                                .thenReturn(account))
-                        .flatMap(accountAux -> {
-                            accountAux.setBalance(accountAux.getBalance() + transactionEvent.getAmount());
-                            transactionEvent.setState("Completed");
-                            messageService.sendTransaction(transactionEvent);
-                            return accountRepository.save(accountAux);
-                        })
-                        .subscribe();
-            }
-        };
+    Function<Flux<Message<TransactionEvent>>, Mono<Void>> transaction() {
+        return events -> keyedEventProcessor.process("transaction", events, TransactionEvent::getNumber,
+                this::receiveTransaction);
     }
 
 }
@@ -4,28 +4,45 @@ import com.group7.accountsservice.dto.AccountYanki;
 import com.group7.accountsservice.dto.LinkRequest;
 import com.group7.accountsservice.dto.Result;
 import com.group7.accountsservice.dto.Yanki;
-import com.group7.accountsservice.exception.movement.MovementCreationException;
+import com.group7.accountsservice.exception.debitcard.DebitCardNotFoundException;
+import com.group7.accountsservice.model.CardTopology;
 import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementKind;
+import com.group7.accountsservice.model.OutboxEvent;
+import com.group7.accountsservice.model.ProcessedEvent;
 import com.group7.accountsservice.repository.AccountRepository;
 import com.group7.accountsservice.repository.DebitCardRepository;
+import com.group7.accountsservice.repository.MovementCounterRepository;
 import com.group7.accountsservice.repository.MovementRepository;
+import com.group7.accountsservice.repository.OutboxRepository;
+import com.group7.accountsservice.utils.AccountLanes;
+import com.group7.accountsservice.utils.CardTopologyCache;
+import com.group7.accountsservice.utils.EventDeduplicator;
+import com.group7.accountsservice.utils.KeyedEventProcessor;
+import com.group7.accountsservice.utils.Money;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RMapReactive;
-import org.redisson.api.RedissonReactiveClient;
-import org.redisson.codec.TypedJsonJacksonCodec;
+import org.redisson.api.RLocalCachedMap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
-import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Slf4j
 @Service
 public class YankiService {
 
+    private static final String YANKI_EVENT = "yanki";
+
     @Autowired
     private AccountRepository accountRepository;
     @Autowired
@@ -33,105 +50,124 @@ public class YankiService {
     @Autowired
     private MovementRepository movementRepository;
     @Autowired
-    private MessageService messageService;
-
-    private RMapReactive<Long, AccountYanki> accountMap;
+    private MovementCounterRepository movementCounterRepository;
+    @Autowired
+    private OutboxRepository outboxRepository;
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+    @Autowired
+    private AccountLanes accountLanes;
+    @Autowired
+    private CardTopologyCache cardTopologyCache;
+    @Autowired
+    private KeyedEventProcessor keyedEventProcessor;
+    @Autowired
+    private EventDeduplicator eventDeduplicator;
+    @Autowired
+    private RLocalCachedMap<Long, AccountYanki> accountMap;
 
-    public YankiService(RedissonReactiveClient client) {
-        this.accountMap = client.getMap("account", new TypedJsonJacksonCodec(Long.class, AccountYanki.class));
+    private Mono<Boolean> makeMovement(Yanki yanki, String leg, AccountYanki accountYanki, Double amount,
+                                       List<OutboxEvent> onSuccess) {
+        return cardTopology(accountYanki.getDebitCard())
+                .flatMap(debitCard -> accountLanes.submit(debitCard.getMainAccount(),
+                        () -> makeMovementInLane(yanki, leg, debitCard, accountYanki, amount, onSuccess)));
     }
 
-    private Mono<Boolean> makeMovement(AccountYanki accountYanki, Double amount) {
-        String type = amount > 0 ? "yanki in" : "yanki out";
-        return debitCardRepository.findById(accountYanki.getDebitCard())
-                .flatMap(debitCard -> accountRepository.findById(debitCard.getMainAccount()))
-                .flatMap(accountLinked -> {
-                    if (type.equals("yanki out") && accountLinked.getBalance() < -amount) {
-                        return Mono.just(messageService.sendResult(Result.builder()
+    private Mono<Boolean> makeMovementInLane(Yanki yanki, String leg, CardTopology debitCard,
+                                             AccountYanki accountYanki, Double amount, List<OutboxEvent> onSuccess) {
+        MovementKind kind = amount > 0 ? MovementKind.YANKI_IN : MovementKind.YANKI_OUT;
+        return eventDeduplicator.leg(YANKI_EVENT, yanki.getId(), leg, () -> accountRepository
+                .incrementBalanceIfCovered(debitCard.getMainAccount(), Money.toMinor(amount))
+                .flatMap(accountLinked -> movementRepository.save(Movement.builder()
+                                .kind(kind)
+                                .account(accountLinked.getId())
+                                .date(LocalDate.now())
+                                .amount(Math.abs(amount))
+                                .transactionFee(0.0)
+                                .build())
+                        .delayUntil(movementCounterRepository::countMovement)
+                        .then(outboxRepository.insert(onSuccess).then())
+                        .thenReturn(true))
+                .switchIfEmpty(Mono.defer(() -> outboxRepository.insert(OutboxEvent.result(Result.builder()
                                 .to(accountYanki.getPhone())
                                 .status("Failed")
                                 .message("Not enough balance")
-                                .build()));
-                    }
-                    accountLinked.setBalance(accountLinked.getBalance() + amount);
-                    return movementRepository.save(Movement.builder()
-                                    .type(type)
-                                    .account(accountLinked.getId())
-                                    .date(LocalDate.now())
-                                    .amount(Math.abs(amount))
-                                    .transactionFee(0.0)
-                                    .build())
-                            .then(accountRepository.save(accountLinked))
-                            .then(Mono.just(true));
-                });
+                                .build()))
+                        .thenReturn(false))));
+    }
+
+    private Mono<CardTopology> cardTopology(String id) {
+        return cardTopologyCache.get(id, () -> debitCardRepository.findById(id))
+                .switchIfEmpty(Mono.error(new DebitCardNotFoundException("Not found debit card")));
     }
 
     private Mono<Boolean> receiveMovement(Yanki yanki) {
-        return accountMap.get(yanki.getTo())
-                .switchIfEmpty(Mono.error(new Throwable("Not found debit card")))
+        return Mono.fromCompletionStage(accountMap.getAsync(yanki.getTo()))
+                .switchIfEmpty(Mono.error(new DebitCardNotFoundException("Not found debit card")))
                 .flatMap(accountTo -> {
                     if (!Objects.isNull(accountTo.getDebitCard())) {
-                        return makeMovement(accountTo, yanki.getAmount())
-                                .then(Mono.just(messageService.sendToYanki(yanki)))
-                                .then(Mono.just(messageService.sendResult(Result.successToReceiver(yanki))));
+                        return makeMovement(yanki, ProcessedEvent.CREDIT, accountTo, yanki.getAmount(), Arrays.asList(
+                                OutboxEvent.toYanki(yanki),
+                                OutboxEvent.result(Result.successToReceiver(yanki))));
                     }
-                    return Mono.just(messageService.sendToYanki(yanki));
+                    return outboxRepository.insert(OutboxEvent.toYanki(yanki)).thenReturn(true);
                 });
     }
 
     private Mono<Boolean> sendMovement(AccountYanki accountFrom, Yanki yanki) {
         log.info("Yanki {}", yanki);
-        return makeMovement(accountFrom, -yanki.getAmount())
-                .flatMap(isSuccess -> isSuccess ?
-                        Mono.just(messageService.sendResult(Result.successToSender(yanki))) :
-                        Mono.just(false));
-        //.then(Mono.just(messageService.sendResult(Result.successToSender(yanki))));
+        return makeMovement(yanki, ProcessedEvent.DEBIT, accountFrom, -yanki.getAmount(),
+                Collections.singletonList(OutboxEvent.result(Result.successToSender(yanki))));
+    }
+
+    private Mono<Boolean> processYanki(Yanki yanki) {
+        if (Objects.isNull(yanki.getFrom()))
+            return receiveMovement(yanki);
+
+        return Mono.fromCompletionStage(accountMap.getAsync(yanki.getFrom()))
+                .flatMap(accountFrom -> {
+                    if (!Objects.isNull(accountFrom.getDebitCard())) {
+                        // A rejected debit has already published its Failed result; the event is done.
+                        return sendMovement(accountFrom, yanki)
+                                .flatMap(isSuccess -> isSuccess ?
+                                        receiveMovement(yanki) :
+                                        Mono.just(false));
+                    }
+                    return receiveMovement(yanki);
+                })
+                .doOnSuccess(x -> log.info("Account from: {}", x));
     }
 
+    private Mono<Boolean> processLink(LinkRequest linkRequest) {
+        if (!linkRequest.getState().equals("request"))
+            return Mono.empty();
+
+        return cardTopology(linkRequest.getDebitCard())
+                .flatMap(debitCard -> accountLanes.submit(debitCard.getMainAccount(),
+                        () -> transactionalOperator.transactional(accountRepository
+                                .incrementBalanceIfCovered(debitCard.getMainAccount(),
+                                        Money.toMinor(linkRequest.getAmount()))
+                                .flatMap(account -> {
+                                    linkRequest.setState("true");
+                                    return outboxRepository.insert(OutboxEvent.link(linkRequest)).thenReturn(true);
+                                }))))
+                .doOnSuccess(x -> log.info("Account from: {}", x))
+                .onErrorResume(ex -> !KeyedEventProcessor.isTransient(ex), x -> {
+                    linkRequest.setState("false");
+                    return outboxRepository.insert(OutboxEvent.link(linkRequest)).then(Mono.error(x));
+                });
+    }
 
     @Bean
-    Consumer<Yanki> toaccount() {
-        return yanki -> {
-            if (Objects.isNull(yanki.getFrom())){
-                receiveMovement(yanki)
-                        .subscribe();
-            }
-            accountMap.get(yanki.getFrom())
-                    .flatMap(accountFrom -> {
-                        if (!Objects.isNull(accountFrom.getDebitCard())) {
-                            return sendMovement(accountFrom, yanki)
-                                    .flatMap(isSuccess -> isSuccess ?
-                                            receiveMovement(yanki) :
-                                            Mono.error(new MovementCreationException("Failed")));
-                        }
-                        return receiveMovement(yanki);
-                    })
-                    .doOnSuccess(x -> log.info("Account from: {}", x))
-                    .subscribe();
-        };
+    Function<Flux<Message<Yanki>>, Mono<Void>> toaccount() {
+        return events -> keyedEventProcessor.process("toaccount", events,
+                yanki -> Objects.isNull(yanki.getFrom()) ? yanki.getTo() : yanki.getFrom(),
+                yanki -> eventDeduplicator.once(YANKI_EVENT, yanki.getId(), () -> processYanki(yanki)));
     }
 
     @Bean
-    Consumer<LinkRequest> link() {
-        return linkRequest -> {
-            if (linkRequest.getState().equals("request")) {
-                debitCardRepository.findById(linkRequest.getDebitCard())
-                        .switchIfEmpty(Mono.error(new Throwable("Not found debit card")))
-                        .flatMap(debitCard -> accountRepository.findById(debitCard.getMainAccount()))
-                        .flatMap(account -> {
-                            account.setBalance(account.getBalance() + linkRequest.getAmount());
-                            linkRequest.setState("true");
-                            return accountRepository.save(account)
-                                    .then(Mono.just(messageService.sendToLink(linkRequest)));
-                        })
-                        .doOnSuccess(x -> log.info("Account from: {}", x))
-                        .doOnError(x -> {
-                            linkRequest.setState("false");
-                            messageService.sendToLink(linkRequest);
-                        })
-                        .subscribe();
-            }
-        };
+    Function<Flux<Message<LinkRequest>>, Mono<Void>> link() {
+        return events -> keyedEventProcessor.process("link", events, LinkRequest::getPhone, this::processLink);
     }
 
 }
@@ -0,0 +1,107 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.configuration.AccountLanesConfiguration;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Serializes balance-changing operations per account. Each key is hashed to one of a fixed number of
+ * single-writer lanes; a lane runs its operations one after another, so operations on the same account
+ * never race while different accounts proceed in parallel. Lanes are cheap and share a CPU-sized pool of
+ * threads, so there are many more lanes than threads to keep unrelated accounts from queueing behind each
+ * other. An operation must only ever be submitted to one lane and must not submit to another lane while it runs.
+ */
+@Slf4j
+@Component
+public class AccountLanes {
+
+    private final Lane[] lanes;
+    private final int capacity;
+    private final Scheduler scheduler;
+
+    public AccountLanes(AccountLanesConfiguration configuration, MeterRegistry meterRegistry) {
+        this.capacity = configuration.getCapacity();
+        this.lanes = new Lane[Math.max(1, configuration.getCount())];
+        this.scheduler = Schedulers.newParallel("account-lane",
+                Math.min(lanes.length, Schedulers.DEFAULT_POOL_SIZE));
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(scheduler);
+            Gauge.builder("accounts.lanes.queue.depth", lanes[i].depth, AtomicInteger::get)
+                    .tag("lane", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+    }
+
+    public <T> Mono<T> submit(String key, Supplier<Mono<T>> operation) {
+        return Mono.defer(() -> {
+            Lane lane = lanes[Math.floorMod(key.hashCode(), lanes.length)];
+            Sinks.One<T> result = Sinks.one();
+
+            Mono<Void> task = Mono.defer(operation)
+                    .materialize()
+                    .doOnNext(signal -> {
+                        if (signal.isOnNext())
+                            result.tryEmitValue(signal.get());
+                        else if (signal.isOnError())
+                            result.tryEmitError(signal.getThrowable());
+                        else
+                            result.tryEmitEmpty();
+                    })
+                    .then();
+
+            if (!lane.offer(task, capacity))
+                return Mono.error(new RejectedExecutionException("Too many pending operations for account " + key));
+            return result.asMono();
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Lane lane : lanes)
+            lane.worker.dispose();
+        scheduler.dispose();
+    }
+
+    private static class Lane {
+        private final AtomicInteger depth = new AtomicInteger();
+        private final Sinks.Many<Mono<Void>> queue = Sinks.many().unicast().onBackpressureBuffer();
+        private final Disposable worker;
+
+        Lane(Scheduler scheduler) {
+            this.worker = queue.asFlux()
+                    .publishOn(scheduler, 1)
+                    .concatMap(task -> task
+                            .onErrorResume(ex -> {
+                                log.error("Unexpected error in account lane", ex);
+                                return Mono.empty();
+                            })
+                            .doFinally(signal -> depth.decrementAndGet()), 1)
+                    .subscribe();
+        }
+
+        boolean offer(Mono<Void> task, int capacity) {
+            if (depth.incrementAndGet() > capacity) {
+                depth.decrementAndGet();
+                return false;
+            }
+            synchronized (this) {
+                if (queue.tryEmitNext(task).isSuccess())
+                    return true;
+            }
+            depth.decrementAndGet();
+            return false;
+        }
+    }
+}
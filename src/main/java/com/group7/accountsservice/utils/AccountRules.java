@@ -0,0 +1,39 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.exception.account.AccountCreationException;
+import com.group7.accountsservice.model.Client;
+
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Client rules for opening an account, shared by single and batch onboarding. VIP and PYME clients must hold
+ * a credit card; other personal clients may only hold one account of each type.
+ */
+public final class AccountRules {
+
+    private static final Pattern VIP_OR_PYME = Pattern.compile("VIP|PYME|vip|pyme");
+
+    private AccountRules() {
+    }
+
+    public static boolean requiresCreditCard(Client client) {
+        return !Objects.isNull(client.getProfile()) && VIP_OR_PYME.matcher(client.getProfile()).matches();
+    }
+
+    public static boolean oneAccountPerType(Client client) {
+        return !requiresCreditCard(client) && "Personal".equalsIgnoreCase(client.getType());
+    }
+
+    public static AccountCreationException creditDebt() {
+        return new AccountCreationException("Client have a credit debt");
+    }
+
+    public static AccountCreationException missingCreditCard(Client client) {
+        return new AccountCreationException(client.getProfile().toUpperCase() + " Client must have a credit cart");
+    }
+
+    public static AccountCreationException duplicateType(String type) {
+        return new AccountCreationException("Client already have a " + type + " account");
+    }
+}
@@ -0,0 +1,118 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.configuration.CardTopologyCacheConfiguration;
+import com.group7.accountsservice.model.CardTopology;
+import com.group7.accountsservice.model.DebitCard;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU of card id to main and optional accounts. Card writes call {@link #invalidate}, which evicts
+ * locally and announces the card on {@link #invalidations()} so other replicas can {@link #evict} it too.
+ * Announcements are buffered until the bridge subscribes and concurrent writers are serialized; one that
+ * still cannot be emitted is logged and counted in {@code cards.topology.invalidations.failures}.
+ * A load that overlaps an invalidation is returned to its caller but not cached.
+ */
+@Slf4j
+@Component
+public class CardTopologyCache {
+
+    public static final String ALL_CARDS = "*";
+
+    private final Map<String, CardTopology> entries;
+    private final Sinks.Many<String> invalidations =
+            Sinks.many().multicast().onBackpressureBuffer(Queues.SMALL_BUFFER_SIZE, false);
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter failedAnnouncements;
+    private long generation;
+
+    public CardTopologyCache(CardTopologyCacheConfiguration configuration, MeterRegistry meterRegistry) {
+        int maxSize = Math.max(1, configuration.getMaxSize());
+        this.hits = meterRegistry.counter("cards.topology.cache", "result", "hit");
+        this.misses = meterRegistry.counter("cards.topology.cache", "result", "miss");
+        this.evictions = meterRegistry.counter("cards.topology.cache.evictions");
+        this.failedAnnouncements = meterRegistry.counter("cards.topology.invalidations.failures", "stage", "emit");
+        this.entries = new LinkedHashMap<String, CardTopology>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CardTopology> eldest) {
+                if (size() <= maxSize)
+                    return false;
+                evictions.increment();
+                return true;
+            }
+        };
+        Gauge.builder("cards.topology.cache.size", this, CardTopologyCache::size)
+                .register(meterRegistry);
+    }
+
+    public Mono<CardTopology> get(String id, Supplier<Mono<DebitCard>> loader) {
+        return Mono.defer(() -> {
+            long loadGeneration;
+            synchronized (this) {
+                CardTopology cached = entries.get(id);
+                if (cached != null) {
+                    hits.increment();
+                    return Mono.just(cached);
+                }
+                loadGeneration = generation;
+            }
+            misses.increment();
+            return loader.get()
+                    .map(CardTopology::fromCard)
+                    .doOnNext(topology -> put(loadGeneration, topology));
+        });
+    }
+
+    public void invalidate(String id) {
+        evict(id);
+        announce(id);
+    }
+
+    public void invalidateAll() {
+        evict(ALL_CARDS);
+        announce(ALL_CARDS);
+    }
+
+    public synchronized void evict(String id) {
+        generation++;
+        if (ALL_CARDS.equals(id))
+            entries.clear();
+        else
+            entries.remove(id);
+    }
+
+    public Flux<String> invalidations() {
+        return invalidations.asFlux();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void announce(String id) {
+        try {
+            invalidations.emitNext(id, (signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+        } catch (Sinks.EmissionException ex) {
+            failedAnnouncements.increment();
+            log.error("Could not announce invalidation of card {}, other replicas may keep serving it", id, ex);
+        }
+    }
+
+    private synchronized void put(long loadGeneration, CardTopology topology) {
+        if (loadGeneration == generation)
+            entries.put(topology.getId(), topology);
+    }
+}
@@ -0,0 +1,42 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.dto.CheckTiming;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects how long each named check of a single request took and how it ended, including checks that
+ * were cancelled because another one failed first. A check is recorded before its result is passed on.
+ */
+public class CheckTimer {
+
+    private final List<CheckTiming> timings = new ArrayList<>();
+
+    public <T> Mono<T> time(String check, Mono<T> source) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            return source
+                    .doOnSuccess(value -> record(check, "ok", start, recorded))
+                    .doOnError(ex -> record(check, "failed", start, recorded))
+                    .doOnCancel(() -> record(check, "cancelled", start, recorded));
+        });
+    }
+
+    public synchronized List<CheckTiming> timings() {
+        return new ArrayList<>(timings);
+    }
+
+    private void record(String check, String outcome, long start, AtomicBoolean recorded) {
+        if (!recorded.compareAndSet(false, true))
+            return;
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        synchronized (this) {
+            timings.add(new CheckTiming(check, outcome, millis));
+        }
+    }
+}
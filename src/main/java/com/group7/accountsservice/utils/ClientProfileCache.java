@@ -0,0 +1,103 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.configuration.AccountValidationConfiguration;
+import com.group7.accountsservice.configuration.ClientCacheConfiguration;
+import com.group7.accountsservice.model.Client;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.redisson.api.RedissonReactiveClient;
+import org.redisson.codec.TypedJsonJacksonCodec;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Client lookups needed to open an account, cached so a client opening several accounts in a row reaches
+ * the clients and credits services once. Credit status lives much shorter than the profile because a
+ * client can settle or fall into debt at any time. Origin calls are hedged: if the first attempt has not
+ * answered within the configured delay a second one is sent and whichever succeeds first is used.
+ */
+@Component
+public class ClientProfileCache {
+
+    private final WebClientUtils webClientUtils;
+    private final TwoLevelCache<Client> profiles;
+    private final TwoLevelCache<Boolean> debts;
+    private final TwoLevelCache<Boolean> creditCards;
+    private final Duration clientsHedgeDelay;
+    private final Duration creditsHedgeDelay;
+    private final Counter clientsHedged;
+    private final Counter creditsHedged;
+
+    public ClientProfileCache(WebClientUtils webClientUtils, RedissonReactiveClient redissonClient,
+                              ClientCacheConfiguration configuration,
+                              AccountValidationConfiguration validationConfiguration, MeterRegistry meterRegistry) {
+        this.webClientUtils = webClientUtils;
+        this.clientsHedgeDelay = validationConfiguration.getClientsHedgeDelay();
+        this.creditsHedgeDelay = validationConfiguration.getCreditsHedgeDelay();
+        this.clientsHedged = meterRegistry.counter("clients.hedged", "service", "clients");
+        this.creditsHedged = meterRegistry.counter("clients.hedged", "service", "credits");
+        this.profiles = new TwoLevelCache<>("profile",
+                redissonClient.getMapCache("clients:profile",
+                        new TypedJsonJacksonCodec(String.class, Client.class)),
+                configuration.getLocalSize(), configuration.getProfileLocalTtl(),
+                configuration.getProfileRemoteTtl(), configuration.getRefreshAhead(), meterRegistry);
+        this.debts = creditCache("debt", redissonClient, configuration, meterRegistry);
+        this.creditCards = creditCache("credit-cards", redissonClient, configuration, meterRegistry);
+    }
+
+    public Mono<Client> getClient(String id) {
+        return profiles.get(id, () -> hedged(() -> webClientUtils.getClient(id), clientsHedgeDelay,
+                clientsHedged));
+    }
+
+    public Mono<Boolean> isClientWithCreditDebt(String id) {
+        return debts.get(id, () -> hedged(() -> webClientUtils.isClientWithCreditDebt(id), creditsHedgeDelay,
+                creditsHedged));
+    }
+
+    public Mono<Boolean> hasCreditCards(String id) {
+        return creditCards.get(id, () -> hedged(() -> webClientUtils.getCredits(id).hasElements(),
+                creditsHedgeDelay, creditsHedged));
+    }
+
+    private static <T> Mono<T> hedged(Supplier<Mono<T>> call, Duration delay, Counter hedged) {
+        if (delay == null || delay.isZero() || delay.isNegative())
+            return Mono.defer(call);
+        // An error must not win the race, but an empty answer is a real "not found", so attempts carry their
+        // result as an Optional. The primary's error only surfaces when both attempts fail.
+        return Mono.firstWithValue(attempt(call),
+                        Mono.delay(delay).then(Mono.defer(() -> {
+                            hedged.increment();
+                            return attempt(call);
+                        })))
+                .onErrorMap(NoSuchElementException.class, ex -> {
+                    List<Throwable> errors = Exceptions.unwrapMultiple(ex.getCause());
+                    return errors.isEmpty() ? ex : errors.get(0);
+                })
+                .filter(Optional::isPresent)
+                .map(Optional::get);
+    }
+
+    private static <T> Mono<Optional<T>> attempt(Supplier<Mono<T>> call) {
+        return Mono.defer(call)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    private static TwoLevelCache<Boolean> creditCache(String name, RedissonReactiveClient redissonClient,
+                                                      ClientCacheConfiguration configuration,
+                                                      MeterRegistry meterRegistry) {
+        return new TwoLevelCache<>(name,
+                redissonClient.getMapCache("clients:" + name,
+                        new TypedJsonJacksonCodec(String.class, Boolean.class)),
+                configuration.getLocalSize(), configuration.getCreditLocalTtl(),
+                configuration.getCreditRemoteTtl(), configuration.getRefreshAhead(), meterRegistry);
+    }
+}
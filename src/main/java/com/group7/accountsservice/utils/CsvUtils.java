@@ -0,0 +1,26 @@
+package com.group7.accountsservice.utils;
+
+import java.util.Objects;
+import java.util.StringJoiner;
+
+public final class CsvUtils {
+
+    private CsvUtils() {
+    }
+
+    public static String line(Object... values) {
+        StringJoiner line = new StringJoiner(",", "", "\n");
+        for (Object value : values)
+            line.add(escape(value));
+        return line.toString();
+    }
+
+    private static String escape(Object value) {
+        if (Objects.isNull(value))
+            return "";
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n"))
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        return text;
+    }
+}
@@ -0,0 +1,132 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.configuration.DeduplicationConfiguration;
+import com.group7.accountsservice.model.ProcessedEvent;
+import com.group7.accountsservice.repository.ProcessedEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RSetCacheReactive;
+import org.redisson.api.RedissonReactiveClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Drops redelivered events before they touch Mongo. Ids processed on this replica are answered from a
+ * bounded local set; anything else is looked up in a Redis set whose entries expire after the configured
+ * TTL. An id is recorded only once its operation has completed, so a failed or interrupted attempt can
+ * still be redelivered and retried. Redis is only the fast path: when it is unavailable events are processed,
+ * and each balance leg is guarded by {@link #leg}, which records it in Mongo inside the leg's transaction.
+ */
+@Slf4j
+@Component
+public class EventDeduplicator {
+
+    private final RSetCacheReactive<String> processed;
+    private final long ttlMillis;
+    private final Map<String, Boolean> recent;
+    private final Counter localDuplicates;
+    private final Counter remoteDuplicates;
+    private final Counter legDuplicates;
+    private final ProcessedEventRepository processedEventRepository;
+    private final TransactionalOperator transactionalOperator;
+
+    public EventDeduplicator(RedissonReactiveClient client, DeduplicationConfiguration configuration,
+                             MeterRegistry meterRegistry, ProcessedEventRepository processedEventRepository,
+                             TransactionalOperator transactionalOperator) {
+        int localSize = Math.max(1, configuration.getLocalSize());
+        this.processed = client.getSetCache(configuration.getSetName(), StringCodec.INSTANCE);
+        this.ttlMillis = configuration.getTtl().toMillis();
+        this.recent = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > localSize;
+            }
+        };
+        this.localDuplicates = meterRegistry.counter("events.duplicates", "source", "local");
+        this.remoteDuplicates = meterRegistry.counter("events.duplicates", "source", "redis");
+        this.legDuplicates = meterRegistry.counter("events.duplicates", "source", "mongo");
+        this.processedEventRepository = processedEventRepository;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    public <T> Mono<T> once(String type, String eventId, Supplier<Mono<T>> operation) {
+        if (Objects.isNull(eventId))
+            return Mono.defer(operation);
+
+        String id = type + ":" + eventId;
+        return Mono.defer(() -> {
+            if (seenLocally(id)) {
+                localDuplicates.increment();
+                log.info("Dropping duplicate event {}", id);
+                return Mono.empty();
+            }
+            return processed.contains(id)
+                    .doOnError(ex -> log.warn("Could not check processed event {}, processing it", id, ex))
+                    .onErrorReturn(false)
+                    .flatMap(seen -> {
+                        if (Boolean.TRUE.equals(seen)) {
+                            remember(id);
+                            remoteDuplicates.increment();
+                            log.info("Dropping duplicate event {}", id);
+                            return Mono.<T>empty();
+                        }
+                        return operation.get()
+                                .flatMap(result -> markProcessed(id).thenReturn(result))
+                                .switchIfEmpty(Mono.defer(() -> markProcessed(id).then(Mono.empty())));
+                    });
+        });
+    }
+
+    /**
+     * Runs one balance leg of an event in a transaction that also inserts its {@link ProcessedEvent}. A leg
+     * that was already applied is not run again; its recorded outcome is returned instead.
+     */
+    public Mono<Boolean> leg(String type, String eventId, String leg, Supplier<Mono<Boolean>> operation) {
+        if (Objects.isNull(eventId))
+            return transactionalOperator.transactional(Mono.defer(operation));
+
+        String id = ProcessedEvent.idOf(type, eventId, leg);
+        return recordedOutcome(id)
+                .switchIfEmpty(Mono.defer(() -> transactionalOperator.transactional(Mono.defer(operation)
+                        .flatMap(applied -> processedEventRepository.insert(ProcessedEvent.of(id, applied))
+                                .thenReturn(applied)))))
+                .onErrorResume(DuplicateKeyException.class, ex -> recordedOutcome(id));
+    }
+
+    private Mono<Boolean> recordedOutcome(String id) {
+        return processedEventRepository.findById(id)
+                .doOnNext(event -> {
+                    legDuplicates.increment();
+                    log.info("Skipping already applied event leg {}", id);
+                })
+                .map(ProcessedEvent::isApplied);
+    }
+
+    private Mono<Void> markProcessed(String id) {
+        return Mono.defer(() -> {
+            remember(id);
+            return processed.add(id, ttlMillis, TimeUnit.MILLISECONDS)
+                    .doOnError(ex -> log.warn("Could not record processed event {}", id, ex))
+                    .onErrorResume(ex -> Mono.empty())
+                    .then();
+        });
+    }
+
+    private synchronized boolean seenLocally(String id) {
+        return recent.containsKey(id);
+    }
+
+    private synchronized void remember(String id) {
+        recent.put(id, Boolean.TRUE);
+    }
+}
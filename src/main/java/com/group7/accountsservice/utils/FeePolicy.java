@@ -0,0 +1,59 @@
+package com.group7.accountsservice.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Immutable lookup table of account settings by account type and client profile. Lookups ignore case and
+ * return shared {@link Rule} instances, so evaluating a policy does not allocate.
+ */
+public final class FeePolicy {
+
+    private final Map<String, Rule> byType;
+    private final Map<String, Map<String, Rule>> byProfile;
+
+    FeePolicy(Map<String, Rule> byType, Map<String, Map<String, Rule>> byProfile) {
+        Map<String, Map<String, Rule>> profiles = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        byProfile.forEach((type, rules) -> {
+            Map<String, Rule> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            copy.putAll(rules);
+            profiles.put(type, Collections.unmodifiableMap(copy));
+        });
+        Map<String, Rule> types = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        types.putAll(byType);
+        this.byType = Collections.unmodifiableMap(types);
+        this.byProfile = Collections.unmodifiableMap(profiles);
+    }
+
+    /** Rule for the account type, refined by the client profile when one is configured; null for unknown types. */
+    public Rule ruleFor(String accountType, String clientProfile) {
+        if (Objects.isNull(accountType))
+            return null;
+        if (!Objects.isNull(clientProfile)) {
+            Map<String, Rule> profiles = byProfile.get(accountType);
+            Rule rule = Objects.isNull(profiles) ? null : profiles.get(clientProfile);
+            if (!Objects.isNull(rule))
+                return rule;
+        }
+        return byType.get(accountType);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Rule {
+        private final Double maintenanceFee;
+        private final Integer movementsLimit;
+        private final long transactionFeeMinor;
+
+        Rule override(Double maintenanceFee, Integer movementsLimit, Double transactionFee) {
+            return new Rule(Objects.isNull(maintenanceFee) ? this.maintenanceFee : maintenanceFee,
+                    Objects.isNull(movementsLimit) ? this.movementsLimit : movementsLimit,
+                    Objects.isNull(transactionFee) ? transactionFeeMinor : Money.toMinor(transactionFee));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.configuration.CurrentAccountConfiguration;
+import com.group7.accountsservice.configuration.FeePolicyConfiguration;
+import com.group7.accountsservice.configuration.FixedDepositAccountConfiguration;
+import com.group7.accountsservice.configuration.SavingAccountConfiguration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Compiles the account type and fee policy settings into a {@link FeePolicy} and swaps it in whole when the
+ * configuration is refreshed, so readers always see one consistent version.
+ */
+@Component
+@Slf4j
+public class FeePolicyEngine {
+
+    private final CurrentAccountConfiguration currentAccountConfiguration;
+    private final FixedDepositAccountConfiguration fixedDepositAccountConfiguration;
+    private final SavingAccountConfiguration savingAccountConfiguration;
+    private final FeePolicyConfiguration feePolicyConfiguration;
+    private final AtomicReference<FeePolicy> policy = new AtomicReference<>();
+
+    public FeePolicyEngine(CurrentAccountConfiguration currentAccountConfiguration,
+                           FixedDepositAccountConfiguration fixedDepositAccountConfiguration,
+                           SavingAccountConfiguration savingAccountConfiguration,
+                           FeePolicyConfiguration feePolicyConfiguration) {
+        this.currentAccountConfiguration = currentAccountConfiguration;
+        this.fixedDepositAccountConfiguration = fixedDepositAccountConfiguration;
+        this.savingAccountConfiguration = savingAccountConfiguration;
+        this.feePolicyConfiguration = feePolicyConfiguration;
+        reload();
+    }
+
+    public FeePolicy.Rule ruleFor(String accountType, String clientProfile) {
+        return policy.get().ruleFor(accountType, clientProfile);
+    }
+
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void reload() {
+        try {
+            policy.set(compile());
+            log.info("Loaded fee policy");
+        } catch (RuntimeException ex) {
+            if (Objects.isNull(policy.get()))
+                throw ex;
+            log.error("Could not reload fee policy, keeping the previous one", ex);
+        }
+    }
+
+    private FeePolicy compile() {
+        Map<String, FeePolicy.Rule> byType = new HashMap<>();
+        byType.put("Current", new FeePolicy.Rule(currentAccountConfiguration.getMaintenanceFee(),
+                Integer.MAX_VALUE, Money.toMinor(currentAccountConfiguration.getTransactionFee())));
+        byType.put("Saving", new FeePolicy.Rule(savingAccountConfiguration.getMaintenanceFee(),
+                limit(savingAccountConfiguration.getMovementsLimit()),
+                Money.toMinor(savingAccountConfiguration.getTransactionFee())));
+        byType.put("Fixed Deposit", new FeePolicy.Rule(fixedDepositAccountConfiguration.getMaintenanceFee(),
+                limit(fixedDepositAccountConfiguration.getMovementsLimit()),
+                Money.toMinor(fixedDepositAccountConfiguration.getTransactionFee())));
+
+        Map<String, Map<String, FeePolicy.Rule>> byProfile = new HashMap<>();
+        for (FeePolicyConfiguration.ProfileRule profile : feePolicyConfiguration.getProfiles()) {
+            FeePolicy.Rule base = byType.get(profile.getAccountType());
+            if (Objects.isNull(base) || Objects.isNull(profile.getClientProfile()))
+                throw new IllegalStateException("Fee policy profile needs a known account type and a client profile: "
+                        + profile.getAccountType() + "/" + profile.getClientProfile());
+            byProfile.computeIfAbsent(profile.getAccountType(), type -> new HashMap<>())
+                    .put(profile.getClientProfile(), base.override(profile.getMaintenanceFee(),
+                            profile.getMovementsLimit(), profile.getTransactionFee()));
+        }
+        return new FeePolicy(byType, byProfile);
+    }
+
+    private static Integer limit(Integer movementsLimit) {
+        return Objects.isNull(movementsLimit) ? Integer.MAX_VALUE : movementsLimit;
+    }
+}
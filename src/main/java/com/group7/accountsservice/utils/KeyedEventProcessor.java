@@ -0,0 +1,119 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.configuration.StreamConsumerConfiguration;
+import com.group7.accountsservice.dto.DeadLetter;
+import com.group7.accountsservice.exception.account.AccountCreationException;
+import com.group7.accountsservice.exception.account.AccountNotFoundException;
+import com.group7.accountsservice.exception.debitcard.DebitCardCreationException;
+import com.group7.accountsservice.exception.debitcard.DebitCardNotFoundException;
+import com.group7.accountsservice.exception.movement.MovementCreationException;
+import com.group7.accountsservice.exception.movement.MovementNotFoundException;
+import com.group7.accountsservice.exception.transfer.TransferCreationException;
+import com.group7.accountsservice.exception.transfer.TransferNotFoundException;
+import com.group7.accountsservice.model.OutboxEvent;
+import com.group7.accountsservice.repository.OutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Runs a reactive stream consumer with bounded concurrency. Events are spread over a fixed number of
+ * slots by key; each slot handles its events one at a time, so events with the same key keep their
+ * order. A record is acknowledged only once its handler has completed. Transient failures are retried
+ * with backoff; an event that still fails, or fails for a business reason, is written to the dead-letter
+ * topic through the outbox and only then acknowledged. The dead-letter write is retried the same way;
+ * if it still fails the record is acknowledged anyway and counted in {@code events.deadletter.failures}
+ * with the payload logged. Acknowledgments never go back to the consumer thread, so nacking or seeking
+ * is not an option here, and leaving a record unacknowledged would hold back the partition's commits.
+ */
+@Slf4j
+@Component
+@AllArgsConstructor
+public class KeyedEventProcessor {
+
+    private static final List<Class<? extends RuntimeException>> PERMANENT_FAILURES = Arrays.asList(
+            AccountCreationException.class, AccountNotFoundException.class,
+            DebitCardCreationException.class, DebitCardNotFoundException.class,
+            MovementCreationException.class, MovementNotFoundException.class,
+            TransferCreationException.class, TransferNotFoundException.class);
+
+    private StreamConsumerConfiguration configuration;
+
+    private OutboxRepository outboxRepository;
+
+    private MeterRegistry meterRegistry;
+
+    public <T> Mono<Void> process(String consumer, Flux<Message<T>> messages, Function<T, Object> key,
+                                  Function<T, Mono<?>> handler) {
+        int slots = Math.max(1, configuration.getConcurrency());
+        return messages
+                .groupBy(message -> Math.floorMod(Objects.hashCode(key.apply(message.getPayload())), slots),
+                        Math.max(1, configuration.getPrefetch()))
+                .flatMap(slot -> slot.concatMap(message -> handle(consumer, message, handler)), slots)
+                .then();
+    }
+
+    /** Business rejections will fail the same way on every attempt; anything else is worth retrying. */
+    public static boolean isTransient(Throwable ex) {
+        for (Class<? extends RuntimeException> permanent : PERMANENT_FAILURES)
+            if (permanent.isInstance(ex))
+                return false;
+        return true;
+    }
+
+    private <T> Mono<Void> handle(String consumer, Message<T> message, Function<T, Mono<?>> handler) {
+        return Mono.defer(() -> handler.apply(message.getPayload()))
+                .then()
+                .retryWhen(backoff()
+                        .filter(KeyedEventProcessor::isTransient)
+                        .doBeforeRetry(signal -> log.warn("Retrying {} event {} after attempt {}", consumer,
+                                message.getPayload(), signal.totalRetries() + 1, signal.failure()))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .doOnSuccess(done -> acknowledge(message))
+                .onErrorResume(ex -> deadLetter(consumer, message, ex));
+    }
+
+    private <T> Mono<Void> deadLetter(String consumer, Message<T> message, Throwable ex) {
+        log.error("Failed to process {} event {}, sending it to the dead-letter topic", consumer,
+                message.getPayload(), ex);
+        return Mono.defer(() -> outboxRepository.insert(
+                        OutboxEvent.deadLetter(DeadLetter.of(consumer, message.getPayload(), ex))))
+                .retryWhen(backoff().onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .then()
+                .onErrorResume(outboxError -> {
+                    meterRegistry.counter("events.deadletter.failures", "consumer", consumer).increment();
+                    log.error("Could not dead-letter {} event {}, dropping it", consumer, message.getPayload(),
+                            outboxError);
+                    return Mono.empty();
+                })
+                .then(Mono.fromRunnable(() -> acknowledge(message)));
+    }
+
+    private RetryBackoffSpec backoff() {
+        return Retry.backoff(Math.max(0, configuration.getMaxAttempts() - 1), configuration.getBackoff())
+                .maxBackoff(configuration.getMaxBackoff());
+    }
+
+    private static void acknowledge(Message<?> message) {
+        Acknowledgment acknowledgment = acknowledgmentOf(message);
+        if (!Objects.isNull(acknowledgment))
+            acknowledgment.acknowledge();
+    }
+
+    private static Acknowledgment acknowledgmentOf(Message<?> message) {
+        return message.getHeaders().get(KafkaHeaders.ACKNOWLEDGMENT, Acknowledgment.class);
+    }
+}
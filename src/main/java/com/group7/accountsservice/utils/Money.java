@@ -0,0 +1,29 @@
+package com.group7.accountsservice.utils;
+
+import java.util.Objects;
+
+/**
+ * Fixed-point money helpers. Amounts are stored and added as {@code long} minor units (cents); doubles only
+ * appear at the API boundary, where {@link #toMinor} rounds to the nearest cent and {@link #toMajor} converts
+ * back.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+    private static final long MINOR_PER_MAJOR = 100L;
+
+    private Money() {
+    }
+
+    public static long toMinor(double amount) {
+        return Math.round(amount * MINOR_PER_MAJOR);
+    }
+
+    public static long toMinor(Double amount) {
+        return Objects.isNull(amount) ? 0L : toMinor(amount.doubleValue());
+    }
+
+    public static double toMajor(long minor) {
+        return (double) minor / MINOR_PER_MAJOR;
+    }
+}
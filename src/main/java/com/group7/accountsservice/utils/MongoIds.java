@@ -0,0 +1,17 @@
+package com.group7.accountsservice.utils;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Ids as stored by Spring Data: a String id that is a valid hex ObjectId is persisted as an {@link ObjectId},
+ * so queries built against the driver or with raw criteria have to convert it the same way to match.
+ */
+public final class MongoIds {
+
+    private MongoIds() {
+    }
+
+    public static Object toObjectId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
@@ -1,43 +1,48 @@
 package com.group7.accountsservice.utils;
 
 import com.group7.accountsservice.dto.MovementRequest;
+import com.group7.accountsservice.model.Account;
 import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementCounter;
+import com.group7.accountsservice.model.MovementKind;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.Objects;
+
 @AllArgsConstructor
 @Slf4j
 @Component
 public class MovementUtils {
 
+    private FeePolicyEngine feePolicyEngine;
+
     public Movement createDifferenceMovement(Movement current, MovementRequest update){
-        String type;
-
-        double difference = update.getAmountSigned() - current.getAmountSigned();
-        if (difference>=0){
-            type="deposit";
-        }else{
-            type="withdraw";
-        }
-        return new Movement(current.getId(), type, Math.abs(difference),current.getTransactionFee(), current.getDate(), current.getAccount());
+        long difference = Money.toMinor(update.getAmountSigned()) - current.getAmountSignedMinor();
+        MovementKind kind = difference >= 0 ? MovementKind.DEPOSIT : MovementKind.WITHDRAW;
+        return new Movement(current.getId(), kind, Math.abs(difference), current.getTransactionFeeMinor(), current.getDate(), current.getAccount());
     }
 
     public void setTransactionFee(Movement movement, String accountType){
-        log.info("Account type: {}",accountType);
-        switch (accountType){
-            case "Current":
-                movement.setTransactionFee(0.0);
-                break;
-            case "Saving":
-                movement.setTransactionFee(5.0);
-                break;
-            case "Fixed Deposit":
-                movement.setTransactionFee(4.0);
-                break;
-            default:
-                break;
-        }
+        setTransactionFee(movement, feePolicyEngine.ruleFor(accountType, null));
+    }
+
+    /**
+     * Charges the policy fee once the month's movements pass the limit. The limit comes from the same policy
+     * rule as the fee, so a reload applies to existing accounts; the limit stored on the account is the fallback.
+     */
+    public void setTransactionFee(Movement movement, Account account, MovementCounter counter){
+        FeePolicy.Rule rule = feePolicyEngine.ruleFor(account.getType(), account.getClientProfile());
+        Integer movementsLimit = Objects.isNull(rule) || Objects.isNull(rule.getMovementsLimit()) ?
+                account.getMovementsLimit() : rule.getMovementsLimit();
+        if (!Account.isMovementInLimit(counter, movementsLimit))
+            setTransactionFee(movement, rule);
+    }
+
+    private void setTransactionFee(Movement movement, FeePolicy.Rule rule){
+        if (!Objects.isNull(rule))
+            movement.setTransactionFeeMinor(rule.getTransactionFeeMinor());
     }
 
 }
@@ -0,0 +1,79 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.configuration.OptimisticRetryConfiguration;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class OptimisticRetry {
+
+    private static final int WRITE_CONFLICT = 112;
+
+    private final OptimisticRetryConfiguration configuration;
+    private final MeterRegistry meterRegistry;
+
+    public OptimisticRetry(OptimisticRetryConfiguration configuration, MeterRegistry meterRegistry) {
+        this.configuration = configuration;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Subscribes to a fresh read-modify-write from {@code mutation} on every attempt, so a version
+     * conflict re-reads the document and re-applies the change instead of overwriting it.
+     */
+    public <T> Mono<T> retrying(String operation, Supplier<Mono<T>> mutation) {
+        return retrying(operation, "accounts.optimistic", mutation,
+                OptimisticLockingFailureException.class::isInstance);
+    }
+
+    /**
+     * Runs a fresh transaction from {@code transaction} on every attempt while the previous one aborted with
+     * a transient error, typically a write conflict with a transaction touching the same counter or the
+     * other side of a transfer.
+     */
+    public <T> Mono<T> retryingTransaction(String operation, Supplier<Mono<T>> transaction) {
+        return retrying(operation, "accounts.transaction", transaction, OptimisticRetry::isTransientTransactionError);
+    }
+
+    public static boolean isTransientTransactionError(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (!(cause instanceof MongoException))
+                continue;
+            MongoException mongo = (MongoException) cause;
+            if (mongo.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)
+                    || mongo.getCode() == WRITE_CONFLICT)
+                return true;
+            if (mongo instanceof MongoBulkWriteException)
+                return ((MongoBulkWriteException) mongo).getWriteErrors().stream()
+                        .anyMatch(error -> error.getCode() == WRITE_CONFLICT);
+        }
+        return false;
+    }
+
+    private <T> Mono<T> retrying(String operation, String metric, Supplier<Mono<T>> attempt,
+                                 Predicate<Throwable> retryable) {
+        return Mono.defer(attempt)
+                .doOnError(retryable, ex ->
+                        meterRegistry.counter(metric + ".conflicts", "operation", operation).increment())
+                .retryWhen(Retry.backoff(configuration.getMaxAttempts() - 1, configuration.getMinBackoff())
+                        .maxBackoff(configuration.getMaxBackoff())
+                        .jitter(configuration.getJitter())
+                        .filter(retryable)
+                        .doBeforeRetry(signal -> log.debug("Retrying {} after conflict, attempt {}",
+                                operation, signal.totalRetries() + 1))
+                        .onRetryExhaustedThrow((spec, signal) -> {
+                            meterRegistry.counter(metric + ".exhausted", "operation", operation).increment();
+                            return signal.failure();
+                        }));
+    }
+}
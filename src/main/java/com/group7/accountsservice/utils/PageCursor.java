@@ -0,0 +1,78 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.dto.PageResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+public final class PageCursor {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String SEPARATOR = "|";
+
+    private PageCursor() {
+    }
+
+    public static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        return limit;
+    }
+
+    public static String encode(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String encode(LocalDate date, String id) {
+        return encode(date + SEPARATOR + id);
+    }
+
+    public static String decodeId(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw invalid(cursor);
+        }
+    }
+
+    public static Tuple2<LocalDate, String> decodeDateAndId(String cursor) {
+        String key = decodeId(cursor);
+        int separator = key.indexOf(SEPARATOR);
+        if (separator < 0)
+            throw invalid(cursor);
+        try {
+            return Tuples.of(LocalDate.parse(key.substring(0, separator)), key.substring(separator + 1));
+        } catch (DateTimeParseException ex) {
+            throw invalid(cursor);
+        }
+    }
+
+    public static <T> PageResponse<T> page(List<T> items, int limit, Function<T, String> cursorOf) {
+        String next = items.size() < limit ? null : cursorOf.apply(items.get(items.size() - 1));
+        return new PageResponse<>(items, next);
+    }
+
+    public static <T> ResponseEntity<Flux<T>> toResponse(PageResponse<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!Objects.isNull(page.getNext()))
+            response.header(NEXT_CURSOR_HEADER, page.getNext());
+        return response.body(Flux.fromIterable(page.getItems()));
+    }
+
+    private static ResponseStatusException invalid(String cursor) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page cursor: " + cursor);
+    }
+}
@@ -0,0 +1,175 @@
+package com.group7.accountsservice.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RMapCacheReactive;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache with a bounded local LRU in front of a Redis map. Concurrent misses for the same key
+ * share one load, and a local hit older than the refresh-ahead point triggers a background reload so hot
+ * keys do not expire under load. Empty results and failed loads are never cached; Redis errors fall back
+ * to the origin.
+ */
+@Slf4j
+public class TwoLevelCache<V> {
+
+    private final String name;
+    private final RMapCacheReactive<String, V> remote;
+    private final long localTtlNanos;
+    private final long refreshAfterNanos;
+    private final long remoteTtlMillis;
+    private final Map<String, Entry<V>> local;
+    private final Map<String, Mono<V>> inflight = new ConcurrentHashMap<>();
+    private final Counter localHits;
+    private final Counter remoteHits;
+    private final Counter misses;
+    private final Counter refreshes;
+    private final Counter saved;
+    private final Timer loads;
+
+    public TwoLevelCache(String name, RMapCacheReactive<String, V> remote, int localSize, Duration localTtl,
+                         Duration remoteTtl, double refreshAhead, MeterRegistry meterRegistry) {
+        int maxSize = Math.max(1, localSize);
+        this.name = name;
+        this.remote = remote;
+        this.localTtlNanos = localTtl.toNanos();
+        this.refreshAfterNanos = (long) (localTtlNanos * Math.min(1.0, Math.max(0.0, refreshAhead)));
+        this.remoteTtlMillis = remoteTtl.toMillis();
+        this.local = new LinkedHashMap<String, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.localHits = meterRegistry.counter("clients.cache", "cache", name, "result", "local");
+        this.remoteHits = meterRegistry.counter("clients.cache", "cache", name, "result", "redis");
+        this.misses = meterRegistry.counter("clients.cache", "cache", name, "result", "miss");
+        this.refreshes = meterRegistry.counter("clients.cache.refreshes", "cache", name);
+        this.saved = Counter.builder("clients.cache.saved")
+                .description("Estimated origin latency avoided by cache hits")
+                .baseUnit("seconds")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.loads = meterRegistry.timer("clients.cache.load", "cache", name);
+        Gauge.builder("clients.cache.hit.ratio", this, TwoLevelCache::hitRatio)
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    public Mono<V> get(String key, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> {
+            long now = System.nanoTime();
+            Entry<V> entry = localEntry(key, now);
+            if (entry == null)
+                return singleFlight(key, () -> fromRemote(key).switchIfEmpty(fromOrigin(key, loader)));
+
+            localHits.increment();
+            saved.increment(loads.mean(TimeUnit.SECONDS));
+            if (now - entry.loadedAt >= refreshAfterNanos)
+                refresh(key, loader);
+            return Mono.just(entry.value);
+        });
+    }
+
+    public synchronized void evict(String key) {
+        local.remove(key);
+    }
+
+    public synchronized int size() {
+        return local.size();
+    }
+
+    private Mono<V> singleFlight(String key, Supplier<Mono<V>> load) {
+        Mono<V> running = inflight.get(key);
+        if (running != null)
+            return running;
+
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+        Mono<V> created = Mono.defer(load)
+                .doFinally(signal -> inflight.remove(key, self.get()))
+                .cache();
+        self.set(created);
+        running = inflight.putIfAbsent(key, created);
+        return running != null ? running : created;
+    }
+
+    private void refresh(String key, Supplier<Mono<V>> loader) {
+        if (inflight.containsKey(key))
+            return;
+        refreshes.increment();
+        singleFlight(key, () -> fromOrigin(key, loader))
+                .subscribe(value -> { }, ex -> log.warn("Could not refresh {} entry {}", name, key, ex));
+    }
+
+    private Mono<V> fromRemote(String key) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return remote.get(key)
+                    .doOnNext(value -> {
+                        remoteHits.increment();
+                        long elapsed = System.nanoTime() - start;
+                        saved.increment(Math.max(0.0, loads.mean(TimeUnit.SECONDS) - elapsed / 1e9));
+                        putLocal(key, value);
+                    })
+                    .onErrorResume(ex -> {
+                        log.warn("Could not read {} entry {} from Redis", name, key, ex);
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    private Mono<V> fromOrigin(String key, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> {
+            misses.increment();
+            long start = System.nanoTime();
+            return loader.get()
+                    .doOnNext(value -> {
+                        loads.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        putLocal(key, value);
+                        remote.fastPut(key, value, remoteTtlMillis, TimeUnit.MILLISECONDS)
+                                .subscribe(stored -> { },
+                                        ex -> log.warn("Could not write {} entry {} to Redis", name, key, ex));
+                    });
+        });
+    }
+
+    private synchronized Entry<V> localEntry(String key, long now) {
+        Entry<V> entry = local.get(key);
+        if (entry == null || now - entry.loadedAt < localTtlNanos)
+            return entry;
+        local.remove(key);
+        return null;
+    }
+
+    private synchronized void putLocal(String key, V value) {
+        local.put(key, new Entry<>(value, System.nanoTime()));
+    }
+
+    private double hitRatio() {
+        double hits = localHits.count() + remoteHits.count();
+        double total = hits + misses.count();
+        return total == 0 ? 0.0 : hits / total;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -5,7 +5,7 @@ import com.group7.accountsservice.model.Client;
 import com.group7.accountsservice.model.CreditCard;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -16,28 +16,21 @@ import reactor.core.publisher.Mono;
 @Slf4j
 @Component
 public class WebClientUtils {
-    private WebClient webClient;
     private static final String NOT_FOUND_MESSAGE = "Not found Client with ID: ";
-    @Value("${services-uri.clients}")
-    private String clientsService;
+    private static final String CLIENT_CREDIT_CARDS = "/credit_cards/client/{id}";
 
-    @Value("${services-uri.credits}")
-    private String creditsService;
+    private final WebClient clientsClient;
+    private final WebClient creditsClient;
 
-    public WebClientUtils() {
-        this.webClient = WebClient.create("http://localhost:8080/clients");
-    }
-
-    public WebClientUtils(WebClient webClient) {
-        this.webClient = webClient;
+    public WebClientUtils(@Qualifier("clientsWebClient") WebClient clientsClient,
+                          @Qualifier("creditsWebClient") WebClient creditsClient) {
+        this.clientsClient = clientsClient;
+        this.creditsClient = creditsClient;
     }
 
     @CircuitBreaker(name = "clients",fallbackMethod = "clientsUnavailable")
     public Mono<Client> getClient(String id) {
-        return webClient
-                .mutate()
-                .baseUrl(clientsService)
-                .build()
+        return clientsClient
                 .get()
                 .uri("/{id}", id)
                 .retrieve()
@@ -50,24 +43,18 @@ public class WebClientUtils {
     }
 
     public Flux<CreditCard> getCredits(String id) {
-        return webClient
-                .mutate()
-                .baseUrl(creditsService+"/credit_cards/client")
-                .build()
+        return creditsClient
                 .get()
-                .uri("/{id}", id)
+                .uri(CLIENT_CREDIT_CARDS, id)
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, clientResponse -> Mono.error(new AccountCreationException(NOT_FOUND_MESSAGE + id)))
                 .bodyToFlux(CreditCard.class);
     }
 
     public Mono<Boolean> isClientWithCreditDebt(String id) {
-        return webClient
-                .mutate()
-                .baseUrl(creditsService+"/credit_cards/client")
-                .build()
+        return creditsClient
                 .get()
-                .uri("/{id}/is_debt", id)
+                .uri(CLIENT_CREDIT_CARDS + "/is_debt", id)
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, clientResponse -> Mono.error(new AccountCreationException(NOT_FOUND_MESSAGE + id)))
                 .bodyToMono(Boolean.class);
@@ -7,14 +7,17 @@ import com.group7.accountsservice.model.Client;
 import com.group7.accountsservice.model.Movement;
 import com.group7.accountsservice.repository.AccountRepository;
 import com.group7.accountsservice.repository.DebitCardRepository;
+import com.group7.accountsservice.repository.MovementCounterRepository;
 import com.group7.accountsservice.repository.MovementRepository;
 import com.group7.accountsservice.repository.TransferRepository;
 import com.group7.accountsservice.utils.AccountUtils;
+import com.group7.accountsservice.utils.PageCursor;
 import com.group7.accountsservice.utils.WebClientUtils;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
@@ -28,6 +31,9 @@ import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -61,6 +67,8 @@ class AccountControllerTest {
     private AccountUtils accountUtils;
     @MockBean
     private WebClientUtils webClientUtils;
+    @MockBean
+    private MovementCounterRepository movementCounterRepository;
 
     @Autowired
     WebTestClient client;
@@ -104,6 +112,48 @@ class AccountControllerTest {
         assertEquals(ACCOUNT_MOVEMENT_DAY, accountResponse.getMovementDay());
     }
 
+    @Test
+    void getAccountsPage() {
+        Account first = Account.builder()
+                .id("627760015d3f4d6ace96c44a")
+                .type(ACCOUNT_TYPE)
+                .client(ACCOUNT_CLIENT)
+                .balance(ACCOUNT_BALANCE)
+                .build();
+        Account second = Account.builder()
+                .id(ACCOUNT_ID)
+                .type(ACCOUNT_TYPE)
+                .client(ACCOUNT_CLIENT)
+                .balance(ACCOUNT_BALANCE)
+                .build();
+
+        when(accountRepository.findPage(isNull(), eq(2)))
+                .thenReturn(Flux.just(first, second));
+
+        List<AccountResponse> page = client.get()
+                .uri(uriBuilder -> uriBuilder.path("/accounts").queryParam("limit", 2).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(PageCursor.NEXT_CURSOR_HEADER, PageCursor.encode(ACCOUNT_ID))
+                .expectBodyList(AccountResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(page);
+        assertEquals(2, page.size());
+    }
+
+    @Test
+    void getAccountsPageWithInvalidCursor() {
+        client.get()
+                .uri(uriBuilder -> uriBuilder.path("/accounts")
+                        .queryParam("limit", 2)
+                        .queryParam("after", "invalid!")
+                        .build())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     void shouldReturnNotFoundWhenGetOneAccount() {
         //GIVEN
@@ -240,7 +290,7 @@ class AccountControllerTest {
         when(movementRepository.findByAccountAndDateBetween(ACCOUNT_ID, from, to))
                 .thenReturn(Flux.empty());
 
-        when(transferRepository.findByFromOrToAndDateBetween(ACCOUNT_ID, ACCOUNT_ID, from, to))
+        when(transferRepository.findHistory(ACCOUNT_ID, from, to))
                 .thenReturn(Flux.empty());
 
         AccountReportResponse accountReportResponse = client.get()
@@ -443,6 +493,90 @@ class AccountControllerTest {
                 .getResponseBody();
     }
 
+    @Test
+    void saveAccountsInBatch() {
+        String batchClient = "6277190af4256e7261ae3680";
+        Client clientAux = Client.builder()
+                .id(batchClient)
+                .name(ACCOUNT_CLIENT_NAME)
+                .type(ACCOUNT_CLIENT_TYPE)
+                .profile(ACCOUNT_CLIENT_PROFILE)
+                .documentType(ACCOUNT_CLIENT_DOCUMENT_TYPE)
+                .documentNumber(ACCOUNT_CLIENT_DOCUMENT_NUMBER).build();
+
+        when(webClientUtils.getClient(batchClient))
+                .thenReturn(Mono.just(clientAux));
+        when(webClientUtils.isClientWithCreditDebt(batchClient))
+                .thenReturn(Mono.just(false));
+        when(accountRepository.findAccountByClient(batchClient))
+                .thenReturn(Flux.empty());
+        when(accountRepository.insert(anyList()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<List<Account>>getArgument(0)));
+
+        String body = "{\"type\":\"Saving\",\"client\":\"" + batchClient + "\",\"balance\":100.0}\n" +
+                "{\"type\":\"Saving\",\"client\":\"" + batchClient + "\",\"balance\":50.0}\n" +
+                "{\"type\":\"Current\",\"client\":\"" + batchClient + "\",\"balance\":10.0}\n" +
+                "{\"type\":\"Saving\",\"balance\":10.0}\n";
+
+        List<AccountBatchResult> results = client.post()
+                .uri("/accounts/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(AccountBatchResult.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(results);
+        assertEquals(4, results.size());
+        assertEquals("Created", results.get(0).getStatus());
+        assertEquals("Rejected", results.get(1).getStatus());
+        assertEquals("Client already have a Saving account", results.get(1).getMessage());
+        assertEquals("Created", results.get(2).getStatus());
+        assertEquals("Rejected", results.get(3).getStatus());
+    }
+
+    @Test
+    void saveAccountsInBatchForClientWithoutTypeOrProfile() {
+        String batchClient = "6277190af4256e7261ae3681";
+        Client clientAux = Client.builder()
+                .id(batchClient)
+                .name(ACCOUNT_CLIENT_NAME)
+                .documentType(ACCOUNT_CLIENT_DOCUMENT_TYPE)
+                .documentNumber(ACCOUNT_CLIENT_DOCUMENT_NUMBER).build();
+
+        when(webClientUtils.getClient(batchClient))
+                .thenReturn(Mono.just(clientAux));
+        when(webClientUtils.isClientWithCreditDebt(batchClient))
+                .thenReturn(Mono.just(false));
+        when(accountRepository.findAccountByClient(batchClient))
+                .thenReturn(Flux.empty());
+        when(accountRepository.insert(anyList()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<List<Account>>getArgument(0)));
+
+        String body = "{\"type\":\"Saving\",\"client\":\"" + batchClient + "\",\"balance\":100.0}\n" +
+                "{\"type\":\"Current\",\"client\":\"" + batchClient + "\",\"balance\":-1.0}\n";
+
+        List<AccountBatchResult> results = client.post()
+                .uri("/accounts/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(AccountBatchResult.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(results);
+        assertEquals(2, results.size());
+        assertEquals("Created", results.get(0).getStatus());
+        assertEquals("Rejected", results.get(1).getStatus());
+        assertEquals("The balance could not be less than 0 or null", results.get(1).getMessage());
+    }
+
     @Test
     void updateAccount(){
         AccountRequest accountRequest = AccountRequest.builder()
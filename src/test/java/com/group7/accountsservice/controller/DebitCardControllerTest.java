@@ -4,8 +4,10 @@ import com.group7.accountsservice.dto.*;
 import com.group7.accountsservice.model.Account;
 import com.group7.accountsservice.model.DebitCard;
 import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementCounter;
 import com.group7.accountsservice.repository.AccountRepository;
 import com.group7.accountsservice.repository.DebitCardRepository;
+import com.group7.accountsservice.repository.MovementCounterRepository;
 import com.group7.accountsservice.repository.MovementRepository;
 import com.group7.accountsservice.repository.TransferRepository;
 import com.group7.accountsservice.utils.AccountUtils;
@@ -20,12 +22,14 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -52,6 +56,8 @@ class DebitCardControllerTest {
     private AccountUtils accountUtils;
     @MockBean
     private WebClientUtils webClientUtils;
+    @MockBean
+    private MovementCounterRepository movementCounterRepository;
 
     @Autowired
     WebTestClient client;
@@ -254,6 +260,9 @@ class DebitCardControllerTest {
         when(accountRepository.save(any()))
                 .thenReturn(Mono.just(accountA));
 
+        when(accountRepository.applyMovement(any()))
+                .thenReturn(Mono.just(accountA));
+
         //New movement: Movement(id=null, type=pay, amount=50.0, transactionFee=0.0, date=2022-05-23, account=627760015d3f4d6ace96c40a)
 
         Movement movementA = Movement.builder()
@@ -296,6 +305,9 @@ class DebitCardControllerTest {
                 .date(LocalDate.now())
                 .build();
 
+        when(movementCounterRepository.countMovement(any()))
+                .thenReturn(Mono.just(MovementCounter.empty(CARD_MAIN_ACCOUNT, YearMonth.now())));
+
         when(movementRepository.save(movementA))
                 .thenReturn(Mono.just(movementA));
 
@@ -413,7 +425,7 @@ class DebitCardControllerTest {
                 .type("pay")
                 .build();
 
-        when(movementRepository.findByAccount(CARD_MAIN_ACCOUNT))
+        when(movementRepository.findNewestByAccountAndTypes(eq(CARD_MAIN_ACCOUNT), any(), eq(10)))
                 .thenReturn(Flux.just(movement));
 
         List<MovementResponse> movementResponseList = client.get()
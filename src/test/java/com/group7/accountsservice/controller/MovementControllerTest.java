@@ -1,12 +1,15 @@
 package com.group7.accountsservice.controller;
 
 import com.group7.accountsservice.dto.DebitCardResponse;
+import com.group7.accountsservice.dto.MovementBatchResult;
 import com.group7.accountsservice.dto.MovementRequest;
 import com.group7.accountsservice.dto.MovementResponse;
 import com.group7.accountsservice.model.Account;
 import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementCounter;
 import com.group7.accountsservice.repository.AccountRepository;
 import com.group7.accountsservice.repository.DebitCardRepository;
+import com.group7.accountsservice.repository.MovementCounterRepository;
 import com.group7.accountsservice.repository.MovementRepository;
 import com.group7.accountsservice.repository.TransferRepository;
 import com.group7.accountsservice.utils.AccountUtils;
@@ -16,8 +19,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -27,6 +32,12 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -59,6 +70,10 @@ class MovementControllerTest {
     private AccountUtils accountUtils;
     @MockBean
     private WebClientUtils webClientUtils;
+    @MockBean
+    private MovementCounterRepository movementCounterRepository;
+    @MockBean
+    private TransactionalOperator transactionalOperator;
 
     @Autowired
     WebTestClient client;
@@ -136,8 +151,6 @@ class MovementControllerTest {
     @Test
     void saveMovement() {
         YearMonth currentMonth = YearMonth.now();
-        LocalDate firstOfMonth = currentMonth.atDay(1);
-        LocalDate last = currentMonth.atEndOfMonth();
 
         Account account = Account.builder()
                 .id(ACCOUNT_ID)
@@ -162,6 +175,9 @@ class MovementControllerTest {
         when(accountRepository.save(any()))
                 .thenReturn(Mono.just(account));
 
+        when(accountRepository.applyMovement(any()))
+                .thenReturn(Mono.just(account));
+
         Movement movement = Movement.builder()
                 .id("627760015d3f4d6ace96c44b")
                 .account(ACCOUNT_ID)
@@ -177,12 +193,15 @@ class MovementControllerTest {
                 .type("deposit")
                 .build();
 
-        when(movementRepository.findByAccountAndDateBetween(ACCOUNT_ID,firstOfMonth,last))
-                .thenReturn(Flux.just(movement));
+        when(movementCounterRepository.countMovement(any()))
+                .thenReturn(Mono.just(MovementCounter.empty(ACCOUNT_ID, currentMonth)));
 
         when(movementRepository.save(any()))
                 .thenReturn(Mono.just(movement));
 
+        when(transactionalOperator.transactional(any(Mono.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
         MovementResponse debitCardResponse = client.post()
                 .uri(uriBuilder -> uriBuilder
                         .path("/accounts/movement")
@@ -195,6 +214,103 @@ class MovementControllerTest {
                 .getResponseBody();
     }
 
+    @Test
+    void exportMovementsCsv() {
+        Movement movement = Movement.builder()
+                .id("627760015d3f4d6ace96c44b")
+                .account(ACCOUNT_ID)
+                .amount(100.0)
+                .date(LocalDate.now())
+                .transactionFee(0.0)
+                .type("deposit")
+                .build();
+
+        when(movementRepository.stream(any(), anyInt()))
+                .thenReturn(Flux.just(movement));
+
+        String csv = client.get()
+                .uri(uriBuilder -> uriBuilder.path("/accounts/movement/export")
+                        .queryParam("account", ACCOUNT_ID)
+                        .queryParam("type", "deposit")
+                        .build())
+                .accept(MediaType.parseMediaType("text/csv"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(csv);
+        String[] lines = csv.split("\n");
+        assertEquals(MovementResponse.CSV_HEADER.trim(), lines[0]);
+        assertEquals(MovementResponse.fromModel(movement).toCsv().trim(), lines[1]);
+    }
+
+    @Test
+    void exportMovementsRejectsUnknownType() {
+        client.get()
+                .uri(uriBuilder -> uriBuilder.path("/accounts/movement/export")
+                        .queryParam("type", "refund")
+                        .build())
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(movementRepository, never()).stream(any(), anyInt());
+    }
+
+    @Test
+    void saveMovementsBatch() {
+        Account account = Account.builder()
+                .id(ACCOUNT_ID)
+                .type(ACCOUNT_TYPE)
+                .client(ACCOUNT_CLIENT)
+                .balance(ACCOUNT_BALANCE)
+                .movementsLimit(ACCOUNT_MOVEMENTS_LIMIT)
+                .movementDay(ACCOUNT_MOVEMENT_DAY)
+                .build();
+
+        when(accountRepository.findById(ACCOUNT_ID))
+                .thenReturn(Mono.just(account));
+
+        when(movementCounterRepository.increment(eq(ACCOUNT_ID), any(), eq(0L)))
+                .thenReturn(Mono.just(MovementCounter.empty(ACCOUNT_ID, YearMonth.now())));
+
+        when(accountRepository.incrementBalanceIfAtLeast(eq(ACCOUNT_ID), anyLong(), anyLong()))
+                .thenReturn(Mono.just(account));
+
+        when(movementRepository.insert(anyList()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<List<Movement>>getArgument(0)));
+
+        when(movementCounterRepository.countMovements(anyList()))
+                .thenReturn(Mono.empty());
+
+        when(transactionalOperator.transactional(any(Mono.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        String body = "{\"type\":\"deposit\",\"account\":\"" + ACCOUNT_ID + "\",\"amount\":20.0}\n" +
+                "{\"type\":\"withdraw\",\"account\":\"" + ACCOUNT_ID + "\",\"amount\":500.0}\n" +
+                "{\"type\":\"transfer\",\"account\":\"" + ACCOUNT_ID + "\",\"amount\":10.0}\n";
+
+        List<MovementBatchResult> results = client.post()
+                .uri("/accounts/movement/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(MovementBatchResult.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(results);
+        assertEquals(3, results.size());
+        assertEquals("Created", results.get(0).getStatus());
+        assertEquals("Rejected", results.get(1).getStatus());
+        assertEquals("Not enough money", results.get(1).getMessage());
+        assertEquals("Rejected", results.get(2).getStatus());
+    }
+
     @Test
     void updateMovement() {
         YearMonth currentMonth = YearMonth.now();
@@ -224,6 +340,9 @@ class MovementControllerTest {
         when(accountRepository.save(any()))
                 .thenReturn(Mono.just(account));
 
+        when(accountRepository.incrementBalanceIfCovered(eq(ACCOUNT_ID), anyLong()))
+                .thenReturn(Mono.just(account));
+
         Movement movement = Movement.builder()
                 .id("627760015d3f4d6ace96c44b")
                 .account(ACCOUNT_ID)
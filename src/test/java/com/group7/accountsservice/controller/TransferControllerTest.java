@@ -8,8 +8,10 @@ import com.group7.accountsservice.model.Movement;
 import com.group7.accountsservice.model.Transfer;
 import com.group7.accountsservice.repository.AccountRepository;
 import com.group7.accountsservice.repository.DebitCardRepository;
+import com.group7.accountsservice.repository.MovementCounterRepository;
 import com.group7.accountsservice.repository.MovementRepository;
 import com.group7.accountsservice.repository.TransferRepository;
+import com.group7.accountsservice.serviceimpl.TransferEngine;
 import com.group7.accountsservice.utils.AccountUtils;
 import com.group7.accountsservice.utils.MovementUtils;
 import com.group7.accountsservice.utils.WebClientUtils;
@@ -17,6 +19,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
@@ -26,6 +29,8 @@ import java.time.LocalDate;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -58,6 +63,10 @@ class TransferControllerTest {
     private AccountUtils accountUtils;
     @MockBean
     private WebClientUtils webClientUtils;
+    @MockBean
+    private MovementCounterRepository movementCounterRepository;
+    @MockBean
+    private TransferEngine transferEngine;
 
     @Autowired
     WebTestClient client;
@@ -84,6 +93,49 @@ class TransferControllerTest {
                 .getResponseBody();
     }
 
+    @Test
+    void exportTransfers() {
+        Transfer transfer = Transfer.builder()
+                .id("6283df74629e3030b851d923")
+                .amount(20.0)
+                .date(LocalDate.now())
+                .from("6283def0629e3030b851d919")
+                .to("6283df00629e3030b851d91a")
+                .build();
+
+        when(transferRepository.stream(any(), anyInt()))
+                .thenReturn(Flux.just(transfer));
+
+        List<TransferResponse> transferResponseList = client.get()
+                .uri(uriBuilder -> uriBuilder.path("/accounts/transfer/export")
+                        .queryParam("account", "6283def0629e3030b851d919")
+                        .queryParam("from", LocalDate.now().minusDays(1).toString())
+                        .build())
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(TransferResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(transferResponseList);
+        assertEquals(1, transferResponseList.size());
+    }
+
+    @Test
+    void exportTransfersCsvFailsBeforeTheHeader() {
+        when(transferRepository.stream(any(), anyInt()))
+                .thenReturn(Flux.error(new IllegalStateException("cursor lost")));
+
+        client.get()
+                .uri(uriBuilder -> uriBuilder.path("/accounts/transfer/export")
+                        .queryParam("account", "6283def0629e3030b851d919")
+                        .build())
+                .accept(MediaType.parseMediaType("text/csv"))
+                .exchange()
+                .expectStatus().is5xxServerError();
+    }
+
     @Test
     void getAllTransfersByAccount() {
         Transfer transfer = Transfer.builder()
@@ -94,7 +146,7 @@ class TransferControllerTest {
                 .to("6283df00629e3030b851d91a")
                 .build();
 
-        when(transferRepository.findByFromOrTo("6283def0629e3030b851d919","6283def0629e3030b851d919"))
+        when(transferRepository.findHistory("6283def0629e3030b851d919"))
                 .thenReturn(Flux.just(transfer));
 
         List<TransferResponse> transferResponseList = client.get()
@@ -137,70 +189,7 @@ class TransferControllerTest {
                 .to("6283df00629e3030b851d91a")
                 .build();
 
-        Account from = Account.builder()
-                .id("6283def0629e3030b851d919")
-                .type(ACCOUNT_TYPE)
-                .client(ACCOUNT_CLIENT)
-                .balance(ACCOUNT_BALANCE)
-                .clientType(ACCOUNT_CLIENT_TYPE)
-                .clientProfile(ACCOUNT_CLIENT_PROFILE)
-                .maintenanceFee(ACCOUNT_MAINTENANCE_FEE)
-                .movementsLimit(ACCOUNT_MOVEMENTS_LIMIT)
-                .holders(ACCOUNT_HOLDERS)
-                .signers(ACCOUNT_SIGNERS)
-                .movementDay(ACCOUNT_MOVEMENT_DAY)
-                .build();
-
-        Account to = Account.builder()
-                .id("6283df00629e3030b851d91a")
-                .type(ACCOUNT_TYPE)
-                .client(ACCOUNT_CLIENT)
-                .balance(ACCOUNT_BALANCE)
-                .clientType(ACCOUNT_CLIENT_TYPE)
-                .clientProfile(ACCOUNT_CLIENT_PROFILE)
-                .maintenanceFee(ACCOUNT_MAINTENANCE_FEE)
-                .movementsLimit(ACCOUNT_MOVEMENTS_LIMIT)
-                .holders(ACCOUNT_HOLDERS)
-                .signers(ACCOUNT_SIGNERS)
-                .movementDay(ACCOUNT_MOVEMENT_DAY)
-                .build();
-
-        when(accountRepository.findById("6283def0629e3030b851d919"))
-                .thenReturn(Mono.just(from));
-
-        when(accountRepository.findById("6283df00629e3030b851d91a"))
-                .thenReturn(Mono.just(to));
-
-        Movement movement1 = new Movement(null,
-                "Transfer Out",
-                transferRequest.getAmount(),
-                0.0,
-                LocalDate.now(),
-                from.getId());
-
-        Movement movement2 = new Movement(null,
-                "Transfer In",
-                transferRequest.getAmount(),
-                0.0,
-                LocalDate.now(),
-                to.getId());
-
-        when(movementRepository.save(movement1))
-                .thenReturn(Mono.just(movement1));
-
-        when(movementRepository.save(movement2))
-                .thenReturn(Mono.just(movement2));
-
-        from.setBalance(from.getBalance() - transferRequest.getAmount());
-        to.setBalance(to.getBalance() + transferRequest.getAmount());
-
-        when(accountRepository.save(from))
-                .thenReturn(Mono.just(from));
-
-        when(accountRepository.save(to))
-                .thenReturn(Mono.just(to));
-
-        when(transferRepository.save(transferRequest.toModel()))
+        when(transferEngine.execute(any()))
                 .thenReturn(Mono.just(transferRequest.toModel()));
 
         TransferResponse transferResponse = client.post()
@@ -0,0 +1,54 @@
+package com.group7.accountsservice.model;
+
+import com.group7.accountsservice.dto.MovementRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardPaymentPlanTest {
+
+    private static final String CARD = "627760015d3f4d6ace96c44a";
+    private static final String MAIN = "627760015d3f4d6ace96c40a";
+    private static final String OPTIONAL = "627760015d3f4d6ace96c40b";
+
+    @Test
+    void allocatesInMinorUnitsWithoutLeavingACentUncovered() {
+        CardTopology card = new CardTopology(CARD, MAIN, Collections.singletonList(OPTIONAL));
+        CardPaymentPlan plan = CardPaymentPlan.allocate(card,
+                Arrays.asList(account(OPTIONAL, 20L), account(MAIN, 10L)),
+                MovementRequest.builder().account(CARD).type("pay").amount(0.1 + 0.2).build());
+
+        assertTrue(plan.isCovered());
+        assertEquals(30L, plan.getAmountMinor());
+        assertEquals(0L, plan.getUncoveredMinor());
+        assertEquals(Arrays.asList(new CardPaymentPlan.Allocation(MAIN, 10L, 10L),
+                        new CardPaymentPlan.Allocation(OPTIONAL, 20L, 20L)),
+                plan.getAllocations());
+        assertEquals(10L, plan.getMovements().get(0).getAmountMinor());
+        assertEquals(20L, plan.getMovements().get(1).getAmountMinor());
+    }
+
+    @Test
+    void uncoveredRemainderIsKeptInMinorUnits() {
+        CardTopology card = new CardTopology(CARD, MAIN, Collections.emptyList());
+        CardPaymentPlan plan = CardPaymentPlan.allocate(card, Collections.singletonList(account(MAIN, 999L)),
+                MovementRequest.builder().account(CARD).type("pay").amount(10.0).build());
+
+        assertFalse(plan.isCovered());
+        assertEquals(1L, plan.getUncoveredMinor());
+        assertEquals(Collections.singletonList(new CardPaymentPlan.Allocation(MAIN, 999L, 999L)),
+                plan.getAllocations());
+    }
+
+    private static Account account(String id, long balanceMinor) {
+        return Account.builder()
+                .id(id)
+                .client("627718aff4256e7261ae367f")
+                .type("Saving")
+                .balanceMinor(balanceMinor)
+                .build();
+    }
+}
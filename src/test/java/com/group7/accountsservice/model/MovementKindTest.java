@@ -0,0 +1,70 @@
+package com.group7.accountsservice.model;
+
+import com.group7.accountsservice.dto.MovementRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MovementKindTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "deposit, DEPOSIT",
+            "Withdraw, WITHDRAW",
+            "PAY, CARD_PAYMENT",
+            "withdraw debit, CARD_WITHDRAW",
+            "transfer out, TRANSFER_OUT",
+            "Receive Transaction, TRANSACTION_RECEIVE",
+            "yanki out, YANKI_OUT",
+            "refund, OTHER",
+    })
+    void labelsAreParsedIgnoringCase(String label, MovementKind kind) {
+        assertEquals(kind, MovementKind.of(label));
+    }
+
+    @Test
+    void nullLabelHasNoKind() {
+        assertNull(MovementKind.of((String) null));
+    }
+
+    @Test
+    void onlyKindLabelsAreKnown() {
+        assertTrue(MovementKind.isKnown(" Deposit "));
+        assertTrue(MovementKind.isKnown("other"));
+        assertFalse(MovementKind.isKnown("refund"));
+        assertFalse(MovementKind.isKnown(null));
+    }
+
+    @ParameterizedTest
+    @EnumSource(MovementKind.class)
+    void codesRoundTrip(MovementKind kind) {
+        assertEquals(kind, MovementKind.ofCode(kind.getCode()));
+        assertEquals(kind, MovementKind.of(kind.getLabel()));
+    }
+
+    @ParameterizedTest
+    @EnumSource(MovementKind.class)
+    void requestAndMovementAgreeOnSign(MovementKind kind) {
+        MovementRequest request = MovementRequest.builder()
+                .type(kind.getLabel())
+                .account("627760015d3f4d6ace96c44b")
+                .amount(10.0)
+                .build();
+        Movement movement = Movement.builder()
+                .type(kind.getLabel())
+                .account("627760015d3f4d6ace96c44b")
+                .amount(10.0)
+                .transactionFee(0.0)
+                .build();
+
+        assertEquals(request.getAmountSigned() < 0, kind.isDebit());
+        assertEquals(movement.getAmountSignedMinor(), Account.balanceDeltaOf(movement));
+        assertEquals(kind.isDebit(), movement.getAmountSignedMinor() < 0);
+    }
+}
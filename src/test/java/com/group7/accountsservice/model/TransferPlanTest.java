@@ -0,0 +1,72 @@
+package com.group7.accountsservice.model;
+
+import com.group7.accountsservice.dto.TransferRequest;
+import com.group7.accountsservice.exception.transfer.TransferCreationException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferPlanTest {
+
+    private static final String FROM = "627760015d3f4d6ace96c44b";
+    private static final String TO = "627760015d3f4d6ace96c55c";
+
+    @Test
+    void betweenAccountsDebitsSenderAndCreditsReceiver() {
+        TransferPlan plan = TransferPlan.betweenAccounts(TransferRequest.builder()
+                .from(FROM)
+                .to(TO)
+                .amount(12.34)
+                .build());
+
+        assertEquals(FROM, plan.getTransfer().getFrom());
+        assertEquals(1234L, plan.getTransfer().getAmountMinor());
+        assertEquals(Arrays.asList(new TransferPlan.BalanceLeg(FROM, -1234L), new TransferPlan.BalanceLeg(TO, 1234L)),
+                plan.getLegs());
+        assertTrue(plan.getLegs().get(0).isDebit());
+        assertFalse(plan.getLegs().get(1).isDebit());
+
+        assertEquals(2, plan.getMovements().size());
+        Movement out = plan.getMovements().get(0);
+        Movement in = plan.getMovements().get(1);
+        assertEquals(MovementKind.TRANSFER_OUT, out.getKind());
+        assertEquals(FROM, out.getAccount());
+        assertEquals(MovementKind.TRANSFER_IN, in.getKind());
+        assertEquals(TO, in.getAccount());
+        assertEquals(1234L, out.getAmountMinor());
+        assertEquals(1234L, in.getAmountMinor());
+        assertEquals(0L, out.getTransactionFeeMinor());
+        assertEquals(LocalDate.now(), out.getDate());
+        assertTrue(plan.getEvents().isEmpty());
+    }
+
+    @Test
+    void payTransactionOnlyDebitsThePayer() {
+        TransferPlan plan = TransferPlan.payTransaction(TransferRequest.builder()
+                .from(FROM)
+                .to(TO)
+                .transaction("tx-1")
+                .amount(50.0)
+                .build());
+
+        assertEquals("tx-1", plan.getTransfer().getTransaction());
+        assertEquals(Collections.singletonList(new TransferPlan.BalanceLeg(FROM, -5000L)), plan.getLegs());
+        assertEquals(1, plan.getMovements().size());
+        assertEquals(MovementKind.TRANSACTION_PAY, plan.getMovements().get(0).getKind());
+        assertEquals(FROM, plan.getMovements().get(0).getAccount());
+        assertEquals(5000L, plan.getMovements().get(0).getAmountMinor());
+    }
+
+    @Test
+    void invalidRequestsAreRejectedBeforeAnyLegIsBuilt() {
+        TransferRequest negative = TransferRequest.builder().from(FROM).to(TO).amount(-1.0).build();
+        TransferRequest missingTo = TransferRequest.builder().from(FROM).amount(1.0).build();
+
+        assertThrows(TransferCreationException.class, () -> TransferPlan.betweenAccounts(negative));
+        assertThrows(TransferCreationException.class, () -> TransferPlan.payTransaction(missingTo));
+    }
+}
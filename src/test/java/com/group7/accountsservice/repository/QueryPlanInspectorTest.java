@@ -0,0 +1,48 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.model.Movement;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryPlanInspectorTest {
+
+    private final Map<String, QueryPlanInspector.HotQuery> hotQueries = QueryPlanInspector.hotQueries().stream()
+            .collect(Collectors.toMap(query -> query.name, Function.identity()));
+
+    @Test
+    void derivedFindersAreParsedFromTheRepositories() {
+        assertEquals(new Document("client", "").append("type", ""),
+                hotQueries.get("AccountRepository.findAccountByClientAndType").query.getQueryObject());
+        assertEquals(new Document("number", ""),
+                hotQueries.get("DebitCardRepository.findCardByNumber").query.getQueryObject());
+
+        QueryPlanInspector.HotQuery between = hotQueries.get("MovementRepository.findByAccountAndDateBetween");
+        assertEquals(Movement.class, between.document);
+        Document date = between.query.getQueryObject().get("date", Document.class);
+        assertTrue(date.containsKey("$gte"));
+        assertTrue(date.containsKey("$lte"));
+    }
+
+    @Test
+    void writeAndRelayQueriesAreInspected() {
+        assertEquals(new Document("_id", ":" + YearMonth.now()),
+                hotQueries.get("MovementCounterRepository.increment").query.getQueryObject());
+        assertEquals(new Document("_id", 1),
+                hotQueries.get("OutboxRelay.pendingEvents").query.getSortObject());
+    }
+
+    @Test
+    void pagedAndMergedReadsAreInspected() {
+        assertTrue(hotQueries.containsKey("MovementRepository.findPageByAccount"));
+        assertTrue(hotQueries.containsKey("TransferRepository.findHistory[from]"));
+        assertTrue(hotQueries.containsKey("TransferRepository.findHistory[to]"));
+        assertTrue(hotQueries.containsKey("TransferRepository.findHistoryPage[to]"));
+    }
+}
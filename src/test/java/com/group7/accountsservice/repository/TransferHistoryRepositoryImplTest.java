@@ -0,0 +1,120 @@
+package com.group7.accountsservice.repository;
+
+import com.group7.accountsservice.model.Transfer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TransferHistoryRepositoryImplTest {
+
+    private static final String ACCOUNT = "627760015d3f4d6ace96c44b";
+    private static final String OTHER = "627760015d3f4d6ace96c55c";
+    private static final LocalDate DAY = LocalDate.of(2022, 5, 10);
+
+    @Mock
+    private ReactiveMongoOperations mongoOperations;
+
+    private TransferHistoryRepositoryImpl repository;
+
+    private final List<Transfer> stored = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        repository = new TransferHistoryRepositoryImpl(mongoOperations);
+        // Answers each branch the way the (from|to, date, _id) indexes would: filtered, ordered and limited.
+        when(mongoOperations.find(any(Query.class), eq(Transfer.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            List<Transfer> branch = new ArrayList<>();
+            for (Transfer transfer : stored)
+                if (branchOf(query).test(transfer))
+                    branch.add(transfer);
+            branch.sort(Comparator.comparing(Transfer::getDate).thenComparing(Transfer::getId));
+            return Flux.fromIterable(branch).take(query.getLimit() > 0 ? query.getLimit() : Long.MAX_VALUE);
+        });
+    }
+
+    private static Predicate<Transfer> branchOf(Query query) {
+        String criteria = query.getQueryObject().toJson();
+        if (!criteria.contains("\"to\""))
+            return transfer -> transfer.getFrom().equals(ACCOUNT);
+        if (criteria.contains("$ne"))
+            return transfer -> transfer.getTo().equals(ACCOUNT) && !transfer.getFrom().equals(ACCOUNT);
+        return transfer -> transfer.getTo().equals(ACCOUNT);
+    }
+
+    private Transfer transfer(String id, String from, String to, LocalDate date) {
+        Transfer transfer = Transfer.builder()
+                .id(id)
+                .from(from)
+                .to(to)
+                .amount(10.0)
+                .date(date)
+                .build();
+        stored.add(transfer);
+        return transfer;
+    }
+
+    @Test
+    void branchesAreMergedByDateThenId() {
+        Transfer outFirst = transfer("000000000000000000000001", ACCOUNT, OTHER, DAY);
+        Transfer inSameDay = transfer("000000000000000000000002", OTHER, ACCOUNT, DAY);
+        Transfer inNextDay = transfer("000000000000000000000003", OTHER, ACCOUNT, DAY.plusDays(1));
+        Transfer outLast = transfer("000000000000000000000004", ACCOUNT, OTHER, DAY.plusDays(2));
+        Transfer outSameDayLaterId = transfer("000000000000000000000005", ACCOUNT, OTHER, DAY);
+
+        StepVerifier.create(repository.findHistory(ACCOUNT))
+                .expectNext(outFirst, inSameDay, outSameDayLaterId, inNextDay, outLast)
+                .verifyComplete();
+    }
+
+    @Test
+    void selfTransfersAreOnlyReadFromTheOutgoingBranch() {
+        Transfer self = transfer("000000000000000000000001", ACCOUNT, ACCOUNT, DAY);
+        Transfer incoming = transfer("000000000000000000000002", OTHER, ACCOUNT, DAY);
+
+        StepVerifier.create(repository.findHistory(ACCOUNT))
+                .expectNext(self, incoming)
+                .verifyComplete();
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoOperations, times(2)).find(queries.capture(), eq(Transfer.class));
+        assertTrue(queries.getAllValues().stream()
+                .anyMatch(query -> query.getQueryObject().toJson().contains("$ne")));
+    }
+
+    @Test
+    void pageIsLimitedAfterMerging() {
+        Transfer first = transfer("000000000000000000000001", ACCOUNT, OTHER, DAY);
+        Transfer second = transfer("000000000000000000000002", OTHER, ACCOUNT, DAY);
+        transfer("000000000000000000000003", ACCOUNT, OTHER, DAY.plusDays(1));
+        transfer("000000000000000000000004", OTHER, ACCOUNT, DAY.plusDays(1));
+
+        StepVerifier.create(repository.findHistoryPage(ACCOUNT, null, null, 2))
+                .expectNext(first, second)
+                .verifyComplete();
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoOperations, times(2)).find(queries.capture(), eq(Transfer.class));
+        assertEquals(Arrays.asList(2, 2), Arrays.asList(queries.getAllValues().get(0).getLimit(),
+                queries.getAllValues().get(1).getLimit()));
+    }
+}
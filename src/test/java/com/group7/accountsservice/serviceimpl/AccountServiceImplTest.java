@@ -1,5 +1,7 @@
 package com.group7.accountsservice.serviceimpl;
 
+import com.group7.accountsservice.configuration.AccountValidationConfiguration;
+import com.group7.accountsservice.configuration.OptimisticRetryConfiguration;
 import com.group7.accountsservice.dto.AccountReportResponse;
 import com.group7.accountsservice.dto.AccountRequest;
 import com.group7.accountsservice.dto.AccountResponse;
@@ -8,13 +10,14 @@ import com.group7.accountsservice.exception.account.AccountCreationException;
 import com.group7.accountsservice.exception.account.AccountNotFoundException;
 import com.group7.accountsservice.model.Account;
 import com.group7.accountsservice.model.Client;
-import com.group7.accountsservice.model.CreditCard;
 import com.group7.accountsservice.repository.AccountRepository;
 import com.group7.accountsservice.repository.DebitCardRepository;
 import com.group7.accountsservice.repository.MovementRepository;
 import com.group7.accountsservice.repository.TransferRepository;
 import com.group7.accountsservice.utils.AccountUtils;
-import com.group7.accountsservice.utils.WebClientUtils;
+import com.group7.accountsservice.utils.ClientProfileCache;
+import com.group7.accountsservice.utils.OptimisticRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -24,17 +27,25 @@ import static org.mockito.Mockito.when;
 
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.OptimisticLockingFailureException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 class AccountServiceImplTest {
 
@@ -65,7 +76,12 @@ class AccountServiceImplTest {
     @Mock
     private AccountUtils accountUtils;
     @Mock
-    private WebClientUtils webClientUtils;
+    private ClientProfileCache clientProfileCache;
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(new OptimisticRetryConfiguration(),
+            new SimpleMeterRegistry());
+    @Spy
+    private AccountValidationConfiguration validationConfiguration = new AccountValidationConfiguration();
 
     @InjectMocks
     private AccountServiceImpl accountService;
@@ -106,10 +122,10 @@ class AccountServiceImplTest {
                 .documentType(ACCOUNT_CLIENT_DOCUMENT_TYPE)
                 .documentNumber(ACCOUNT_CLIENT_DOCUMENT_NUMBER).build();
 
-        when(webClientUtils.getClient(any()))
+        when(clientProfileCache.getClient(any()))
                 .thenReturn(Mono.just(client));
 
-        when(webClientUtils.isClientWithCreditDebt(any()))
+        when(clientProfileCache.isClientWithCreditDebt(any()))
                 .thenReturn(Mono.just(false));
 
         when(accountRepository.findAccountByClientAndType(any(), any()))
@@ -169,14 +185,14 @@ class AccountServiceImplTest {
                 .documentType(ACCOUNT_CLIENT_DOCUMENT_TYPE)
                 .documentNumber(ACCOUNT_CLIENT_DOCUMENT_NUMBER).build();
 
-        when(webClientUtils.getClient(any()))
+        when(clientProfileCache.getClient(any()))
                 .thenReturn(Mono.just(client));
 
-        when(webClientUtils.isClientWithCreditDebt(any()))
+        when(clientProfileCache.isClientWithCreditDebt(any()))
                 .thenReturn(Mono.just(false));
 
-        when(webClientUtils.getCredits(any()))
-                .thenReturn(Flux.just(new CreditCard()));
+        when(clientProfileCache.hasCreditCards(any()))
+                .thenReturn(Mono.just(true));
 
         when(accountRepository.findAccountByClientAndType(any(), any()))
                 .thenReturn(Flux.empty());
@@ -234,14 +250,14 @@ class AccountServiceImplTest {
                 .documentType(ACCOUNT_CLIENT_DOCUMENT_TYPE)
                 .documentNumber(ACCOUNT_CLIENT_DOCUMENT_NUMBER).build();
 
-        when(webClientUtils.getClient(any()))
+        when(clientProfileCache.getClient(any()))
                 .thenReturn(Mono.just(client));
 
-        when(webClientUtils.isClientWithCreditDebt(any()))
+        when(clientProfileCache.isClientWithCreditDebt(any()))
                 .thenReturn(Mono.just(false));
 
-        when(webClientUtils.getCredits(any()))
-                .thenReturn(Flux.empty());
+        when(clientProfileCache.hasCreditCards(any()))
+                .thenReturn(Mono.just(false));
 
         when(accountRepository.findAccountByClientAndType(any(), any()))
                 .thenReturn(Flux.empty());
@@ -285,14 +301,14 @@ class AccountServiceImplTest {
                 .documentType(ACCOUNT_CLIENT_DOCUMENT_TYPE)
                 .documentNumber(ACCOUNT_CLIENT_DOCUMENT_NUMBER).build();
 
-        when(webClientUtils.getClient(any()))
+        when(clientProfileCache.getClient(any()))
                 .thenReturn(Mono.just(client));
 
-        when(webClientUtils.isClientWithCreditDebt(any()))
+        when(clientProfileCache.isClientWithCreditDebt(any()))
                 .thenReturn(Mono.just(false));
 
-        when(webClientUtils.getCredits(ACCOUNT_CLIENT))
-                .thenReturn(Flux.empty());
+        when(clientProfileCache.hasCreditCards(ACCOUNT_CLIENT))
+                .thenReturn(Mono.just(false));
 
         when(accountRepository.findAccountByClientAndType(any(), any()))
                 .thenReturn(Flux.empty());
@@ -336,14 +352,14 @@ class AccountServiceImplTest {
                 .documentType(ACCOUNT_CLIENT_DOCUMENT_TYPE)
                 .documentNumber(ACCOUNT_CLIENT_DOCUMENT_NUMBER).build();
 
-        when(webClientUtils.getClient(any()))
+        when(clientProfileCache.getClient(any()))
                 .thenReturn(Mono.just(client));
 
-        when(webClientUtils.isClientWithCreditDebt(any()))
+        when(clientProfileCache.isClientWithCreditDebt(any()))
                 .thenReturn(Mono.just(false));
 
-        when(webClientUtils.getCredits(any()))
-                .thenReturn(Flux.just(new CreditCard()));
+        when(clientProfileCache.hasCreditCards(any()))
+                .thenReturn(Mono.just(true));
 
         when(accountRepository.findAccountByClientAndType(any(), any()))
                 .thenReturn(Flux.empty());
@@ -379,7 +395,7 @@ class AccountServiceImplTest {
                 .balance(ACCOUNT_BALANCE)
                 .build();
 
-        when(webClientUtils.isClientWithCreditDebt(any()))
+        when(clientProfileCache.isClientWithCreditDebt(any()))
                 .thenReturn(Mono.just(false));
 
         when(accountRepository.save(any()))
@@ -391,6 +407,65 @@ class AccountServiceImplTest {
     }
 
 
+    @Test
+    void debtCheckCancelsPendingValidations() {
+        AccountRequest accountRequest = AccountRequest.builder()
+                .type(ACCOUNT_TYPE)
+                .client(ACCOUNT_CLIENT)
+                .balance(ACCOUNT_BALANCE)
+                .build();
+        AtomicBoolean clientLookupCancelled = new AtomicBoolean();
+
+        when(clientProfileCache.getClient(any()))
+                .thenReturn(Mono.<Client>never().doOnCancel(() -> clientLookupCancelled.set(true)));
+        when(clientProfileCache.isClientWithCreditDebt(any()))
+                .thenReturn(Mono.just(true));
+        when(clientProfileCache.hasCreditCards(any()))
+                .thenReturn(Mono.never());
+        when(accountRepository.findAccountByClientAndType(any(), any()))
+                .thenReturn(Flux.never());
+
+        StepVerifier.create(accountService.save(accountRequest))
+                .expectErrorMessage("Client have a credit debt")
+                .verify(Duration.ofSeconds(1));
+
+        assertTrue(clientLookupCancelled.get());
+        verify(accountRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldReturnValidationTimingsWhenEnabled() {
+        AccountRequest accountRequest = AccountRequest.builder()
+                .type(ACCOUNT_TYPE)
+                .client(ACCOUNT_CLIENT)
+                .balance(ACCOUNT_BALANCE)
+                .build();
+        Account account = Account.builder()
+                .id(ACCOUNT_ID)
+                .type(ACCOUNT_TYPE)
+                .client(ACCOUNT_CLIENT)
+                .balance(ACCOUNT_BALANCE)
+                .clientType(ACCOUNT_CLIENT_TYPE)
+                .clientProfile(ACCOUNT_CLIENT_PROFILE)
+                .build();
+        Client client = Client.builder()
+                .id(ACCOUNT_CLIENT)
+                .type(ACCOUNT_CLIENT_TYPE)
+                .profile(ACCOUNT_CLIENT_PROFILE)
+                .build();
+        validationConfiguration.setDebugTimings(true);
+
+        when(clientProfileCache.getClient(any())).thenReturn(Mono.just(client));
+        when(clientProfileCache.isClientWithCreditDebt(any())).thenReturn(Mono.just(false));
+        when(clientProfileCache.hasCreditCards(any())).thenReturn(Mono.just(false));
+        when(accountRepository.findAccountByClientAndType(any(), any())).thenReturn(Flux.empty());
+        when(accountRepository.save(any())).thenReturn(Mono.just(account));
+
+        StepVerifier.create(accountService.save(accountRequest))
+                .assertNext(accountResponse -> assertEquals(4, accountResponse.getValidationTimings().size()))
+                .verifyComplete();
+    }
+
     @Test
     void getAll() {
         Account account = Account.builder()
@@ -485,7 +560,7 @@ class AccountServiceImplTest {
         when(movementRepository.findByAccountAndDateBetween(ACCOUNT_ID,from,to))
                 .thenReturn(Flux.empty());
 
-        when(transferRepository.findByFromOrToAndDateBetween(ACCOUNT_ID,ACCOUNT_ID,from,to))
+        when(transferRepository.findHistory(ACCOUNT_ID,from,to))
                 .thenReturn(Flux.empty());
 
         StepVerifier.create(accountService.getReport(ACCOUNT_ID,from,to))
@@ -620,4 +695,36 @@ class AccountServiceImplTest {
                 .verifyComplete();
     }
 
+    @Test
+    void updateRetriesOnVersionConflict() {
+        AccountRequest accountRequest = AccountRequest.builder()
+                .type(ACCOUNT_TYPE)
+                .client(ACCOUNT_CLIENT)
+                .balance(ACCOUNT_BALANCE)
+                .movementDay(ACCOUNT_MOVEMENT_DAY)
+                .build();
+
+        Account account = Account.builder()
+                .id(ACCOUNT_ID)
+                .type(ACCOUNT_TYPE)
+                .client(ACCOUNT_CLIENT)
+                .balance(ACCOUNT_BALANCE)
+                .movementsLimit(ACCOUNT_MOVEMENTS_LIMIT)
+                .version(1L)
+                .build();
+
+        when(accountRepository.findById(ACCOUNT_ID))
+                .thenReturn(Mono.just(account));
+
+        when(accountRepository.save(account))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("Version conflict")),
+                        Mono.just(account));
+
+        StepVerifier.create(accountService.update(ACCOUNT_ID, accountRequest))
+                .expectNext(AccountResponse.fromModel(account))
+                .verifyComplete();
+
+        verify(accountRepository, times(2)).findById(ACCOUNT_ID);
+    }
+
 }
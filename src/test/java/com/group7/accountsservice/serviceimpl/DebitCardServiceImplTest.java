@@ -1,22 +1,30 @@
 package com.group7.accountsservice.serviceimpl;
 
+import com.group7.accountsservice.configuration.AccountLanesConfiguration;
+import com.group7.accountsservice.configuration.CardTopologyCacheConfiguration;
 import com.group7.accountsservice.dto.*;
 import com.group7.accountsservice.exception.account.AccountNotFoundException;
 import com.group7.accountsservice.exception.debitcard.DebitCardCreationException;
 import com.group7.accountsservice.exception.debitcard.DebitCardNotFoundException;
 import com.group7.accountsservice.model.Account;
+import com.group7.accountsservice.model.CardPaymentPlan;
+import com.group7.accountsservice.model.CardTopology;
 import com.group7.accountsservice.model.DebitCard;
 import com.group7.accountsservice.model.Movement;
 import com.group7.accountsservice.repository.AccountRepository;
 import com.group7.accountsservice.repository.DebitCardRepository;
 import com.group7.accountsservice.repository.MovementRepository;
+import com.group7.accountsservice.utils.AccountLanes;
+import com.group7.accountsservice.utils.CardTopologyCache;
 import com.group7.accountsservice.utils.MovementUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -29,6 +37,10 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @Slf4j
@@ -48,6 +60,13 @@ class DebitCardServiceImplTest {
     private MovementRepository movementRepository;
     @Mock
     private MovementUtils movementUtils;
+    @Mock
+    private CardPaymentEngine cardPaymentEngine;
+    @Spy
+    private AccountLanes accountLanes = new AccountLanes(new AccountLanesConfiguration(), new SimpleMeterRegistry());
+    @Spy
+    private CardTopologyCache cardTopologyCache =
+            new CardTopologyCache(new CardTopologyCacheConfiguration(), new SimpleMeterRegistry());
 
     @InjectMocks
     private DebitCardServiceImpl debitCardService;
@@ -236,380 +255,101 @@ class DebitCardServiceImplTest {
 
     @Test
     void makeMovementSuccessFirst() {
-
-        MovementRequest movementRequest = MovementRequest.builder()
-                .account("627760015d3f4d6ace96c40a")
-                .type("pay")
-                .amount(30.0)
-                .build();
-
-        DebitCard debitCard = DebitCard.builder()
-                .id("627760015d3f4d6ace96c44a")
-                .number("4445-54545-4545454")
-                .client("627760015d3f4d6ace96c55c")
-                .mainAccount("627760015d3f4d6ace96c44b")
-                .optionalAccounts(new ArrayList<>(Arrays.asList("627760015d3f4d6ace96c40a",
-                        "627760015d3f4d6ace96c40b",
-                        "627760015d3f4d6ace96c40c",
-                        "627760015d3f4d6ace96c40d")))
-                .build();
-
-        Account accountA = Account.builder()
-                .id("627760015d3f4d6ace96c40a")
-                .client("Renato")
-                .type("Saving")
-                .balance(50.0)
-                .build();
-
-        Account accountB = Account.builder()
-                .id("627760015d3f4d6ace96c40b")
-                .client("Renato")
-                .type("Saving")
-                .balance(30.0)
-                .build();
-
-        Account accountC = Account.builder()
-                .id("627760015d3f4d6ace96c40c")
-                .client("Renato")
-                .type("Saving")
-                .balance(20.0)
-                .build();
-
-        Account accountD = Account.builder()
-                .id("627760015d3f4d6ace96c40d")
-                .client("Renato")
-                .type("Saving")
-                .balance(10.0)
-                .build();
+        MovementRequest movementRequest = paymentRequest(30.0);
+        DebitCard debitCard = paymentCard();
+        List<Account> accounts = paymentAccounts();
 
         when(debitCardRepository.findById(movementRequest.getAccount()))
                 .thenReturn(Mono.just(debitCard));
-
-        when(accountRepository.findById(accountA.getId()))
-                .thenReturn(Mono.just(accountA));
-
-        when(accountRepository.findById(accountB.getId()))
-                .thenReturn(Mono.just(accountB));
-
-        when(accountRepository.findById(accountC.getId()))
-                .thenReturn(Mono.just(accountC));
-
-        when(accountRepository.findById(accountD.getId()))
-                .thenReturn(Mono.just(accountD));
-
-        when(accountRepository.save(any()))
-                .thenReturn(Mono.just(accountA));
-
-        //New movement: Movement(id=null, type=pay, amount=50.0, transactionFee=0.0, date=2022-05-23, account=627760015d3f4d6ace96c40a)
-
-        Movement movementA = Movement.builder()
-                .account("627760015d3f4d6ace96c40a")
-                .type("pay")
-                .amount(50.0)
-                .transactionFee(0.0)
-                .date(LocalDate.now())
-                .build();
-
-        Movement movementA2 = Movement.builder()
-                .account("627760015d3f4d6ace96c40a")
-                .type("pay")
-                .amount(30.0)
-                .transactionFee(0.0)
-                .date(LocalDate.now())
-                .build();
-
-        Movement movementB = Movement.builder()
-                .account("627760015d3f4d6ace96c40b")
-                .type("pay")
-                .amount(30.0)
-                .transactionFee(0.0)
-                .date(LocalDate.now())
-                .build();
-
-        Movement movementC = Movement.builder()
-                .account("627760015d3f4d6ace96c40c")
-                .type("pay")
-                .amount(20.0)
-                .transactionFee(0.0)
-                .date(LocalDate.now())
-                .build();
-
-        Movement movementD = Movement.builder()
-                .account("627760015d3f4d6ace96c40d")
-                .type("pay")
-                .amount(10.0)
-                .transactionFee(0.0)
-                .date(LocalDate.now())
-                .build();
-
-        when(movementRepository.save(movementA))
-                .thenReturn(Mono.just(movementA));
-
-        when(movementRepository.save(movementB))
-                .thenReturn(Mono.just(movementB));
-
-        when(movementRepository.save(movementC))
-                .thenReturn(Mono.just(movementC));
-
-        when(movementRepository.save(movementD))
-                .thenReturn(Mono.just(movementD));
-
-        MovementResponse movementResponseA2 = MovementResponse.fromModel(movementA2);
+        when(accountRepository.findAllById(CardPaymentPlan.accountOrder(CardTopology.fromCard(debitCard))))
+                .thenReturn(Flux.fromIterable(accounts));
+        when(cardPaymentEngine.execute(any()))
+                .thenAnswer(invocation -> Mono.just(invocation.<CardPaymentPlan>getArgument(0).getMovements()));
 
         StepVerifier.create(debitCardService.makeMovement(movementRequest))
-                .expectNext(Collections.singletonList(movementResponseA2))
-                .expectComplete();
+                .assertNext(response -> {
+                    assertEquals(Collections.singletonList(
+                            new CardPaymentResponse.Allocation("627760015d3f4d6ace96c40a", 50.0, 30.0)),
+                            response.getAllocations());
+                    assertEquals(1, response.getMovements().size());
+                    assertEquals(30.0, response.getMovements().get(0).getAmount());
+                })
+                .verifyComplete();
     }
 
     @Test
     void makeMovementSuccess() {
-
-        MovementRequest movementRequest = MovementRequest.builder()
-                .account("627760015d3f4d6ace96c40a")
-                .type("pay")
-                .amount(100.0)
-                .build();
-
-        DebitCard debitCard = DebitCard.builder()
-                .id("627760015d3f4d6ace96c44a")
-                .number("4445-54545-4545454")
-                .client("627760015d3f4d6ace96c55c")
-                .mainAccount("627760015d3f4d6ace96c44b")
-                .optionalAccounts(new ArrayList<>(Arrays.asList("627760015d3f4d6ace96c40a",
-                        "627760015d3f4d6ace96c40b",
-                        "627760015d3f4d6ace96c40c",
-                        "627760015d3f4d6ace96c40d")))
-                .build();
-
-        Account accountA = Account.builder()
-                .id("627760015d3f4d6ace96c40a")
-                .client("Renato")
-                .type("Saving")
-                .balance(50.0)
-                .build();
-
-        Account accountB = Account.builder()
-                .id("627760015d3f4d6ace96c40b")
-                .client("Renato")
-                .type("Saving")
-                .balance(30.0)
-                .build();
-
-        Account accountC = Account.builder()
-                .id("627760015d3f4d6ace96c40c")
-                .client("Renato")
-                .type("Saving")
-                .balance(20.0)
-                .build();
-
-        Account accountD = Account.builder()
-                .id("627760015d3f4d6ace96c40d")
-                .client("Renato")
-                .type("Saving")
-                .balance(10.0)
-                .build();
+        MovementRequest movementRequest = paymentRequest(100.0);
+        DebitCard debitCard = paymentCard();
+        List<Account> accounts = new ArrayList<>(paymentAccounts());
+        Collections.reverse(accounts);
 
         when(debitCardRepository.findById(movementRequest.getAccount()))
                 .thenReturn(Mono.just(debitCard));
+        when(accountRepository.findAllById(CardPaymentPlan.accountOrder(CardTopology.fromCard(debitCard))))
+                .thenReturn(Flux.fromIterable(accounts));
+        when(cardPaymentEngine.execute(any()))
+                .thenAnswer(invocation -> Mono.just(invocation.<CardPaymentPlan>getArgument(0).getMovements()));
 
-        when(accountRepository.findById(accountA.getId()))
-                .thenReturn(Mono.just(accountA));
-
-        when(accountRepository.findById(accountB.getId()))
-                .thenReturn(Mono.just(accountB));
-
-        when(accountRepository.findById(accountC.getId()))
-                .thenReturn(Mono.just(accountC));
-
-        when(accountRepository.findById(accountD.getId()))
-                .thenReturn(Mono.just(accountD));
-
-        when(accountRepository.save(any()))
-                .thenReturn(Mono.just(accountA));
-
-        //New movement: Movement(id=null, type=pay, amount=50.0, transactionFee=0.0, date=2022-05-23, account=627760015d3f4d6ace96c40a)
-
-        Movement movementA = Movement.builder()
-                .account("627760015d3f4d6ace96c40a")
-                .type("pay")
-                .amount(50.0)
-                .transactionFee(0.0)
-                .date(LocalDate.now())
-                .build();
-
-        Movement movementA2 = Movement.builder()
-                .account("627760015d3f4d6ace96c40a")
-                .type("pay")
-                .amount(30.0)
-                .transactionFee(0.0)
-                .date(LocalDate.now())
-                .build();
-
-        Movement movementB = Movement.builder()
-                .account("627760015d3f4d6ace96c40b")
-                .type("pay")
-                .amount(30.0)
-                .transactionFee(0.0)
-                .date(LocalDate.now())
-                .build();
-
-        Movement movementC = Movement.builder()
-                .account("627760015d3f4d6ace96c40c")
-                .type("pay")
-                .amount(20.0)
-                .transactionFee(0.0)
-                .date(LocalDate.now())
-                .build();
-
-        Movement movementD = Movement.builder()
-                .account("627760015d3f4d6ace96c40d")
-                .type("pay")
-                .amount(10.0)
-                .transactionFee(0.0)
-                .date(LocalDate.now())
-                .build();
-
-        when(movementRepository.save(movementA))
-                .thenReturn(Mono.just(movementA));
-
-        when(movementRepository.save(movementB))
-                .thenReturn(Mono.just(movementB));
-
-        when(movementRepository.save(movementC))
-                .thenReturn(Mono.just(movementC));
-
-        when(movementRepository.save(movementD))
-                .thenReturn(Mono.just(movementD));
-
-        MovementResponse movementResponseA = MovementResponse.fromModel(movementA);
-        MovementResponse movementResponseB = MovementResponse.fromModel(movementB);
-        MovementResponse movementResponseC = MovementResponse.fromModel(movementC);
-
+        // Allocation follows the card's account order, not the order the $in query returns them in.
         StepVerifier.create(debitCardService.makeMovement(movementRequest))
-                .expectNext(Arrays.asList(movementResponseA,movementResponseB,movementResponseC))
-                .expectComplete()
-                .verify();
-
-        //[MovementResponse(id=null, type=pay, amount=50.0, date=2022-05-23, account=627760015d3f4d6ace96c40a, transactionFee=0.0),
-        // MovementResponse(id=null, type=pay, amount=30.0, date=2022-05-23, account=627760015d3f4d6ace96c40b, transactionFee=0.0),
-        // MovementResponse(id=null, type=pay, amount=20.0, date=2022-05-23, account=627760015d3f4d6ace96c40c, transactionFee=0.0)]
+                .assertNext(response -> {
+                    assertEquals(Arrays.asList(
+                            new CardPaymentResponse.Allocation("627760015d3f4d6ace96c40a", 50.0, 50.0),
+                            new CardPaymentResponse.Allocation("627760015d3f4d6ace96c40b", 30.0, 30.0),
+                            new CardPaymentResponse.Allocation("627760015d3f4d6ace96c40c", 20.0, 20.0)),
+                            response.getAllocations());
+                    assertEquals(3, response.getMovements().size());
+                })
+                .verifyComplete();
     }
 
     @Test
     void makeMovementNotEnoughMoney() {
+        MovementRequest movementRequest = paymentRequest(200.0);
+        DebitCard debitCard = paymentCard();
+
+        when(debitCardRepository.findById(movementRequest.getAccount()))
+                .thenReturn(Mono.just(debitCard));
+        when(accountRepository.findAllById(CardPaymentPlan.accountOrder(CardTopology.fromCard(debitCard))))
+                .thenReturn(Flux.fromIterable(paymentAccounts()));
 
-        MovementRequest movementRequest = MovementRequest.builder()
-                .account("627760015d3f4d6ace96c40a")
+        StepVerifier.create(debitCardService.makeMovement(movementRequest))
+                .verifyError(DebitCardCreationException.class);
+        verify(cardPaymentEngine, never()).execute(any());
+    }
+
+    private static MovementRequest paymentRequest(double amount) {
+        return MovementRequest.builder()
+                .account("627760015d3f4d6ace96c44a")
                 .type("pay")
-                .amount(200.0)
+                .amount(amount)
                 .build();
+    }
 
-        DebitCard debitCard = DebitCard.builder()
+    private static DebitCard paymentCard() {
+        return DebitCard.builder()
                 .id("627760015d3f4d6ace96c44a")
                 .number("4445-54545-4545454")
                 .client("627760015d3f4d6ace96c55c")
-                .mainAccount("627760015d3f4d6ace96c44b")
+                .mainAccount("627760015d3f4d6ace96c40a")
                 .optionalAccounts(new ArrayList<>(Arrays.asList("627760015d3f4d6ace96c40a",
                         "627760015d3f4d6ace96c40b",
                         "627760015d3f4d6ace96c40c",
                         "627760015d3f4d6ace96c40d")))
                 .build();
+    }
 
-        Account accountA = Account.builder()
-                .id("627760015d3f4d6ace96c40a")
-                .client("Renato")
-                .type("Saving")
-                .balance(50.0)
-                .build();
-
-        Account accountB = Account.builder()
-                .id("627760015d3f4d6ace96c40b")
-                .client("Renato")
-                .type("Saving")
-                .balance(30.0)
-                .build();
-
-        Account accountC = Account.builder()
-                .id("627760015d3f4d6ace96c40c")
-                .client("Renato")
-                .type("Saving")
-                .balance(20.0)
-                .build();
-
-        Account accountD = Account.builder()
-                .id("627760015d3f4d6ace96c40d")
-                .client("Renato")
-                .type("Saving")
-                .balance(10.0)
-                .build();
-
-        when(debitCardRepository.findById(movementRequest.getAccount()))
-                .thenReturn(Mono.just(debitCard));
-
-        when(accountRepository.findById(accountA.getId()))
-                .thenReturn(Mono.just(accountA));
-
-        when(accountRepository.findById(accountB.getId()))
-                .thenReturn(Mono.just(accountB));
-
-        when(accountRepository.findById(accountC.getId()))
-                .thenReturn(Mono.just(accountC));
-
-        when(accountRepository.findById(accountD.getId()))
-                .thenReturn(Mono.just(accountD));
-
-        when(accountRepository.save(any()))
-                .thenReturn(Mono.just(accountA));
-
-        //New movement: Movement(id=null, type=pay, amount=50.0, transactionFee=0.0, date=2022-05-23, account=627760015d3f4d6ace96c40a)
-
-        Movement movementA = Movement.builder()
-                .account("627760015d3f4d6ace96c40a")
-                .type("pay")
-                .amount(50.0)
-                .transactionFee(0.0)
-                .date(LocalDate.now())
-                .build();
-
-        Movement movementB = Movement.builder()
-                .account("627760015d3f4d6ace96c40b")
-                .type("pay")
-                .amount(30.0)
-                .transactionFee(0.0)
-                .date(LocalDate.now())
-                .build();
-
-        Movement movementC = Movement.builder()
-                .account("627760015d3f4d6ace96c40c")
-                .type("pay")
-                .amount(20.0)
-                .transactionFee(0.0)
-                .date(LocalDate.now())
-                .build();
-
-        Movement movementD = Movement.builder()
-                .account("627760015d3f4d6ace96c40d")
-                .type("pay")
-                .amount(10.0)
-                .transactionFee(0.0)
-                .date(LocalDate.now())
-                .build();
-
-        when(movementRepository.save(movementA))
-                .thenReturn(Mono.just(movementA));
-
-        when(movementRepository.save(movementB))
-                .thenReturn(Mono.just(movementB));
-
-        when(movementRepository.save(movementC))
-                .thenReturn(Mono.just(movementC));
-
-        when(movementRepository.save(movementD))
-                .thenReturn(Mono.just(movementD));
+    private static Account paymentAccount(String id, double balance) {
+        return Account.builder().id(id).client("Renato").type("Saving").balance(balance).build();
+    }
 
-        StepVerifier.create(debitCardService.makeMovement(movementRequest))
-                //THEN
-                .verifyError(DebitCardCreationException.class);
+    private static List<Account> paymentAccounts() {
+        return Arrays.asList(
+                paymentAccount("627760015d3f4d6ace96c40a", 50.0),
+                paymentAccount("627760015d3f4d6ace96c40b", 30.0),
+                paymentAccount("627760015d3f4d6ace96c40c", 20.0),
+                paymentAccount("627760015d3f4d6ace96c40d", 10.0));
     }
 
     @Test
@@ -768,7 +508,7 @@ class DebitCardServiceImplTest {
                 .type("pay")
                 .build();
 
-        when(movementRepository.findByAccount(CARD_MAIN_ACCOUNT))
+        when(movementRepository.findNewestByAccountAndTypes(eq(CARD_MAIN_ACCOUNT), any(), eq(10)))
                 .thenReturn(Flux.just(movement));
 
         StepVerifier.create(debitCardService.getLastMovements(CARD_ID))
@@ -776,6 +516,39 @@ class DebitCardServiceImplTest {
                 .verifyComplete();
     }
 
+    @Test
+    void getLastMovementsNewestFirstAcrossAccounts(){
+        String optionalAccount = "627760015d3f4d6ace96c66d";
+        DebitCard debitCard = DebitCard.builder()
+                .id(CARD_ID)
+                .number(CARD_NUMBER)
+                .client(CARD_CLIENT)
+                .mainAccount(CARD_MAIN_ACCOUNT)
+                .optionalAccounts(new ArrayList<>(Arrays.asList(CARD_MAIN_ACCOUNT, optionalAccount)))
+                .build();
+
+        when(debitCardRepository.findById(CARD_ID))
+                .thenReturn(Mono.just(debitCard));
+
+        Movement today = Movement.builder().id("3").account(CARD_MAIN_ACCOUNT).amount(10.0)
+                .date(LocalDate.now()).transactionFee(0.0).type("pay").build();
+        Movement yesterday = Movement.builder().id("2").account(optionalAccount).amount(20.0)
+                .date(LocalDate.now().minusDays(1)).transactionFee(0.0).type("withdraw debit").build();
+        Movement lastWeek = Movement.builder().id("1").account(CARD_MAIN_ACCOUNT).amount(30.0)
+                .date(LocalDate.now().minusDays(7)).transactionFee(0.0).type("pay").build();
+
+        when(movementRepository.findNewestByAccountAndTypes(eq(CARD_MAIN_ACCOUNT), any(), eq(10)))
+                .thenReturn(Flux.just(today, lastWeek));
+        when(movementRepository.findNewestByAccountAndTypes(eq(optionalAccount), any(), eq(10)))
+                .thenReturn(Flux.just(yesterday));
+
+        StepVerifier.create(debitCardService.getLastMovements(CARD_ID))
+                .expectNext(MovementResponse.fromModel(today))
+                .expectNext(MovementResponse.fromModel(yesterday))
+                .expectNext(MovementResponse.fromModel(lastWeek))
+                .verifyComplete();
+    }
+
     @Test
     void getBalanceOfMainAccount(){
         DebitCard debitCard = DebitCard.builder()
@@ -803,4 +576,41 @@ class DebitCardServiceImplTest {
                 .expectNext(200.0)
                 .verifyComplete();
     }
+
+    @Test
+    void getBalanceOfMainAccountReadsCardAgainOnlyAfterUpdate() {
+        DebitCard debitCard = DebitCard.builder()
+                .id(CARD_ID)
+                .number(CARD_NUMBER)
+                .client(CARD_CLIENT)
+                .mainAccount(CARD_MAIN_ACCOUNT)
+                .optionalAccounts(new ArrayList<>(Arrays.asList(CARD_MAIN_ACCOUNT)))
+                .build();
+
+        Account account = Account.builder()
+                .id(CARD_MAIN_ACCOUNT)
+                .client(CARD_NUMBER)
+                .type("Saving")
+                .balance(200.0)
+                .build();
+
+        when(debitCardRepository.findById(CARD_ID))
+                .thenReturn(Mono.just(debitCard));
+        when(debitCardRepository.save(debitCard))
+                .thenReturn(Mono.just(debitCard));
+        when(accountRepository.findById(CARD_MAIN_ACCOUNT))
+                .thenReturn(Mono.just(account));
+
+        StepVerifier.create(debitCardService.getBalanceOfMainAccount(CARD_ID)
+                        .then(debitCardService.getBalanceOfMainAccount(CARD_ID)))
+                .expectNext(200.0)
+                .verifyComplete();
+        verify(debitCardRepository, times(1)).findById(CARD_ID);
+
+        StepVerifier.create(debitCardService.update(CARD_ID, DebitCardRequest.builder().number(CARD_NUMBER).build())
+                        .then(debitCardService.getBalanceOfMainAccount(CARD_ID)))
+                .expectNext(200.0)
+                .verifyComplete();
+        verify(debitCardRepository, times(3)).findById(CARD_ID);
+    }
 }
\ No newline at end of file
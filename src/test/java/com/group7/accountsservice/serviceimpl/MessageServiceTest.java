@@ -0,0 +1,143 @@
+package com.group7.accountsservice.serviceimpl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.group7.accountsservice.configuration.MessagePublisherConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cloud.stream.config.BindingServiceProperties;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MessageServiceTest {
+
+    private static final String BINDING = "test-out-0";
+    private static final String TOPIC = "test-topic";
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+    @Mock
+    private BindingServiceProperties bindingServiceProperties;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MessagePublisherConfiguration configuration = new MessagePublisherConfiguration();
+    private MessageService messageService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(bindingServiceProperties.getBindingDestination(BINDING)).thenReturn(TOPIC);
+        configuration.setLinger(Duration.ofMillis(1));
+        messageService = new MessageService(kafkaTemplate, bindingServiceProperties, new ObjectMapper(),
+                configuration, meterRegistry);
+    }
+
+    @AfterEach
+    void teardown() {
+        messageService.shutdown();
+    }
+
+    private double failures() {
+        return meterRegistry.counter("messages.send.failures", "binding", BINDING).count();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void completesOnceTheBrokerAcknowledges() {
+        SettableListenableFuture<SendResult<String, String>> future = new SettableListenableFuture<>();
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(future);
+
+        StepVerifier.create(messageService.publish(BINDING, Collections.singletonMap("id", "1")))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .then(() -> future.set(null))
+                .expectNext(true)
+                .verifyComplete();
+
+        ArgumentCaptor<ProducerRecord<String, String>> record = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(record.capture());
+        assertEquals(TOPIC, record.getValue().topic());
+        assertEquals("{\"id\":\"1\"}", record.getValue().value());
+        assertNotNull(record.getValue().headers().lastHeader("contentType"));
+        assertEquals(0, failures());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedSendIsPropagatedAndCounted() {
+        SettableListenableFuture<SendResult<String, String>> future = new SettableListenableFuture<>();
+        future.setException(new KafkaException("broker unavailable"));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(future);
+
+        StepVerifier.create(messageService.publish(BINDING, "payload"))
+                .expectError(KafkaException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(1, failures());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendThatThrowsIsPropagatedAndCounted() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenThrow(new KafkaException("producer closed"));
+
+        StepVerifier.create(messageService.publish(BINDING, "payload"))
+                .expectError(KafkaException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(1, failures());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fullQueueIsRejectedAndCounted() throws InterruptedException {
+        configuration.setQueueCapacity(1);
+        configuration.setBatchSize(1);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new SettableListenableFuture<SendResult<String, String>>();
+        });
+
+        try {
+            messageService.publish(BINDING, "first").subscribe();
+            assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+            // With the publisher thread blocked, the queue and the batches already handed to it fill up.
+            StepVerifier.create(Flux.range(0, 10_000)
+                            .flatMap(i -> messageService.publish(BINDING, i)
+                                    .thenReturn(false)
+                                    .onErrorResume(RejectedExecutionException.class, ex -> Mono.just(true)), 10_000)
+                            .filter(Boolean::booleanValue)
+                            .next())
+                    .expectNext(true)
+                    .verifyComplete();
+
+            assertTrue(failures() >= 1);
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.group7.accountsservice.serviceimpl;
+
+import com.group7.accountsservice.configuration.AccountLanesConfiguration;
+import com.group7.accountsservice.configuration.CurrentAccountConfiguration;
+import com.group7.accountsservice.configuration.FeePolicyConfiguration;
+import com.group7.accountsservice.configuration.FixedDepositAccountConfiguration;
+import com.group7.accountsservice.configuration.MovementBatchConfiguration;
+import com.group7.accountsservice.configuration.OptimisticRetryConfiguration;
+import com.group7.accountsservice.configuration.SavingAccountConfiguration;
+import com.group7.accountsservice.dto.MovementRequest;
+import com.group7.accountsservice.model.Account;
+import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementCounter;
+import com.group7.accountsservice.repository.AccountRepository;
+import com.group7.accountsservice.repository.MovementCounterRepository;
+import com.group7.accountsservice.repository.MovementRepository;
+import com.group7.accountsservice.utils.AccountLanes;
+import com.group7.accountsservice.utils.FeePolicyEngine;
+import com.group7.accountsservice.utils.MovementUtils;
+import com.group7.accountsservice.utils.OptimisticRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MovementBatchEngineTest {
+
+    private static final String ACCOUNT_ID = "627760015d3f4d6ace96c44b";
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private MovementRepository movementRepository;
+    @Mock
+    private MovementCounterRepository movementCounterRepository;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    private AccountLanes accountLanes;
+    private MovementBatchEngine engine;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        accountLanes = new AccountLanes(new AccountLanesConfiguration(), new SimpleMeterRegistry());
+        MovementUtils movementUtils = new MovementUtils(new FeePolicyEngine(new CurrentAccountConfiguration(),
+                new FixedDepositAccountConfiguration(), new SavingAccountConfiguration(),
+                new FeePolicyConfiguration()));
+        engine = new MovementBatchEngine(accountRepository, movementRepository, movementCounterRepository,
+                movementUtils, accountLanes, transactionalOperator, new MovementBatchConfiguration(),
+                new OptimisticRetry(new OptimisticRetryConfiguration(), new SimpleMeterRegistry()));
+
+        when(transactionalOperator.transactional(any(Mono.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(movementCounterRepository.increment(eq(ACCOUNT_ID), any(), eq(0L)))
+                .thenReturn(Mono.just(MovementCounter.empty(ACCOUNT_ID, YearMonth.now())));
+        when(movementRepository.insert(anyList()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<List<Movement>>getArgument(0)));
+        when(movementCounterRepository.countMovements(anyList()))
+                .thenReturn(Mono.empty());
+    }
+
+    @AfterEach
+    void teardown() {
+        accountLanes.shutdown();
+    }
+
+    @Test
+    void depositWithAFeeAboveTheBalanceIsAccepted() {
+        // No free movements left: every line pays the Saving fee of 5.00.
+        Account account = Account.builder()
+                .id(ACCOUNT_ID)
+                .client("627718aff4256e7261ae367f")
+                .type("Saving")
+                .balance(1.0)
+                .movementsLimit(0)
+                .build();
+        when(accountRepository.findById(ACCOUNT_ID))
+                .thenReturn(Mono.just(account));
+        when(accountRepository.incrementBalanceIfAtLeast(eq(ACCOUNT_ID), anyLong(), anyLong()))
+                .thenReturn(Mono.just(account));
+
+        StepVerifier.create(engine.ingest(Flux.just(
+                        MovementRequest.builder().account(ACCOUNT_ID).type("deposit").amount(2.0).build(),
+                        MovementRequest.builder().account(ACCOUNT_ID).type("withdraw").amount(1.0).build())))
+                .assertNext(result -> {
+                    assertEquals("Created", result.getStatus());
+                    assertEquals(5.0, result.getMovement().getTransactionFee());
+                })
+                .assertNext(result -> {
+                    assertEquals("Rejected", result.getStatus());
+                    assertEquals("Not enough money", result.getMessage());
+                })
+                .verifyComplete();
+
+        // Only the deposit is written, with nothing to cover; its fee still comes off the balance.
+        verify(accountRepository).incrementBalanceIfAtLeast(ACCOUNT_ID, 0L, -300L);
+    }
+
+    @Test
+    void debitsMustBeCoveredAtEveryPointOfTheBatch() {
+        Account account = Account.builder()
+                .id(ACCOUNT_ID)
+                .client("627718aff4256e7261ae367f")
+                .type("Saving")
+                .balance(10.0)
+                .movementsLimit(100)
+                .build();
+        when(accountRepository.findById(ACCOUNT_ID))
+                .thenReturn(Mono.just(account));
+        when(accountRepository.incrementBalanceIfAtLeast(eq(ACCOUNT_ID), anyLong(), anyLong()))
+                .thenReturn(Mono.just(account));
+
+        StepVerifier.create(engine.ingest(Flux.just(
+                        MovementRequest.builder().account(ACCOUNT_ID).type("withdraw").amount(8.0).build(),
+                        MovementRequest.builder().account(ACCOUNT_ID).type("deposit").amount(5.0).build(),
+                        MovementRequest.builder().account(ACCOUNT_ID).type("withdraw").amount(7.0).build())))
+                .expectNextMatches(result -> "Created".equals(result.getStatus()))
+                .expectNextMatches(result -> "Created".equals(result.getStatus()))
+                .expectNextMatches(result -> "Created".equals(result.getStatus()))
+                .verifyComplete();
+
+        verify(accountRepository).incrementBalanceIfAtLeast(ACCOUNT_ID, 1000L, -1000L);
+    }
+}
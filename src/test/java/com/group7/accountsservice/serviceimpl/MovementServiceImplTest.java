@@ -1,19 +1,28 @@
 package com.group7.accountsservice.serviceimpl;
 
+import com.group7.accountsservice.configuration.AccountLanesConfiguration;
+import com.group7.accountsservice.configuration.OptimisticRetryConfiguration;
 import com.group7.accountsservice.dto.AccountResponse;
 import com.group7.accountsservice.dto.MovementRequest;
 import com.group7.accountsservice.dto.MovementResponse;
 import com.group7.accountsservice.exception.movement.MovementCreationException;
 import com.group7.accountsservice.model.Account;
 import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementCounter;
 import com.group7.accountsservice.repository.AccountRepository;
+import com.group7.accountsservice.repository.MovementCounterRepository;
 import com.group7.accountsservice.repository.MovementRepository;
+import com.group7.accountsservice.utils.AccountLanes;
 import com.group7.accountsservice.utils.MovementUtils;
+import com.group7.accountsservice.utils.OptimisticRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -24,6 +33,10 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class MovementServiceImplTest {
@@ -48,6 +61,15 @@ class MovementServiceImplTest {
     private AccountRepository accountRepository;
     @Mock
     private MovementUtils movementUtils;
+    @Mock
+    private MovementCounterRepository movementCounterRepository;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(new OptimisticRetryConfiguration(),
+            new SimpleMeterRegistry());
+    @Spy
+    private AccountLanes accountLanes = new AccountLanes(new AccountLanesConfiguration(), new SimpleMeterRegistry());
 
     @InjectMocks
     private MovementServiceImpl movementService;
@@ -55,6 +77,8 @@ class MovementServiceImplTest {
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
+        when(transactionalOperator.transactional(any(Mono.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
     }
 
     @Test
@@ -131,6 +155,9 @@ class MovementServiceImplTest {
         when(movementRepository.delete(movement))
                 .thenReturn(Mono.empty());
 
+        when(movementCounterRepository.uncountMovement(movement))
+                .thenReturn(Mono.just(MovementCounter.empty(movement.getAccount(), YearMonth.now())));
+
         StepVerifier.create(movementService.delete("627760015d3f4d6ace96c44b"))
                 .verifyComplete();
     }
@@ -147,8 +174,6 @@ class MovementServiceImplTest {
     @Test
     void save() {
         YearMonth currentMonth = YearMonth.now();
-        LocalDate firstOfMonth = currentMonth.atDay(1);
-        LocalDate last = currentMonth.atEndOfMonth();
 
         Account account = Account.builder()
                 .id(ACCOUNT_ID)
@@ -173,6 +198,9 @@ class MovementServiceImplTest {
         when(accountRepository.save(any()))
                 .thenReturn(Mono.just(account));
 
+        when(accountRepository.applyMovement(any()))
+                .thenReturn(Mono.just(account));
+
         Movement movement = Movement.builder()
                 .id("627760015d3f4d6ace96c44b")
                 .account(ACCOUNT_ID)
@@ -188,8 +216,18 @@ class MovementServiceImplTest {
                 .type("deposit")
                 .build();
 
-        when(movementRepository.findByAccountAndDateBetween(ACCOUNT_ID,firstOfMonth,last))
-                .thenReturn(Flux.just(movement));
+        MovementCounter counter = MovementCounter.builder()
+                .id(MovementCounter.idOf(ACCOUNT_ID, currentMonth))
+                .account(ACCOUNT_ID)
+                .month(currentMonth.toString())
+                .count(2L)
+                .build();
+
+        when(movementCounterRepository.countMovement(any()))
+                .thenReturn(Mono.just(counter));
+
+        when(movementCounterRepository.uncountMovement(any()))
+                .thenReturn(Mono.just(counter));
 
         when(movementRepository.save(any()))
                 .thenReturn(Mono.just(movement));
@@ -202,8 +240,6 @@ class MovementServiceImplTest {
     @Test
     void save_notFoundAccount() {
         YearMonth currentMonth = YearMonth.now();
-        LocalDate firstOfMonth = currentMonth.atDay(1);
-        LocalDate last = currentMonth.atEndOfMonth();
 
         Account account = Account.builder()
                 .id(ACCOUNT_ID)
@@ -243,8 +279,18 @@ class MovementServiceImplTest {
                 .type("deposit")
                 .build();
 
-        when(movementRepository.findByAccountAndDateBetween(ACCOUNT_ID,firstOfMonth,last))
-                .thenReturn(Flux.just(movement));
+        MovementCounter counter = MovementCounter.builder()
+                .id(MovementCounter.idOf(ACCOUNT_ID, currentMonth))
+                .account(ACCOUNT_ID)
+                .month(currentMonth.toString())
+                .count(2L)
+                .build();
+
+        when(movementCounterRepository.countMovement(any()))
+                .thenReturn(Mono.just(counter));
+
+        when(movementCounterRepository.uncountMovement(any()))
+                .thenReturn(Mono.just(counter));
 
         when(movementRepository.save(any()))
                 .thenReturn(Mono.just(movement));
@@ -257,8 +303,6 @@ class MovementServiceImplTest {
     @Test
     void save_FixedAccount() {
         YearMonth currentMonth = YearMonth.now();
-        LocalDate firstOfMonth = currentMonth.atDay(1);
-        LocalDate last = currentMonth.atEndOfMonth();
 
         Account account = Account.builder()
                 .id(ACCOUNT_ID)
@@ -298,8 +342,18 @@ class MovementServiceImplTest {
                 .type("deposit")
                 .build();
 
-        when(movementRepository.findByAccountAndDateBetween(ACCOUNT_ID,firstOfMonth,last))
-                .thenReturn(Flux.just(movement));
+        MovementCounter counter = MovementCounter.builder()
+                .id(MovementCounter.idOf(ACCOUNT_ID, currentMonth))
+                .account(ACCOUNT_ID)
+                .month(currentMonth.toString())
+                .count(2L)
+                .build();
+
+        when(movementCounterRepository.countMovement(any()))
+                .thenReturn(Mono.just(counter));
+
+        when(movementCounterRepository.uncountMovement(any()))
+                .thenReturn(Mono.just(counter));
 
         when(movementRepository.save(any()))
                 .thenReturn(Mono.just(movement));
@@ -311,8 +365,6 @@ class MovementServiceImplTest {
     @Test
     void save_account_limitMovements() {
         YearMonth currentMonth = YearMonth.now();
-        LocalDate firstOfMonth = currentMonth.atDay(1);
-        LocalDate last = currentMonth.atEndOfMonth();
 
         Account account = Account.builder()
                 .id(ACCOUNT_ID)
@@ -352,14 +404,27 @@ class MovementServiceImplTest {
                 .type("withdraw")
                 .build();
 
-        when(movementRepository.findByAccountAndDateBetween(ACCOUNT_ID,firstOfMonth,last))
-                .thenReturn(Flux.just(movement));
+        MovementCounter counter = MovementCounter.builder()
+                .id(MovementCounter.idOf(ACCOUNT_ID, currentMonth))
+                .account(ACCOUNT_ID)
+                .month(currentMonth.toString())
+                .count(2L)
+                .build();
+
+        when(movementCounterRepository.countMovement(any()))
+                .thenReturn(Mono.just(counter));
+
+        when(movementCounterRepository.uncountMovement(any()))
+                .thenReturn(Mono.just(counter));
 
         when(movementRepository.save(any()))
                 .thenReturn(Mono.just(movement));
 
         StepVerifier.create(movementService.save(movementRequest))
                 .verifyError(MovementCreationException.class);
+
+        verify(transactionalOperator).transactional(any(Mono.class));
+        verify(movementCounterRepository, never()).uncountMovement(any());
     }
 
 
@@ -392,6 +457,9 @@ class MovementServiceImplTest {
         when(accountRepository.save(any()))
                 .thenReturn(Mono.just(account));
 
+        when(accountRepository.incrementBalanceIfCovered(eq(ACCOUNT_ID), anyLong()))
+                .thenReturn(Mono.just(account));
+
         Movement movement = Movement.builder()
                 .id("627760015d3f4d6ace96c44b")
                 .account(ACCOUNT_ID)
@@ -0,0 +1,115 @@
+package com.group7.accountsservice.serviceimpl;
+
+import com.group7.accountsservice.configuration.OutboxConfiguration;
+import com.group7.accountsservice.model.OutboxEvent;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    @Mock
+    private ReactiveMongoOperations mongoOperations;
+    @Mock
+    private MessageService messageService;
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(mongoOperations.upsert(any(Query.class), any(UpdateDefinition.class), eq("outbox_lease")))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1L, 1L, null)));
+        when(mongoOperations.find(any(Query.class), eq(OutboxEvent.class)))
+                .thenReturn(Flux.fromIterable(events()));
+        when(mongoOperations.remove(any(Query.class), eq(OutboxEvent.class)))
+                .thenReturn(Mono.just(DeleteResult.acknowledged(2L)));
+        when(messageService.publish(anyString(), any())).thenReturn(Mono.just(true));
+        relay = new OutboxRelay(mongoOperations, messageService, new OutboxConfiguration(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void leaseIsTakenWhenFreeOwnedOrExpired() {
+        StepVerifier.create(relay.drain()).expectNext(2L).verifyComplete();
+
+        ArgumentCaptor<Query> lease = ArgumentCaptor.forClass(Query.class);
+        verify(mongoOperations).upsert(lease.capture(), any(UpdateDefinition.class), eq("outbox_lease"));
+        Document filter = lease.getValue().getQueryObject();
+        assertEquals("relay", filter.get("_id"));
+        List<?> holders = (List<?>) filter.get("$or");
+        assertEquals(2, holders.size());
+        assertTrue(((Document) holders.get(1)).get("expiresAt", Document.class).containsKey("$lt"));
+    }
+
+    @Test
+    void leaseHeldByAnotherReplicaSkipsRelaying() {
+        when(mongoOperations.upsert(any(Query.class), any(UpdateDefinition.class), eq("outbox_lease")))
+                .thenReturn(Mono.error(new DuplicateKeyException("lease held")));
+
+        StepVerifier.create(relay.drain()).verifyComplete();
+
+        verify(mongoOperations, never()).find(any(Query.class), eq(OutboxEvent.class));
+        verify(messageService, never()).publish(anyString(), any());
+    }
+
+    @Test
+    void eventsAreDeletedOnlyAfterTheBrokerAcknowledges() {
+        Sinks.One<Boolean> ack = Sinks.one();
+        when(messageService.publish(eq(OutboxEvent.RESULT), any())).thenReturn(ack.asMono());
+
+        StepVerifier.create(relay.drain())
+                .then(() -> verify(mongoOperations, never()).remove(any(Query.class), eq(OutboxEvent.class)))
+                .then(() -> ack.tryEmitValue(true))
+                .expectNext(2L)
+                .verifyComplete();
+
+        ArgumentCaptor<Query> deleted = ArgumentCaptor.forClass(Query.class);
+        verify(mongoOperations).remove(deleted.capture(), eq(OutboxEvent.class));
+        assertEquals(Arrays.asList("e1", "e2"),
+                deleted.getValue().getQueryObject().get("_id", Document.class).get("$in"));
+    }
+
+    @Test
+    void batchWithFailedPublishIsKeptAndRetried() {
+        when(messageService.publish(eq(OutboxEvent.RESULT), any()))
+                .thenReturn(Mono.error(new IllegalStateException("broker down")))
+                .thenReturn(Mono.just(true));
+
+        StepVerifier.create(relay.drain()).verifyComplete();
+        verify(mongoOperations, never()).remove(any(Query.class), eq(OutboxEvent.class));
+
+        StepVerifier.create(relay.drain()).expectNext(2L).verifyComplete();
+        verify(mongoOperations).remove(any(Query.class), eq(OutboxEvent.class));
+        verify(messageService, times(2)).publish(eq(OutboxEvent.TO_YANKI), any());
+    }
+
+    private static List<OutboxEvent> events() {
+        return Arrays.asList(
+                new OutboxEvent("e1", OutboxEvent.TO_YANKI, "yanki", Instant.now()),
+                new OutboxEvent("e2", OutboxEvent.RESULT, "result", Instant.now()));
+    }
+}
@@ -0,0 +1,157 @@
+package com.group7.accountsservice.serviceimpl;
+
+import com.group7.accountsservice.configuration.OptimisticRetryConfiguration;
+import com.group7.accountsservice.dto.TransferRequest;
+import com.group7.accountsservice.exception.transfer.TransferCreationException;
+import com.group7.accountsservice.model.Account;
+import com.group7.accountsservice.model.Transfer;
+import com.group7.accountsservice.model.TransferPlan;
+import com.group7.accountsservice.repository.MovementCounterRepository;
+import com.group7.accountsservice.utils.OptimisticRetry;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.ReactiveCollectionCallback;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TransferEngineTest {
+
+    private static final String FROM = "627760015d3f4d6ace96c44b";
+    private static final String TO = "627760015d3f4d6ace96c55c";
+
+    @Mock
+    private ReactiveMongoOperations mongoOperations;
+    @Mock
+    private MovementCounterRepository movementCounterRepository;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+    @Mock
+    private BulkWriteResult bulkWriteResult;
+
+    private TransferEngine transferEngine;
+
+    private final AtomicBoolean written = new AtomicBoolean();
+
+    private final TransferPlan plan = TransferPlan.betweenAccounts(TransferRequest.builder()
+            .from(FROM)
+            .to(TO)
+            .amount(10.0)
+            .build());
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        OptimisticRetryConfiguration retryConfiguration = new OptimisticRetryConfiguration();
+        retryConfiguration.setMinBackoff(Duration.ofMillis(1));
+        retryConfiguration.setMaxBackoff(Duration.ofMillis(5));
+        transferEngine = new TransferEngine(mongoOperations, movementCounterRepository, transactionalOperator,
+                new OptimisticRetry(retryConfiguration, new SimpleMeterRegistry()));
+
+        when(transactionalOperator.transactional(any(Mono.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(mongoOperations.execute(eq(Account.class), any(ReactiveCollectionCallback.class)))
+                .thenAnswer(invocation -> Flux.just(bulkWriteResult));
+        when(mongoOperations.insertAll(anyList()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<List<Object>>getArgument(0))
+                        .doOnSubscribe(subscription -> written.set(true)));
+        when(mongoOperations.insert(any(Transfer.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0))
+                        .doOnSubscribe(subscription -> written.set(true)));
+        when(movementCounterRepository.countMovements(anyList()))
+                .thenReturn(Mono.<Void>empty().doOnSubscribe(subscription -> written.set(true)));
+    }
+
+    @Test
+    void allLegsMatchedCommitsTheTransfer() {
+        when(bulkWriteResult.getMatchedCount()).thenReturn(2);
+
+        StepVerifier.create(transferEngine.execute(plan))
+                .expectNext(plan.getTransfer())
+                .verifyComplete();
+
+        verify(transactionalOperator).transactional(any(Mono.class));
+        verify(mongoOperations).insertAll(plan.getMovements());
+        verify(movementCounterRepository).countMovements(plan.getMovements());
+        verify(mongoOperations, never()).count(any(Query.class), eq(Account.class));
+        assertTrue(written.get());
+    }
+
+    @Test
+    void writeConflictRunsTheTransactionAgain() {
+        when(bulkWriteResult.getMatchedCount()).thenReturn(2);
+        when(mongoOperations.execute(eq(Account.class), any(ReactiveCollectionCallback.class)))
+                .thenAnswer(invocation -> Flux.error(new MongoException(112, "WriteConflict")))
+                .thenAnswer(invocation -> Flux.just(bulkWriteResult));
+
+        StepVerifier.create(transferEngine.execute(plan))
+                .expectNext(plan.getTransfer())
+                .verifyComplete();
+
+        verify(transactionalOperator, times(2)).transactional(any(Mono.class));
+    }
+
+    @Test
+    void transientTransactionErrorIsRetriedUntilExhausted() {
+        MongoException transientError = new MongoException("transaction aborted");
+        transientError.addLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+        when(mongoOperations.execute(eq(Account.class), any(ReactiveCollectionCallback.class)))
+                .thenAnswer(invocation -> Flux.error(transientError));
+
+        StepVerifier.create(transferEngine.execute(plan))
+                .expectErrorMatches(ex -> ex == transientError)
+                .verify();
+
+        verify(transactionalOperator, times(5)).transactional(any(Mono.class));
+        assertFalse(written.get());
+    }
+
+    @Test
+    void unmatchedLegWithMissingAccountFailsAsMissingAccount() {
+        when(bulkWriteResult.getMatchedCount()).thenReturn(1);
+        when(mongoOperations.count(any(Query.class), eq(Account.class)))
+                .thenReturn(Mono.just(1L));
+
+        StepVerifier.create(transferEngine.execute(plan))
+                .expectErrorMatches(ex -> ex instanceof TransferCreationException
+                        && ex.getMessage().equals("Account does not exist"))
+                .verify();
+
+        verify(transactionalOperator).transactional(any(Mono.class));
+        assertFalse(written.get());
+    }
+
+    @Test
+    void unmatchedLegWithAllAccountsPresentFailsAsInsufficientFunds() {
+        when(bulkWriteResult.getMatchedCount()).thenReturn(1);
+        when(mongoOperations.count(any(Query.class), eq(Account.class)))
+                .thenReturn(Mono.just(2L));
+
+        StepVerifier.create(transferEngine.execute(plan))
+                .expectErrorMatches(ex -> ex instanceof TransferCreationException
+                        && ex.getMessage().equals("Not enough money to make this transfer"))
+                .verify();
+
+        verify(transactionalOperator).transactional(any(Mono.class));
+        assertFalse(written.get());
+    }
+}
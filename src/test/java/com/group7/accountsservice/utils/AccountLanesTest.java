@@ -0,0 +1,90 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.configuration.AccountLanesConfiguration;
+import com.group7.accountsservice.exception.account.AccountNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLanesTest {
+
+    private AccountLanes accountLanes;
+
+    @AfterEach
+    void teardown() {
+        if (accountLanes != null)
+            accountLanes.shutdown();
+    }
+
+    private AccountLanes lanes(int count, int capacity) {
+        AccountLanesConfiguration configuration = new AccountLanesConfiguration();
+        configuration.setCount(count);
+        configuration.setCapacity(capacity);
+        accountLanes = new AccountLanes(configuration, new SimpleMeterRegistry());
+        return accountLanes;
+    }
+
+    @Test
+    void operationsOnTheSameAccountRunInSubmissionOrder() {
+        AccountLanes lanes = lanes(4, 16);
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+
+        StepVerifier.create(Flux.just(1, 2, 3, 4)
+                        .flatMap(i -> lanes.submit("account", () -> Mono.delay(Duration.ofMillis(i == 1 ? 30 : 1))
+                                .doOnNext(x -> handled.add("op" + i))
+                                .thenReturn(i))))
+                .expectNextCount(4)
+                .verifyComplete();
+
+        assertEquals(Arrays.asList("op1", "op2", "op3", "op4"), handled);
+    }
+
+    @Test
+    void submitIsRejectedWhenTheLaneIsFull() {
+        AccountLanes lanes = lanes(1, 1);
+        Sinks.One<String> gate = Sinks.one();
+
+        Mono<String> running = lanes.submit("account", gate::asMono);
+        StepVerifier.create(running)
+                .then(() -> StepVerifier.create(lanes.submit("account", () -> Mono.just("late")))
+                        .expectError(RejectedExecutionException.class)
+                        .verify())
+                .then(() -> gate.tryEmitValue("first"))
+                .expectNext("first")
+                .verifyComplete();
+    }
+
+    @Test
+    void operationErrorsReachTheCallerAndDoNotStopTheLane() {
+        AccountLanes lanes = lanes(1, 16);
+
+        StepVerifier.create(lanes.submit("account", () -> Mono.error(new AccountNotFoundException("missing"))))
+                .expectError(AccountNotFoundException.class)
+                .verify();
+
+        StepVerifier.create(lanes.submit("account", () -> Mono.just("next")))
+                .expectNext("next")
+                .verifyComplete();
+    }
+
+    @Test
+    void emptyOperationsCompleteEmpty() {
+        AccountLanes lanes = lanes(1, 16);
+
+        StepVerifier.create(lanes.submit("account", Mono::empty))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,25 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.model.Client;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AccountRulesTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "Personal, VIP, true, false",
+            "Business, pyme, true, false",
+            "Personal, '', false, true",
+            "personal, , false, true",
+            "Business, '', false, false",
+    })
+    void profileAndTypeDecideTheRule(String type, String profile, boolean creditCard, boolean onePerType) {
+        Client client = Client.builder().type(type).profile(profile).build();
+
+        assertEquals(creditCard, AccountRules.requiresCreditCard(client));
+        assertEquals(onePerType, AccountRules.oneAccountPerType(client));
+    }
+}
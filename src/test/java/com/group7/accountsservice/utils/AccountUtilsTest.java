@@ -1,12 +1,12 @@
 package com.group7.accountsservice.utils;
 
 import com.group7.accountsservice.configuration.CurrentAccountConfiguration;
+import com.group7.accountsservice.configuration.FeePolicyConfiguration;
 import com.group7.accountsservice.configuration.FixedDepositAccountConfiguration;
 import com.group7.accountsservice.configuration.SavingAccountConfiguration;
 import com.group7.accountsservice.model.Account;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import reactor.core.publisher.Mono;
@@ -38,14 +38,16 @@ class AccountUtilsTest {
     @Mock
     private SavingAccountConfiguration savingAccountConfiguration;
 
-    @InjectMocks
-    private AccountUtils accountUtils;
-
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
     }
 
+    private AccountUtils accountUtils() {
+        return new AccountUtils(new FeePolicyEngine(currentAccountConfiguration, fixedDepositAccountConfiguration,
+                savingAccountConfiguration, new FeePolicyConfiguration()));
+    }
+
     @Test
     void setMaintenanceFee_saving() {
         when(currentAccountConfiguration.getMaintenanceFee())
@@ -71,7 +73,7 @@ class AccountUtilsTest {
                 .movementDay(ACCOUNT_MOVEMENT_DAY)
                 .build();
 
-        accountUtils.setMaintenanceFee(account);
+        accountUtils().setMaintenanceFee(account);
 
         assertEquals(0.0,account.getMaintenanceFee());
     }
@@ -101,7 +103,7 @@ class AccountUtilsTest {
                 .movementDay(ACCOUNT_MOVEMENT_DAY)
                 .build();
 
-        accountUtils.setMaintenanceFee(account);
+        accountUtils().setMaintenanceFee(account);
 
         assertEquals(10.5,account.getMaintenanceFee());
     }
@@ -131,7 +133,7 @@ class AccountUtilsTest {
                 .movementDay(ACCOUNT_MOVEMENT_DAY)
                 .build();
 
-        accountUtils.setMaintenanceFee(account);
+        accountUtils().setMaintenanceFee(account);
 
         assertEquals(0.0,account.getMaintenanceFee());
     }
@@ -161,7 +163,7 @@ class AccountUtilsTest {
                 .movementDay(ACCOUNT_MOVEMENT_DAY)
                 .build();
 
-        accountUtils.setMaintenanceFee(account);
+        accountUtils().setMaintenanceFee(account);
 
         assertEquals(0.0,account.getMaintenanceFee());
     }
@@ -189,7 +191,7 @@ class AccountUtilsTest {
                 .movementDay(ACCOUNT_MOVEMENT_DAY)
                 .build();
 
-        accountUtils.setMovementsLimit(account);
+        accountUtils().setMovementsLimit(account);
 
         assertEquals(5,account.getMovementsLimit());
 
@@ -218,7 +220,7 @@ class AccountUtilsTest {
                 .movementDay(ACCOUNT_MOVEMENT_DAY)
                 .build();
 
-        accountUtils.setMovementsLimit(account);
+        accountUtils().setMovementsLimit(account);
 
         assertEquals(Integer.MAX_VALUE,account.getMovementsLimit());
 
@@ -247,7 +249,7 @@ class AccountUtilsTest {
                 .movementDay(ACCOUNT_MOVEMENT_DAY)
                 .build();
 
-        accountUtils.setMovementsLimit(account);
+        accountUtils().setMovementsLimit(account);
 
         assertEquals(1,account.getMovementsLimit());
 
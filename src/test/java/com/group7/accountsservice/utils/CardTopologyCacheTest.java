@@ -0,0 +1,135 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.configuration.CardTopologyCacheConfiguration;
+import com.group7.accountsservice.model.CardTopology;
+import com.group7.accountsservice.model.DebitCard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardTopologyCacheTest {
+
+    private static final String CARD_ID = "627760015d3f4d6ace96c44a";
+    private static final String CARD_MAIN_ACCOUNT = "627760015d3f4d6ace96c40a";
+
+    private SimpleMeterRegistry meterRegistry;
+    private CardTopologyCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setup() {
+        CardTopologyCacheConfiguration configuration = new CardTopologyCacheConfiguration();
+        configuration.setMaxSize(2);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CardTopologyCache(configuration, meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void getLoadsOnceAndThenHits() {
+        StepVerifier.create(cache.get(CARD_ID, () -> load(CARD_ID)).then(cache.get(CARD_ID, () -> load(CARD_ID))))
+                .assertNext(topology -> {
+                    assertEquals(CARD_MAIN_ACCOUNT, topology.getMainAccount());
+                    assertEquals(Arrays.asList(CARD_MAIN_ACCOUNT), topology.getOptionalAccounts());
+                })
+                .verifyComplete();
+
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.counter("cards.topology.cache", "result", "hit").count());
+        assertEquals(1.0, meterRegistry.counter("cards.topology.cache", "result", "miss").count());
+    }
+
+    @Test
+    void invalidateEvictsAndAnnouncesCard() {
+        StepVerifier.create(cache.invalidations().take(1))
+                .then(() -> {
+                    cache.get(CARD_ID, () -> load(CARD_ID)).block();
+                    cache.invalidate(CARD_ID);
+                })
+                .expectNext(CARD_ID)
+                .verifyComplete();
+
+        assertEquals(0, cache.size());
+        cache.get(CARD_ID, () -> load(CARD_ID)).block();
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidationsBeforeSubscriptionAreKept() {
+        cache.invalidate(CARD_ID);
+        cache.invalidateAll();
+
+        StepVerifier.create(cache.invalidations().take(2))
+                .expectNext(CARD_ID, CardTopologyCache.ALL_CARDS)
+                .verifyComplete();
+    }
+
+    @Test
+    void concurrentInvalidationsAreAllAnnounced() throws InterruptedException {
+        List<String> announced = Collections.synchronizedList(new ArrayList<>());
+        Disposable subscription = cache.invalidations().subscribe(announced::add);
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 400; i++) {
+                String id = "card-" + i;
+                writers.execute(() -> cache.invalidate(id));
+            }
+            writers.shutdown();
+            assertTrue(writers.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            subscription.dispose();
+        }
+
+        assertEquals(400, announced.size());
+        assertEquals(0.0, meterRegistry.counter("cards.topology.invalidations.failures", "stage", "emit").count());
+    }
+
+    @Test
+    void loadOverlappingAnInvalidationIsNotCached() {
+        CardTopology topology = cache.get(CARD_ID, () -> Mono.defer(() -> {
+            cache.evict(CARD_ID);
+            return load(CARD_ID);
+        })).block();
+
+        assertNotNull(topology);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void leastRecentlyUsedCardIsEvictedPastMaxSize() {
+        cache.get("a", () -> load("a")).block();
+        cache.get("b", () -> load("b")).block();
+        cache.get("a", () -> load("a")).block();
+        cache.get("c", () -> load("c")).block();
+
+        assertEquals(2, cache.size());
+        cache.get("a", () -> load("a")).block();
+        assertEquals(3, loads.get());
+        assertEquals(1.0, meterRegistry.counter("cards.topology.cache.evictions").count());
+    }
+
+    private Mono<DebitCard> load(String id) {
+        return Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return DebitCard.builder()
+                    .id(id)
+                    .mainAccount(CARD_MAIN_ACCOUNT)
+                    .optionalAccounts(new ArrayList<>(Arrays.asList(CARD_MAIN_ACCOUNT)))
+                    .build();
+        });
+    }
+}
@@ -0,0 +1,163 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.configuration.DeduplicationConfiguration;
+import com.group7.accountsservice.model.ProcessedEvent;
+import com.group7.accountsservice.repository.ProcessedEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.redisson.api.RSetCacheReactive;
+import org.redisson.api.RedissonReactiveClient;
+import org.redisson.client.codec.Codec;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventDeduplicatorTest {
+
+    @Mock
+    private RedissonReactiveClient client;
+    @Mock
+    private RSetCacheReactive<String> processed;
+    @Mock
+    private ProcessedEventRepository processedEventRepository;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    private EventDeduplicator deduplicator;
+    private AtomicInteger runs;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(client.<String>getSetCache(anyString(), any(Codec.class))).thenReturn(processed);
+        when(processed.add(anyString(), anyLong(), any(TimeUnit.class))).thenReturn(Mono.just(true));
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(processedEventRepository.findById(anyString())).thenReturn(Mono.empty());
+        when(processedEventRepository.insert(any(ProcessedEvent.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        deduplicator = new EventDeduplicator(client, new DeduplicationConfiguration(), new SimpleMeterRegistry(),
+                processedEventRepository, transactionalOperator);
+        runs = new AtomicInteger();
+    }
+
+    @Test
+    void newEventRunsAndIsRecorded() {
+        when(processed.contains("yanki:1")).thenReturn(Mono.just(false));
+
+        StepVerifier.create(deduplicator.once("yanki", "1", this::operation))
+                .expectNext(1)
+                .verifyComplete();
+
+        verify(processed).add(eq("yanki:1"), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    void redeliveryOnSameReplicaIsDroppedWithoutRedis() {
+        when(processed.contains("yanki:1")).thenReturn(Mono.just(false));
+
+        deduplicator.once("yanki", "1", this::operation).block();
+        StepVerifier.create(deduplicator.once("yanki", "1", this::operation))
+                .verifyComplete();
+
+        assertEquals(1, runs.get());
+        verify(processed, times(1)).contains("yanki:1");
+    }
+
+    @Test
+    void eventProcessedByAnotherReplicaIsDropped() {
+        when(processed.contains("transaction:7")).thenReturn(Mono.just(true));
+
+        StepVerifier.create(deduplicator.once("transaction", "7", this::operation))
+                .verifyComplete();
+
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void failedEventIsNotRecorded() {
+        when(processed.contains("yanki:2")).thenReturn(Mono.just(false));
+
+        StepVerifier.create(deduplicator.once("yanki", "2", () -> Mono.error(new IllegalStateException("boom"))))
+                .verifyError(IllegalStateException.class);
+
+        verify(processed, never()).add(anyString(), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    void eventWithoutIdAlwaysRuns() {
+        deduplicator.once("yanki", null, this::operation).block();
+        deduplicator.once("yanki", null, this::operation).block();
+
+        assertEquals(2, runs.get());
+        verify(processed, never()).contains(anyString());
+    }
+
+    @Test
+    void redisOutageFallsBackToProcessing() {
+        when(processed.contains("yanki:3")).thenReturn(Mono.error(new IllegalStateException("redis down")));
+
+        StepVerifier.create(deduplicator.once("yanki", "3", this::operation))
+                .expectNext(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void newLegRunsInTransactionAndRecordsItsOutcome() {
+        StepVerifier.create(deduplicator.leg("yanki", "4", ProcessedEvent.DEBIT, () -> Mono.just(false)))
+                .expectNext(false)
+                .verifyComplete();
+
+        verify(transactionalOperator).transactional(any(Mono.class));
+        verify(processedEventRepository).insert(argThat((ProcessedEvent event) ->
+                event.getId().equals("yanki:4:debit") && !event.isApplied()));
+    }
+
+    @Test
+    void appliedLegIsNotRunAgain() {
+        when(processedEventRepository.findById("yanki:5:debit"))
+                .thenReturn(Mono.just(ProcessedEvent.of("yanki:5:debit", true)));
+
+        StepVerifier.create(deduplicator.leg("yanki", "5", ProcessedEvent.DEBIT,
+                        () -> Mono.fromSupplier(() -> runs.incrementAndGet() > 0)))
+                .expectNext(true)
+                .verifyComplete();
+
+        assertEquals(0, runs.get());
+        verify(processedEventRepository, never()).insert(any(ProcessedEvent.class));
+    }
+
+    @Test
+    void concurrentlyAppliedLegReturnsRecordedOutcome() {
+        when(processedEventRepository.findById("yanki:6:credit"))
+                .thenReturn(Mono.empty())
+                .thenReturn(Mono.just(ProcessedEvent.of("yanki:6:credit", true)));
+        when(processedEventRepository.insert(any(ProcessedEvent.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000")));
+
+        StepVerifier.create(deduplicator.leg("yanki", "6", ProcessedEvent.CREDIT, () -> Mono.just(true)))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    private Mono<Integer> operation() {
+        return Mono.fromSupplier(runs::incrementAndGet);
+    }
+}
@@ -0,0 +1,85 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.configuration.CurrentAccountConfiguration;
+import com.group7.accountsservice.configuration.FeePolicyConfiguration;
+import com.group7.accountsservice.configuration.FixedDepositAccountConfiguration;
+import com.group7.accountsservice.configuration.SavingAccountConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeePolicyEngineTest {
+
+    private CurrentAccountConfiguration currentAccountConfiguration;
+    private SavingAccountConfiguration savingAccountConfiguration;
+    private FeePolicyConfiguration feePolicyConfiguration;
+    private FeePolicyEngine feePolicyEngine;
+
+    @BeforeEach
+    void setup() {
+        currentAccountConfiguration = new CurrentAccountConfiguration();
+        currentAccountConfiguration.setMaintenanceFee(10.5);
+        savingAccountConfiguration = new SavingAccountConfiguration();
+        savingAccountConfiguration.setMovementsLimit(5);
+        savingAccountConfiguration.setMaintenanceFee(0.0);
+        feePolicyConfiguration = new FeePolicyConfiguration();
+        feePolicyEngine = new FeePolicyEngine(currentAccountConfiguration, new FixedDepositAccountConfiguration(),
+                savingAccountConfiguration, feePolicyConfiguration);
+    }
+
+    @Test
+    void profileRuleOverridesAccountType() {
+        FeePolicy.Rule pyme = feePolicyEngine.ruleFor("Current", "pyme");
+
+        assertEquals(0.0, pyme.getMaintenanceFee());
+        assertEquals(Integer.MAX_VALUE, pyme.getMovementsLimit());
+        assertEquals(10.5, feePolicyEngine.ruleFor("current", "VIP").getMaintenanceFee());
+        assertEquals(10.5, feePolicyEngine.ruleFor("Current", null).getMaintenanceFee());
+    }
+
+    @Test
+    void unknownAccountTypeHasNoRule() {
+        assertNull(feePolicyEngine.ruleFor("Brokerage", null));
+        assertNull(feePolicyEngine.ruleFor(null, "PYME"));
+    }
+
+    @Test
+    void transactionFeesComeFromConfiguration() {
+        assertEquals(500L, feePolicyEngine.ruleFor("Saving", null).getTransactionFeeMinor());
+        assertEquals(400L, feePolicyEngine.ruleFor("Fixed Deposit", null).getTransactionFeeMinor());
+
+        savingAccountConfiguration.setTransactionFee(2.5);
+        feePolicyEngine.reload();
+
+        assertEquals(250L, feePolicyEngine.ruleFor("Saving", null).getTransactionFeeMinor());
+    }
+
+    @Test
+    void reloadSwapsTheWholePolicy() {
+        FeePolicy.Rule before = feePolicyEngine.ruleFor("Saving", "VIP");
+
+        savingAccountConfiguration.setMovementsLimit(20);
+        feePolicyConfiguration.setProfiles(new ArrayList<>(Collections.singletonList(
+                new FeePolicyConfiguration.ProfileRule("Saving", "VIP", null, 50, 0.0))));
+        feePolicyEngine.reload();
+
+        assertEquals(5, before.getMovementsLimit());
+        assertEquals(50, feePolicyEngine.ruleFor("Saving", "VIP").getMovementsLimit());
+        assertEquals(0L, feePolicyEngine.ruleFor("Saving", "VIP").getTransactionFeeMinor());
+        assertEquals(20, feePolicyEngine.ruleFor("Saving", null).getMovementsLimit());
+        assertEquals(10.5, feePolicyEngine.ruleFor("Current", "PYME").getMaintenanceFee());
+    }
+
+    @Test
+    void invalidReloadKeepsPreviousPolicy() {
+        feePolicyConfiguration.setProfiles(new ArrayList<>(Collections.singletonList(
+                new FeePolicyConfiguration.ProfileRule("Brokerage", "VIP", 1.0, null, null))));
+        feePolicyEngine.reload();
+
+        assertEquals(0.0, feePolicyEngine.ruleFor("Current", "PYME").getMaintenanceFee());
+    }
+}
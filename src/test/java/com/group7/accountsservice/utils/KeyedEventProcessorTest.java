@@ -0,0 +1,186 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.configuration.StreamConsumerConfiguration;
+import com.group7.accountsservice.dto.DeadLetter;
+import com.group7.accountsservice.exception.movement.MovementCreationException;
+import com.group7.accountsservice.model.OutboxEvent;
+import com.group7.accountsservice.repository.OutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class KeyedEventProcessorTest {
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private KeyedEventProcessor processor;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        StreamConsumerConfiguration configuration = new StreamConsumerConfiguration();
+        configuration.setMaxAttempts(3);
+        configuration.setBackoff(Duration.ofMillis(1));
+        configuration.setMaxBackoff(Duration.ofMillis(5));
+        processor = new KeyedEventProcessor(configuration, outboxRepository, meterRegistry);
+        when(outboxRepository.insert(any(OutboxEvent.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    }
+
+    @Test
+    void eventsWithTheSameKeyKeepTheirOrder() {
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        Flux<Message<String>> events = Flux.just("a:1", "b:1", "a:2", "b:2", "a:3")
+                .map(payload -> MessageBuilder.withPayload(payload).build());
+
+        StepVerifier.create(processor.process("test", events, payload -> payload.substring(0, 1),
+                        payload -> Mono.delay(Duration.ofMillis(payload.startsWith("a:1") ? 30 : 1))
+                                .doOnNext(tick -> handled.add(payload))))
+                .verifyComplete();
+
+        List<String> sameKey = new ArrayList<>();
+        for (String payload : handled)
+            if (payload.startsWith("a:"))
+                sameKey.add(payload);
+        assertEquals(Arrays.asList("a:1", "a:2", "a:3"), sameKey);
+        assertEquals(5, handled.size());
+    }
+
+    @Test
+    void recordIsAcknowledgedOnlyAfterItsHandlerFinishes() {
+        AtomicInteger acknowledged = new AtomicInteger();
+        List<Integer> acknowledgedWhenHandled = Collections.synchronizedList(new ArrayList<>());
+        Acknowledgment acknowledgment = acknowledged::incrementAndGet;
+        Flux<Message<String>> events = Flux.just("ok", "fail")
+                .map(payload -> MessageBuilder.withPayload(payload)
+                        .setHeader(KafkaHeaders.ACKNOWLEDGMENT, acknowledgment)
+                        .build());
+
+        StepVerifier.create(processor.process("test", events, payload -> "same",
+                        payload -> Mono.fromRunnable(() -> {
+                            acknowledgedWhenHandled.add(acknowledged.get());
+                            if (payload.equals("fail"))
+                                throw new MovementCreationException("boom");
+                        })))
+                .verifyComplete();
+
+        assertEquals(Arrays.asList(0, 1), acknowledgedWhenHandled);
+        assertEquals(2, acknowledged.get());
+    }
+
+    @Test
+    void transientFailureIsRetriedBeforeAcknowledging() {
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(processor.process("test", Flux.just(message("event", acknowledgment)), payload -> payload,
+                        payload -> Mono.fromRunnable(() -> {
+                            if (attempts.incrementAndGet() < 3)
+                                throw new IllegalStateException("mongo unavailable");
+                        })))
+                .verifyComplete();
+
+        assertEquals(3, attempts.get());
+        verify(acknowledgment).acknowledge();
+        verify(outboxRepository, never()).insert(any(OutboxEvent.class));
+    }
+
+    @Test
+    void exhaustedEventIsDeadLetteredBeforeAcknowledging() {
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(processor.process("test", Flux.just(message("event", acknowledgment)), payload -> payload,
+                        payload -> Mono.error(new IllegalStateException("attempt " + attempts.incrementAndGet()))))
+                .verifyComplete();
+
+        assertEquals(3, attempts.get());
+        InOrder order = inOrder(outboxRepository, acknowledgment);
+        order.verify(outboxRepository).insert(argThat((OutboxEvent event) ->
+                event.getBinding().equals(OutboxEvent.DEAD_LETTER)
+                        && ((DeadLetter) event.getPayload()).getPayload().equals("event")
+                        && ((DeadLetter) event.getPayload()).getMessage().equals("attempt 3")));
+        order.verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void permanentFailureIsNotRetried() {
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(processor.process("test", Flux.just(message("event", acknowledgment)), payload -> payload,
+                        payload -> Mono.fromRunnable(() -> {
+                            attempts.incrementAndGet();
+                            throw new MovementCreationException("Failed");
+                        })))
+                .verifyComplete();
+
+        assertEquals(1, attempts.get());
+        verify(outboxRepository).insert(any(OutboxEvent.class));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void deadLetterWriteIsRetriedBeforeTheRecordIsAcknowledged() {
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        AtomicInteger writes = new AtomicInteger();
+        when(outboxRepository.insert(any(OutboxEvent.class))).thenAnswer(invocation -> writes.incrementAndGet() < 2
+                ? Mono.error(new IllegalStateException("mongo unavailable"))
+                : Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(processor.process("test", Flux.just(message("event", acknowledgment)), payload -> payload,
+                        payload -> Mono.error(new MovementCreationException("rejected"))))
+                .verifyComplete();
+
+        assertEquals(2, writes.get());
+        verify(acknowledgment).acknowledge();
+        assertEquals(0, meterRegistry.counter("events.deadletter.failures", "consumer", "test").count());
+    }
+
+    @Test
+    void failingHandlerIsAcknowledgedAndCountedWhenDeadLetterFails() {
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        when(outboxRepository.insert(any(OutboxEvent.class)))
+                .thenReturn(Mono.error(new IllegalStateException("mongo unavailable")));
+
+        StepVerifier.create(processor.process("test", Flux.just(message("event", acknowledgment)), payload -> payload,
+                        payload -> Mono.error(new IllegalStateException("boom"))))
+                .verifyComplete();
+
+        verify(outboxRepository, times(3)).insert(any(OutboxEvent.class));
+        verify(acknowledgment).acknowledge();
+        verify(acknowledgment, never()).nack(anyLong());
+        assertEquals(1, meterRegistry.counter("events.deadletter.failures", "consumer", "test").count());
+    }
+
+    private static Message<String> message(String payload, Acknowledgment acknowledgment) {
+        return MessageBuilder.withPayload(payload)
+                .setHeader(KafkaHeaders.ACKNOWLEDGMENT, acknowledgment)
+                .build();
+    }
+}
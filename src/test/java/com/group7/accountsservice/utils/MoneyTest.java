@@ -0,0 +1,58 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.model.Account;
+import com.group7.accountsservice.model.Movement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MoneyTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "0.29, 29",
+            "19.99, 1999",
+            "-4.1, -410",
+            "100.0, 10000",
+            "0.005, 1",
+    })
+    void toMinorRoundsToNearestCent(double amount, long minor) {
+        assertEquals(minor, Money.toMinor(amount));
+    }
+
+    @Test
+    void nullAmountIsZero() {
+        assertEquals(0L, Money.toMinor((Double) null));
+    }
+
+    @Test
+    void sumOfCentsDoesNotDrift() {
+        long total = 0L;
+        for (int i = 0; i < 100_000; i++)
+            total += Money.toMinor(0.1);
+
+        assertEquals(10_000.0, Money.toMajor(total));
+    }
+
+    @Test
+    void movementDeltaIsComputedInMinorUnits() {
+        Account account = Account.builder()
+                .client("627718aff4256e7261ae367f")
+                .type("Saving")
+                .balance(0.3)
+                .build();
+        Movement withdraw = Movement.builder()
+                .type("withdraw")
+                .account("627760015d3f4d6ace96c44b")
+                .amount(0.1)
+                .transactionFee(0.2)
+                .build();
+
+        assertEquals(-30L, Account.balanceDeltaOf(withdraw));
+        account.makeMovement(withdraw);
+        assertEquals(0L, account.getBalanceMinor());
+        assertEquals(0.0, account.getBalance());
+    }
+}
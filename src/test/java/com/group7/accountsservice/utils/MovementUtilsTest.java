@@ -1,23 +1,30 @@
 package com.group7.accountsservice.utils;
 
+import com.group7.accountsservice.configuration.CurrentAccountConfiguration;
+import com.group7.accountsservice.configuration.FeePolicyConfiguration;
+import com.group7.accountsservice.configuration.FixedDepositAccountConfiguration;
+import com.group7.accountsservice.configuration.SavingAccountConfiguration;
 import com.group7.accountsservice.dto.MovementRequest;
+import com.group7.accountsservice.model.Account;
 import com.group7.accountsservice.model.Movement;
+import com.group7.accountsservice.model.MovementCounter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
-import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class MovementUtilsTest {
-    @InjectMocks
-    private MovementUtils movementUtils;
+    private final MovementUtils movementUtils = new MovementUtils(new FeePolicyEngine(
+            new CurrentAccountConfiguration(), new FixedDepositAccountConfiguration(),
+            new SavingAccountConfiguration(), new FeePolicyConfiguration()));
 
     @BeforeEach
     void setup() {
@@ -112,4 +119,110 @@ class MovementUtilsTest {
         assertEquals(fee, movement.getTransactionFee());
 
     }
-}
\ No newline at end of file
+
+    @ParameterizedTest
+    @CsvSource({
+            "4, 0.0",
+            "5, 0.0",
+            "6, 5.0",
+    })
+    void setTransactionFee_fromCounter(long count, double fee) {
+
+        Account account = Account.builder()
+                .id("627760015d3f4d6ace96c55cc")
+                .client("627718aff4256e7261ae367f")
+                .type("Saving")
+                .balance(100.0)
+                .movementsLimit(5)
+                .build();
+
+        MovementCounter counter = MovementCounter.builder()
+                .id(MovementCounter.idOf(account.getId(), YearMonth.now()))
+                .account(account.getId())
+                .month(YearMonth.now().toString())
+                .count(count)
+                .build();
+
+        Movement movement = Movement.builder()
+                .account(account.getId())
+                .amount(100.0)
+                .date(LocalDate.now())
+                .transactionFee(0.0)
+                .type("deposit")
+                .build();
+
+        movementUtils.setTransactionFee(movement, account, counter);
+
+        assertEquals(fee, movement.getTransactionFee());
+
+    }
+
+    @Test
+    void setTransactionFee_withoutLimit() {
+
+        Account account = Account.builder()
+                .id("627760015d3f4d6ace96c55cc")
+                .client("627718aff4256e7261ae367f")
+                .type("Saving")
+                .balance(100.0)
+                .build();
+
+        MovementCounter counter = MovementCounter.builder()
+                .id(MovementCounter.idOf(account.getId(), YearMonth.now()))
+                .account(account.getId())
+                .month(YearMonth.now().toString())
+                .count(50L)
+                .build();
+
+        Movement movement = Movement.builder()
+                .account(account.getId())
+                .amount(100.0)
+                .date(LocalDate.now())
+                .transactionFee(0.0)
+                .type("deposit")
+                .build();
+
+        movementUtils.setTransactionFee(movement, account, counter);
+
+        assertEquals(0.0, movement.getTransactionFee());
+
+    }
+
+    @Test
+    void setTransactionFee_limitFromPolicy() {
+
+        SavingAccountConfiguration savingAccountConfiguration = new SavingAccountConfiguration();
+        savingAccountConfiguration.setMovementsLimit(2);
+        MovementUtils policyUtils = new MovementUtils(new FeePolicyEngine(
+                new CurrentAccountConfiguration(), new FixedDepositAccountConfiguration(),
+                savingAccountConfiguration, new FeePolicyConfiguration()));
+
+        Account account = Account.builder()
+                .id("627760015d3f4d6ace96c55cc")
+                .client("627718aff4256e7261ae367f")
+                .type("Saving")
+                .balance(100.0)
+                .movementsLimit(5)
+                .build();
+
+        MovementCounter counter = MovementCounter.builder()
+                .id(MovementCounter.idOf(account.getId(), YearMonth.now()))
+                .account(account.getId())
+                .month(YearMonth.now().toString())
+                .count(3L)
+                .build();
+
+        Movement movement = Movement.builder()
+                .account(account.getId())
+                .amount(100.0)
+                .date(LocalDate.now())
+                .transactionFee(0.0)
+                .type("deposit")
+                .build();
+
+        policyUtils.setTransactionFee(movement, account, counter);
+
+        assertEquals(5.0, movement.getTransactionFee());
+
+    }
+}
@@ -0,0 +1,50 @@
+package com.group7.accountsservice.utils;
+
+import com.group7.accountsservice.dto.PageResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.util.function.Tuple2;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    private static final String MOVEMENT_ID = "627760015d3f4d6ace96c44b";
+
+    @Test
+    void encodeAndDecodeDateAndId() {
+        LocalDate date = LocalDate.of(2022, 5, 24);
+
+        Tuple2<LocalDate, String> key = PageCursor.decodeDateAndId(PageCursor.encode(date, MOVEMENT_ID));
+
+        assertEquals(date, key.getT1());
+        assertEquals(MOVEMENT_ID, key.getT2());
+    }
+
+    @Test
+    void decodeInvalidCursor() {
+        String cursor = PageCursor.encode(MOVEMENT_ID);
+
+        assertThrows(ResponseStatusException.class, () -> PageCursor.decodeDateAndId(cursor));
+        assertThrows(ResponseStatusException.class, () -> PageCursor.decodeId("%%%"));
+    }
+
+    @Test
+    void checkLimit() {
+        assertEquals(10, PageCursor.checkLimit(10));
+        assertThrows(ResponseStatusException.class, () -> PageCursor.checkLimit(0));
+        assertThrows(ResponseStatusException.class, () -> PageCursor.checkLimit(PageCursor.MAX_LIMIT + 1));
+    }
+
+    @Test
+    void pageHasNextCursorOnlyWhenFull() {
+        PageResponse<String> full = PageCursor.page(Arrays.asList("a", "b"), 2, PageCursor::encode);
+        PageResponse<String> last = PageCursor.page(Arrays.asList("a"), 2, PageCursor::encode);
+
+        assertEquals(PageCursor.encode("b"), full.getNext());
+        assertNull(last.getNext());
+    }
+}
@@ -0,0 +1,132 @@
+package com.group7.accountsservice.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.redisson.api.RMapCacheReactive;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TwoLevelCacheTest {
+
+    @Mock
+    private RMapCacheReactive<String, String> remote;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(remote.get(anyString())).thenReturn(Mono.empty());
+        when(remote.fastPut(anyString(), anyString(), anyLong(), any(TimeUnit.class))).thenReturn(Mono.just(true));
+        meterRegistry = new SimpleMeterRegistry();
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void missLoadsOnceAndFillsBothLevels() {
+        TwoLevelCache<String> cache = cache(Duration.ofMinutes(1), 1.0);
+
+        StepVerifier.create(cache.get("c1", this::load)).expectNext("client-1").verifyComplete();
+        StepVerifier.create(cache.get("c1", this::load)).expectNext("client-1").verifyComplete();
+
+        assertEquals(1, loads.get());
+        verify(remote, times(1)).get("c1");
+        verify(remote).fastPut(eq("c1"), eq("client-1"), anyLong(), any(TimeUnit.class));
+        assertEquals(0.5, meterRegistry.get("clients.cache.hit.ratio").gauge().value());
+    }
+
+    @Test
+    void redisHitSkipsOrigin() {
+        when(remote.get("c1")).thenReturn(Mono.just("cached"));
+        TwoLevelCache<String> cache = cache(Duration.ofMinutes(1), 1.0);
+
+        StepVerifier.create(cache.get("c1", this::load)).expectNext("cached").verifyComplete();
+
+        assertEquals(0, loads.get());
+        assertEquals(1.0, meterRegistry.get("clients.cache").tag("result", "redis").counter().count());
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() {
+        Sinks.One<String> origin = Sinks.one();
+        TwoLevelCache<String> cache = cache(Duration.ofMinutes(1), 1.0);
+
+        StepVerifier first = StepVerifier.create(cache.get("c1", () -> count(origin.asMono())))
+                .expectNext("client-1").expectComplete().verifyLater();
+        StepVerifier second = StepVerifier.create(cache.get("c1", () -> count(origin.asMono())))
+                .expectNext("client-1").expectComplete().verifyLater();
+        origin.tryEmitValue("client-1");
+
+        first.verify();
+        second.verify();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void failedLoadIsNotCached() {
+        TwoLevelCache<String> cache = cache(Duration.ofMinutes(1), 1.0);
+
+        StepVerifier.create(cache.get("c1", () -> Mono.error(new IllegalStateException("down"))))
+                .verifyError(IllegalStateException.class);
+        StepVerifier.create(cache.get("c1", this::load)).expectNext("client-1").verifyComplete();
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void staleLocalHitIsServedAndRefreshedAhead() {
+        TwoLevelCache<String> cache = cache(Duration.ofMinutes(1), 0.0);
+
+        cache.get("c1", this::load).block();
+        StepVerifier.create(cache.get("c1", this::load)).expectNext("client-1").verifyComplete();
+
+        assertEquals(2, loads.get());
+        assertEquals(1.0, meterRegistry.get("clients.cache.refreshes").counter().count());
+    }
+
+    @Test
+    void expiredLocalEntryFallsBackToRedis() {
+        TwoLevelCache<String> cache = cache(Duration.ZERO, 1.0);
+
+        cache.get("c1", this::load).block();
+        when(remote.get("c1")).thenReturn(Mono.just("client-1"));
+        StepVerifier.create(cache.get("c1", this::load)).expectNext("client-1").verifyComplete();
+
+        assertEquals(1, loads.get());
+        verify(remote, times(2)).get("c1");
+    }
+
+    private TwoLevelCache<String> cache(Duration localTtl, double refreshAhead) {
+        return new TwoLevelCache<>("test", remote, 100, localTtl, Duration.ofMinutes(10), refreshAhead,
+                meterRegistry);
+    }
+
+    private Mono<String> load() {
+        return count(Mono.just("client-1"));
+    }
+
+    private Mono<String> count(Mono<String> value) {
+        return Mono.defer(() -> {
+            loads.incrementAndGet();
+            return value;
+        });
+    }
+}